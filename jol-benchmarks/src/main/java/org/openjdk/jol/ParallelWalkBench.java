@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphStats;
+import org.openjdk.jol.info.ParallelGraphStatsWalker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParallelWalkBench {
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param("1000000")
+    int size;
+
+    private Map<Integer, String> map;
+    private Node tree;
+
+    private ForkJoinPool pool;
+    private ParallelGraphStatsWalker walker;
+
+    public static class Node {
+        private Node left;
+        private Node right;
+    }
+
+    private static Node tree(int count) {
+        Node n = new Node();
+        int rest = count - 1;
+        if (rest > 0) {
+            n.left = tree(rest / 2);
+        }
+        if (rest > 1) {
+            n.right = tree(rest - rest / 2);
+        }
+        return n;
+    }
+
+    @Setup
+    public void setup() {
+        map = new HashMap<>();
+        for (int c = 0; c < size; c++) {
+            map.put(c, "Value" + c);
+        }
+        tree = tree(size);
+
+        pool = new ForkJoinPool(threads);
+        walker = new ParallelGraphStatsWalker(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long sequentialMap() {
+        return GraphStats.parseInstance(map).totalSize();
+    }
+
+    @Benchmark
+    public long parallelMap() {
+        return walker.walk(map).totalSize();
+    }
+
+    @Benchmark
+    public long sequentialTree() {
+        return GraphStats.parseInstance(tree).totalSize();
+    }
+
+    @Benchmark
+    public long parallelTree() {
+        return walker.walk(tree).totalSize();
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphStats;
+import org.openjdk.jol.info.ReusableGraphStatsWalker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ReusableWalkerBench {
+
+    @Param({"10", "100"})
+    int size;
+
+    private Map<Integer, Object> map;
+    private ReusableGraphStatsWalker walker;
+
+    @Setup
+    public void setup() {
+        map = new HashMap<>();
+        for (int c = 0; c < size; c++) {
+            map.put(c, "Value" + c);
+        }
+        walker = new ReusableGraphStatsWalker();
+    }
+
+    @Benchmark
+    public long fresh() {
+        return GraphStats.parseInstance(map).totalSize();
+    }
+
+    @Benchmark
+    public long reusedWalk() {
+        return walker.walk(map).totalSize();
+    }
+
+    @Benchmark
+    public long reusedMeasure() {
+        return walker.measure(map);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.info.GraphSnapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SnapshotWriteBench {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Map<Integer, Object> map;
+    private GraphLayout layout;
+    private OutputStream sink;
+
+    @Setup
+    public void setup() {
+        map = new HashMap<>();
+        for (int c = 0; c < size; c++) {
+            map.put(c, "Value" + c);
+        }
+        layout = GraphLayout.parseInstance(map).snapshot();
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                // discard
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // discard
+            }
+        };
+    }
+
+    @Benchmark
+    public long walk() {
+        return GraphLayout.parseInstance(map).totalCount();
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        GraphSnapshot.write(layout, sink, false);
+    }
+
+    @Benchmark
+    public void writeCompressed() throws IOException {
+        GraphSnapshot.write(layout, sink, true);
+    }
+
+}
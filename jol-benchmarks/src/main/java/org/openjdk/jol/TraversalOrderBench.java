@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphStatsWalker;
+import org.openjdk.jol.info.TraversalOrder;
+import org.openjdk.jol.info.WalkLimits;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TraversalOrderBench {
+
+    @Param({"DEPTH_FIRST", "BREADTH_FIRST", "ADDRESS_ORDERED"})
+    TraversalOrder order;
+
+    @Param({"hashMap", "arrayList", "tree"})
+    String shape;
+
+    @Param("100000")
+    int size;
+
+    private Object root;
+    private GraphStatsWalker walker;
+
+    static class Node {
+        Node left, right;
+        Object payload = new Object();
+    }
+
+    private static Node tree(int count) {
+        if (count == 0) {
+            return null;
+        }
+        Node n = new Node();
+        n.left = tree((count - 1) / 2);
+        n.right = tree(count - 1 - (count - 1) / 2);
+        return n;
+    }
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "hashMap": {
+                Map<Integer, Object> map = new HashMap<>();
+                for (int c = 0; c < size; c++) {
+                    map.put(c, new Object());
+                }
+                root = map;
+                break;
+            }
+            case "arrayList": {
+                List<Object> list = new ArrayList<>();
+                for (int c = 0; c < size; c++) {
+                    list.add(new Object());
+                }
+                root = list;
+                break;
+            }
+            case "tree":
+                root = tree(size);
+                break;
+            default:
+                throw new IllegalStateException("Unknown shape: " + shape);
+        }
+        walker = new GraphStatsWalker(WalkLimits.none(), order);
+    }
+
+    @Benchmark
+    public long walk() {
+        return walker.walk(root).totalSize();
+    }
+
+}
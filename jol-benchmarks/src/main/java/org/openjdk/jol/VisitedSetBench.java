@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.util.AddressIdentityHashSet;
+import org.openjdk.jol.util.SimpleIdentityHashSet;
+
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class VisitedSetBench {
+
+    @Param("100000")
+    int size;
+
+    private Object[] hashed;
+
+    @Setup
+    public void setup() {
+        hashed = new Object[size];
+        for (int c = 0; c < size; c++) {
+            hashed[c] = new Object();
+            System.identityHashCode(hashed[c]);
+        }
+    }
+
+    /**
+     * Objects that had never been hashed before. Identity hash set pays
+     * for installing the hash codes here.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        Object[] objs;
+
+        @Setup(Level.Invocation)
+        public void setup(VisitedSetBench bench) {
+            objs = new Object[bench.size];
+            for (int c = 0; c < objs.length; c++) {
+                objs[c] = new Object();
+            }
+        }
+    }
+
+    @Benchmark
+    public int identityFresh(Fresh f) {
+        SimpleIdentityHashSet set = new SimpleIdentityHashSet();
+        int added = 0;
+        for (Object o : f.objs) {
+            if (set.add(o)) added++;
+        }
+        return added;
+    }
+
+    @Benchmark
+    public int addressFresh(Fresh f) {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        int added = 0;
+        for (Object o : f.objs) {
+            if (set.add(o)) added++;
+        }
+        return added;
+    }
+
+    @Benchmark
+    public int identityHashed() {
+        SimpleIdentityHashSet set = new SimpleIdentityHashSet();
+        int added = 0;
+        for (Object o : hashed) {
+            if (set.add(o)) added++;
+        }
+        return added;
+    }
+
+    @Benchmark
+    public int addressHashed() {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        int added = 0;
+        for (Object o : hashed) {
+            if (set.add(o)) added++;
+        }
+        return added;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.FootprintWeigher;
+import org.openjdk.jol.info.GraphStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class WeigherBench {
+
+    @Param({"string", "boxed", "byteArray", "smallList", "smallMap", "largeMap"})
+    String shape;
+
+    private Object key;
+    private Object value;
+    private FootprintWeigher weigher;
+
+    @Setup
+    public void setup() {
+        key = "key-12345";
+        switch (shape) {
+            case "string":
+                value = "Some cached value of moderate length";
+                break;
+            case "boxed":
+                value = 123456789L;
+                break;
+            case "byteArray":
+                value = new byte[1024];
+                break;
+            case "smallList": {
+                List<String> list = new ArrayList<>();
+                for (int c = 0; c < 10; c++) {
+                    list.add("Value" + c);
+                }
+                value = list;
+                break;
+            }
+            case "smallMap":
+            case "largeMap": {
+                int size = shape.equals("smallMap") ? 10 : 1000;
+                Map<Integer, String> map = new HashMap<>();
+                for (int c = 0; c < size; c++) {
+                    map.put(c, "Value" + c);
+                }
+                value = map;
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown shape: " + shape);
+        }
+        weigher = new FootprintWeigher();
+    }
+
+    @Benchmark
+    public long weigher() {
+        return weigher.weigh(key, value);
+    }
+
+    @Benchmark
+    public long graphStats() {
+        return GraphStats.parseInstance(key, value).totalSize();
+    }
+
+}
@@ -58,6 +58,13 @@ public class ObjectEstimates extends ClasspathedOperation {
             new Model64_CCPS(16),
     };
 
+    private static final DataModel[] MODELS_JDK24 = new DataModel[]{
+            new Model64_COOPS_COH(),
+            new Model64_COOPS_COH(16),
+            new Model64_COH(),
+            new Model64_COH(16),
+    };
+
     @Override
     protected void runWith(Class<?> klass) {
         for (DataModel model : MODELS_JDK8) {
@@ -77,6 +84,12 @@ public class ObjectEstimates extends ClasspathedOperation {
             out.println("***** " + l);
             out.println(ClassLayout.parseClass(klass, l).toPrintable());
         }
+
+        for (DataModel model : MODELS_JDK24) {
+            Layouter l = new HotSpotLayouter(model, 24);
+            out.println("***** " + l);
+            out.println(ClassLayout.parseClass(klass, l).toPrintable());
+        }
     }
 
 }
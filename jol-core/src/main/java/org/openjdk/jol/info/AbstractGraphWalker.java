@@ -24,10 +24,6 @@
  */
 package org.openjdk.jol.info;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.*;
-
 /**
  * Basic class to walk object graphs.
  *
@@ -35,8 +31,6 @@ import java.util.*;
  */
 abstract class AbstractGraphWalker {
 
-    private static final ReferenceFieldsClassValue CLASS_REFERENCE_FIELDS = new ReferenceFieldsClassValue();
-
     protected void verifyRoots(Object... roots) {
         if (roots == null) {
             throw new IllegalArgumentException("Roots are null");
@@ -48,43 +42,12 @@ abstract class AbstractGraphWalker {
         }
     }
 
-    private static class ReferenceFieldsClassValue extends ClassValue<Field[]> {
-        @Override
-        protected Field[] computeValue(Class<?> klass) {
-            List<Field> results = new ArrayList<>();
-
-            for (Field f : klass.getDeclaredFields()) {
-                if (Modifier.isStatic(f.getModifiers())) continue;
-                if (f.getType().isPrimitive()) continue;
-                results.add(f);
-            }
-
-            Class<?> superKlass = klass;
-            while ((superKlass = superKlass.getSuperclass()) != null) {
-                for (Field f : superKlass.getDeclaredFields()) {
-                    if (Modifier.isStatic(f.getModifiers())) continue;
-                    if (f.getType().isPrimitive()) continue;
-                    results.add(f);
-                }
-            }
-
-            Field[] fArr = results.toArray(new Field[0]);
-
-            // The walkers would access through these fields.
-            // Try to make them accessible right now.
-            for (Field f : fArr) {
-                try {
-                    f.setAccessible(true);
-                } catch (Exception e) {
-                    // No biggie, walker code would try something else.
-                }
-            }
-            return fArr;
-        }
+    protected ReferenceFields getReferenceFields(Class<?> cl) {
+        return ClassShape.of(cl).referenceFields();
     }
 
-    protected Field[] getAllReferenceFields(Class<?> cl) {
-        return CLASS_REFERENCE_FIELDS.get(cl);
+    protected static long sizeOf(Object o) {
+        return ClassShape.sizeOf(o);
     }
 
 }
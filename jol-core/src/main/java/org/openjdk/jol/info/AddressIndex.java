@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index of object addresses, mapping every address to its record.
+ * Keeps addresses and record indexes in parallel primitive arrays, and
+ * looks the addresses up with binary search.
+ */
+final class AddressIndex {
+
+    static final AddressIndex EMPTY = new AddressIndex(new long[0], new int[0]);
+
+    private final long[] addresses;
+    private final int[] records;
+
+    private AddressIndex(long[] addresses, int[] records) {
+        this.addresses = addresses;
+        this.records = records;
+    }
+
+    /**
+     * Builds the index over the first {@code count} record addresses.
+     * When several records share the address, the last one wins.
+     *
+     * @param recordAddresses addresses, indexed by record
+     * @param count number of records to index
+     * @return address index
+     */
+    static AddressIndex build(long[] recordAddresses, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+            long a = recordAddresses[i];
+            min = Math.min(min, a);
+            max = Math.max(max, a);
+            bits |= a;
+        }
+
+        long[] addrs = new long[count];
+        int[] idxs = new int[count];
+
+        // Objects are aligned, so the lowest address bits are usually zero.
+        // If the shifted address span fits with the record index into one
+        // positive long, sort the packed keys directly.
+        int shift = Math.min(Long.numberOfTrailingZeros(bits), 3);
+        long span = (max - min) >>> shift;
+        if (span >= 0 && span < (1L << 32)) {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = (((recordAddresses[i] - min) >>> shift) << 31) | i;
+            }
+            Arrays.sort(keys);
+            for (int k = 0; k < count; k++) {
+                int i = (int) (keys[k] & Integer.MAX_VALUE);
+                addrs[k] = recordAddresses[i];
+                idxs[k] = i;
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                addrs[i] = recordAddresses[i];
+                idxs[i] = i;
+            }
+            heapSort(addrs, idxs, count);
+        }
+
+        // Drop the duplicate addresses, keeping the last record.
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            if (n > 0 && addrs[n - 1] == addrs[k]) {
+                idxs[n - 1] = Math.max(idxs[n - 1], idxs[k]);
+            } else {
+                addrs[n] = addrs[k];
+                idxs[n] = idxs[k];
+                n++;
+            }
+        }
+        if (n < count) {
+            addrs = Arrays.copyOf(addrs, n);
+            idxs = Arrays.copyOf(idxs, n);
+        }
+        return new AddressIndex(addrs, idxs);
+    }
+
+    private static void heapSort(long[] addrs, int[] idxs, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(addrs, idxs, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            swap(addrs, idxs, 0, end);
+            siftDown(addrs, idxs, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] addrs, int[] idxs, int i, int count) {
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= count) return;
+            if (c + 1 < count && addrs[c + 1] > addrs[c]) c++;
+            if (addrs[i] >= addrs[c]) return;
+            swap(addrs, idxs, i, c);
+            i = c;
+        }
+    }
+
+    private static void swap(long[] addrs, int[] idxs, int a, int b) {
+        long ta = addrs[a];
+        addrs[a] = addrs[b];
+        addrs[b] = ta;
+        int ti = idxs[a];
+        idxs[a] = idxs[b];
+        idxs[b] = ti;
+    }
+
+    int size() {
+        return addresses.length;
+    }
+
+    long address(int pos) {
+        return addresses[pos];
+    }
+
+    int record(int pos) {
+        return records[pos];
+    }
+
+    /**
+     * Finds the position of the address.
+     *
+     * @param address address to look for
+     * @return position, or -1 if address is not in the index
+     */
+    int find(long address) {
+        int pos = Arrays.binarySearch(addresses, address);
+        return (pos >= 0) ? pos : -1;
+    }
+
+    boolean contains(long address) {
+        return find(address) >= 0;
+    }
+
+    /**
+     * Finds the position of the first address at or above the given one.
+     *
+     * @param address address to look for
+     * @return position, or {@link #size()} if all addresses are below
+     */
+    int ceiling(long address) {
+        int pos = Arrays.binarySearch(addresses, address);
+        return (pos >= 0) ? pos : -(pos + 1);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.IdentitySet;
+
+import java.util.Arrays;
+
+/**
+ * Scratch space for scanning large reference arrays in blocks. The walkers
+ * gather the non-null elements of a block first, and then deduplicate them
+ * against the visited set all at once.
+ */
+final class ArrayBlock {
+
+    /**
+     * Number of array elements to scan at once.
+     */
+    static final int SIZE = 1024;
+
+    /**
+     * Arrays shorter than this are not worth the block scan.
+     */
+    static final int MIN_ARRAY_LENGTH = 256;
+
+    private final Object[] objs = new Object[SIZE];
+    private final int[] indexes = new int[SIZE];
+    private final int[] added = new int[SIZE];
+    private int count;
+
+    /**
+     * Gathers the non-null elements from the block that starts at the given index.
+     * Elements at the walk boundary are recorded as external edges right away.
+     *
+     * @param arr array to scan
+     * @param from first index of the block
+     * @param limits walk limits
+     * @param edges external edges to record the boundary elements to, or null to skip recording
+     * @param visited visited set
+     */
+    void gather(Object[] arr, int from, WalkLimits limits, ExternalEdges edges, IdentitySet visited) {
+        int to = Math.min(arr.length, from + SIZE);
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            Object e = arr[i];
+            if (e == null) continue;
+            if (limits.isBoundary(e)) {
+                if (edges != null) {
+                    edges.add(e, visited.add(e));
+                }
+                continue;
+            }
+            objs[n] = e;
+            indexes[n] = i;
+            n++;
+        }
+        count = n;
+    }
+
+    /**
+     * Adds the gathered elements to the visited set.
+     *
+     * @param visited visited set
+     * @return number of elements that were not visited before
+     */
+    int addTo(IdentitySet visited) {
+        return visited.addAll(objs, count, added);
+    }
+
+    /**
+     * Checks if any gathered element is not visited yet.
+     *
+     * @param visited visited set
+     * @return true, if some element is not in the set
+     */
+    boolean hasUnvisited(IdentitySet visited) {
+        for (int k = 0; k < count; k++) {
+            if (!visited.contains(objs[k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Object added(int k) {
+        return objs[added[k]];
+    }
+
+    int addedIndex(int k) {
+        return indexes[added[k]];
+    }
+
+    void clear() {
+        Arrays.fill(objs, 0, count, null);
+        count = 0;
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Light-weight statistics for a batch of independently measured roots.
+ * Totals for the root at a given position are at the same position in
+ * the per-root arrays.
+ */
+public class BatchGraphStats {
+
+    private final long[] counts;
+    private final long[] sizes;
+    private final boolean[] truncated;
+
+    BatchGraphStats(int roots) {
+        counts = new long[roots];
+        sizes = new long[roots];
+        truncated = new boolean[roots];
+    }
+
+    void set(int root, GraphStats stats) {
+        counts[root] = stats.totalCount();
+        sizes[root] = stats.totalSize();
+        truncated[root] = stats.isTruncated();
+    }
+
+    /**
+     * Answer the number of roots in the batch
+     *
+     * @return number of roots
+     */
+    public int rootCount() {
+        return counts.length;
+    }
+
+    /**
+     * Answer the instance counts for every root. The array is not copied.
+     *
+     * @return per-root instance counts
+     */
+    public long[] totalCounts() {
+        return counts;
+    }
+
+    /**
+     * Answer the instance footprints for every root. The array is not copied.
+     *
+     * @return per-root instance footprints, bytes
+     */
+    public long[] totalSizes() {
+        return sizes;
+    }
+
+    /**
+     * Answer the instance count for the given root
+     *
+     * @param root root position in the batch
+     * @return instance count
+     */
+    public long totalCount(int root) {
+        return counts[root];
+    }
+
+    /**
+     * Answer the instance footprint for the given root
+     *
+     * @param root root position in the batch
+     * @return instance footprint, bytes
+     */
+    public long totalSize(int root) {
+        return sizes[root];
+    }
+
+    /**
+     * Answer if the walk from the given root was stopped early by the walk limits.
+     *
+     * @param root root position in the batch
+     * @return true, if statistics for this root are truncated
+     */
+    public boolean isTruncated(int root) {
+        return truncated[root];
+    }
+
+    /**
+     * Answer the instance count over all roots
+     *
+     * @return total instance count
+     */
+    public long totalCount() {
+        long r = 0;
+        for (long c : counts) {
+            r += c;
+        }
+        return r;
+    }
+
+    /**
+     * Answer the instance footprint over all roots
+     *
+     * @return total instance footprint, bytes
+     */
+    public long totalSize() {
+        long r = 0;
+        for (long s : sizes) {
+            r += s;
+        }
+        return r;
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ConcurrentIdentityHashSet;
+import org.openjdk.jol.util.IdentitySet;
+import org.openjdk.jol.util.ClearableIdentityHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Walker that measures many roots at once, each root separately, with several threads.
+ * <p>
+ * In the default mode, every root is measured as if by {@link GraphStats#parseInstance(Object...)}
+ * on its own, and objects reachable from several roots are counted for each of them. In the
+ * shared mode, every object is counted once, for the root that reached it first. Per-root
+ * totals then add up to the footprint of the whole batch, but which root gets the shared
+ * objects depends on thread timing.
+ * <p>
+ * Every thread keeps its visited set and work list between the roots and between the walks.
+ * Without the given executor, the walker creates the private pool on the first walk, and keeps
+ * it until {@link #close()}, so that the pool threads keep their tables across the walks too.
+ * Pool threads that stay idle for long are retired by the pool, and their tables go with them.
+ * Any {@link Executor} works, including the virtual thread executors on the recent JDKs.
+ */
+public class BatchGraphStatsWalker extends AbstractGraphWalker implements AutoCloseable {
+
+    /**
+     * Number of roots a thread claims at once.
+     */
+    static final int CHUNK_SIZE = 16;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final boolean shared;
+    private final GraphStatsWalker walker;
+    private ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(walker.newWorkList());
+        }
+    };
+
+    /**
+     * Measures with the private pool of given parallelism, every root on its own.
+     *
+     * @param parallelism number of threads to walk with
+     */
+    public BatchGraphStatsWalker(int parallelism) {
+        this(null, parallelism, WalkLimits.none(), false);
+    }
+
+    /**
+     * Measures with the given executor.
+     *
+     * @param executor executor to run the walks on; null to run with the private pool
+     * @param parallelism number of walk tasks to submit
+     * @param limits walk limits, applied to every root separately
+     * @param shared if true, objects reachable from several roots are counted only once
+     */
+    public BatchGraphStatsWalker(Executor executor, int parallelism, WalkLimits limits, boolean shared) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be positive: " + parallelism);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.shared = shared;
+        this.walker = new GraphStatsWalker(limits);
+    }
+
+    public BatchGraphStats walk(Collection<?> roots) {
+        if (roots == null) {
+            throw new IllegalArgumentException("Roots are null");
+        }
+        final Object[] rs = roots.toArray();
+        verifyRoots(rs);
+
+        final BatchGraphStats data = new BatchGraphStats(rs.length);
+        final IdentitySet sharedVisited = shared ? new ConcurrentIdentityHashSet(parallelism) : null;
+        final AtomicInteger next = new AtomicInteger();
+
+        int tasks = Math.min(parallelism, (rs.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        if (tasks == 0) {
+            return data;
+        }
+
+        Executor e = (executor != null) ? executor : pool();
+        try {
+            List<FutureTask<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < tasks; t++) {
+                FutureTask<Void> f = new FutureTask<>(new Runnable() {
+                    @Override
+                    public void run() {
+                        walkChunks(rs, next, sharedVisited, data);
+                    }
+                }, null);
+                futures.add(f);
+                e.execute(f);
+            }
+            for (FutureTask<Void> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for walks", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+
+        return data;
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Shut down the private pool, if any. The given executor is not affected.
+     * The walker can still walk after this call, with the new private pool.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private void walkChunks(Object[] roots, AtomicInteger next, IdentitySet sharedVisited, BatchGraphStats data) {
+        Scratch sc = scratch.get();
+        int from;
+        while ((from = next.getAndAdd(CHUNK_SIZE)) < roots.length) {
+            int to = Math.min(roots.length, from + CHUNK_SIZE);
+            for (int r = from; r < to; r++) {
+                IdentitySet visited;
+                if (sharedVisited != null) {
+                    visited = sharedVisited;
+                } else {
+                    sc.visited.clear();
+                    visited = sc.visited;
+                }
+                data.set(r, walker.walk(visited, sc.work, roots[r]));
+            }
+        }
+    }
+
+    private static class Scratch {
+        final ClearableIdentityHashSet visited = new ClearableIdentityHashSet();
+        final WorkList work;
+
+        Scratch(WorkList work) {
+            this.work = work;
+        }
+    }
+
+}
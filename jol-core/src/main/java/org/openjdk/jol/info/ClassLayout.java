@@ -325,7 +325,10 @@ public class ClassLayout {
         }
 
         pw.printf(format, markOffset, markSize, "", MSG_MARK_WORD, markStr);
-        pw.printf(format, classOffset, classSize, "", MSG_CLASS_WORD, classStr);
+        if (classSize > 0) {
+            // Compact headers carry the class pointer in the mark word.
+            pw.printf(format, classOffset, classSize, "", MSG_CLASS_WORD, classStr);
+        }
         if (classData.isArray()) {
             pw.printf(format, arrOffset, arrSize, "", MSG_ARR_LEN, arrLenStr);
         }
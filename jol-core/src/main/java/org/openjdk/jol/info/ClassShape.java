@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.MathUtil;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide cache of class shapes for the graph walkers: instance sizes,
+ * reference fields, and array geometry. Shapes are computed once per class,
+ * and shared by all the walkers.
+ * <p>
+ * Instance sizes are captured from the first instance the walkers see.
+ * Array sizes are computed from the array base, element scale and length,
+ * and verified against the VM on the first array of every class.
+ */
+final class ClassShape {
+
+    private static final ClassValue<ClassShape> SHAPES = new ClassValue<ClassShape>() {
+        @Override
+        protected ClassShape computeValue(Class<?> klass) {
+            return new ClassShape(klass);
+        }
+    };
+
+    /**
+     * Answer the shape for the given class.
+     *
+     * @param klass class
+     * @return class shape
+     */
+    static ClassShape of(Class<?> klass) {
+        return SHAPES.get(klass);
+    }
+
+    /**
+     * Answer the footprint of the given object, using the cached shapes.
+     *
+     * @param o object
+     * @return object footprint, bytes
+     */
+    static long sizeOf(Object o) {
+        return of(o.getClass()).size(o);
+    }
+
+    private final boolean array;
+    private final ReferenceFields referenceFields;
+    private final boolean hasReferences;
+
+    // Instance size: lazily captured from the first instance.
+    // Class mirrors vary in size, since they carry static fields, never cache them.
+    private final boolean cacheable;
+    private volatile long instanceSize;
+
+    // Array geometry: verified against the VM on the first instance.
+    private final long arrayBase;
+    private final long arrayScale;
+    private final int alignment;
+    private volatile int arrayVerified; // 0 = not yet, 1 = computed sizes match, -1 = they do not
+
+    private ClassShape(Class<?> klass) {
+        VirtualMachine vm = VM.current();
+        array = klass.isArray();
+        cacheable = (klass != Class.class);
+
+        if (array) {
+            Class<?> component = klass.getComponentType();
+            String name = component.isPrimitive() ? component.getName() : "Object";
+            referenceFields = null;
+            hasReferences = !component.isPrimitive();
+            arrayBase = vm.arrayBaseOffset(name);
+            arrayScale = vm.arrayIndexScale(name);
+            alignment = vm.objectAlignment();
+        } else {
+            referenceFields = new ReferenceFields(collectReferenceFields(klass));
+            hasReferences = referenceFields.count() > 0;
+            arrayBase = 0;
+            arrayScale = 0;
+            alignment = 0;
+        }
+    }
+
+    private static Field[] collectReferenceFields(Class<?> klass) {
+        List<Field> results = new ArrayList<>();
+
+        for (Field f : klass.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers())) continue;
+            if (f.getType().isPrimitive()) continue;
+            results.add(f);
+        }
+
+        Class<?> superKlass = klass;
+        while ((superKlass = superKlass.getSuperclass()) != null) {
+            for (Field f : superKlass.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) continue;
+                if (f.getType().isPrimitive()) continue;
+                results.add(f);
+            }
+        }
+
+        return results.toArray(new Field[0]);
+    }
+
+    /**
+     * @return reference fields, or null for arrays
+     */
+    ReferenceFields referenceFields() {
+        return referenceFields;
+    }
+
+    /**
+     * @return true, if instances can reference other objects
+     */
+    boolean hasReferences() {
+        return hasReferences;
+    }
+
+    /**
+     * Answer the footprint of the given instance of this class.
+     *
+     * @param o instance
+     * @return footprint, bytes
+     */
+    long size(Object o) {
+        if (array) {
+            return arraySize(o);
+        }
+
+        long size = instanceSize;
+        if (size == 0) {
+            size = VM.current().sizeOf(o);
+            if (cacheable) {
+                instanceSize = size;
+            }
+        }
+        return size;
+    }
+
+    private long arraySize(Object o) {
+        int verified = arrayVerified;
+        if (verified > 0) {
+            return computeArraySize(o);
+        }
+        if (verified < 0) {
+            return VM.current().sizeOf(o);
+        }
+
+        long actual = VM.current().sizeOf(o);
+        if (Array.getLength(o) > 0) {
+            arrayVerified = (actual == computeArraySize(o)) ? 1 : -1;
+        }
+        return actual;
+    }
+
+    private long computeArraySize(Object o) {
+        return MathUtil.align(arrayBase + arrayScale * Array.getLength(o), alignment);
+    }
+
+}
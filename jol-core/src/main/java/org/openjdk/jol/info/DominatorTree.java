@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.Multiset;
+import org.openjdk.jol.util.ObjectUtils;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * Dominator tree over the object graph, with retained sizes.
+ * <p>
+ * Object {@code A} dominates object {@code B} if every path from the roots to {@code B}
+ * goes through {@code A}. Retained size of {@code A} is the total footprint of objects
+ * that {@code A} dominates, including itself: the amount of memory that would be
+ * freed if the only references to {@code A} were dropped.
+ * <p>
+ * Dominators are computed with semi-NCA variant of Lengauer-Tarjan algorithm,
+ * operating on primitive arrays.
+ */
+public class DominatorTree {
+
+    /**
+     * Build the dominator tree for the object graph starting from the given instances.
+     *
+     * @param roots root instances to start from
+     * @return dominator tree
+     */
+    public static DominatorTree parseInstance(Object... roots) {
+        return new DominatorTree(new ObjectGraphWalker().walk(roots));
+    }
+
+    private final ObjectGraph graph;
+
+    /**
+     * Immediate dominators, indexed by node id.
+     * {@link ObjectGraph#ROOT} means the object is dominated by roots collectively.
+     */
+    private final int[] idoms;
+
+    /**
+     * Retained sizes, indexed by node id.
+     */
+    private final long[] retained;
+
+    private Multiset<Class<?>> classRetainedSizes;
+
+    DominatorTree(ObjectGraph graph) {
+        this.graph = graph;
+
+        int n = graph.nodeCount();
+
+        // Number the nodes in DFS preorder, recording the DFS tree parents.
+        int[] vertex = new int[n];
+        int[] pre = new int[n];
+        int[] parent = new int[n];
+        Arrays.fill(pre, -1);
+
+        int[] stack = new int[n];
+        int[] cursors = new int[n];
+        int sp = 0;
+        int next = 0;
+
+        pre[ObjectGraph.ROOT] = next;
+        vertex[next] = ObjectGraph.ROOT;
+        parent[next] = -1;
+        next++;
+        stack[sp] = ObjectGraph.ROOT;
+        cursors[sp] = graph.edgeStart(ObjectGraph.ROOT);
+        sp++;
+
+        while (sp > 0) {
+            int v = stack[sp - 1];
+            int c = cursors[sp - 1];
+            if (c < graph.edgeEnd(v)) {
+                cursors[sp - 1] = c + 1;
+                int t = graph.edge(c);
+                if (pre[t] < 0) {
+                    pre[t] = next;
+                    vertex[next] = t;
+                    parent[next] = pre[v];
+                    next++;
+                    stack[sp] = t;
+                    cursors[sp] = graph.edgeStart(t);
+                    sp++;
+                }
+            } else {
+                sp--;
+            }
+        }
+
+        // Predecessors, in preorder numbers.
+        int[] predStarts = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e++) {
+                predStarts[pre[graph.edge(e)] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            predStarts[i + 1] += predStarts[i];
+        }
+        int[] preds = new int[predStarts[n]];
+        int[] fill = Arrays.copyOf(predStarts, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e++) {
+                preds[fill[pre[graph.edge(e)]]++] = pre[v];
+            }
+        }
+
+        // Semidominators, in reverse preorder. Nodes with larger numbers are
+        // already linked into the forest, and eval() answers the minimal semidominator
+        // on their forest path; other nodes answer their own number.
+        int[] semi = new int[n];
+        int[] label = new int[n];
+        int[] ancestor = new int[n];
+        for (int i = 0; i < n; i++) {
+            semi[i] = i;
+            label[i] = i;
+            ancestor[i] = -1;
+        }
+
+        int[] path = stack; // reuse for path compression
+        for (int w = n - 1; w > 0; w--) {
+            for (int p = predStarts[w]; p < predStarts[w + 1]; p++) {
+                int u = eval(preds[p], ancestor, label, path);
+                if (u < semi[w]) {
+                    semi[w] = u;
+                }
+            }
+            label[w] = semi[w];
+            ancestor[w] = parent[w];
+        }
+
+        // Immediate dominators: nearest common ancestor of parent and semidominator.
+        int[] idomPre = new int[n];
+        for (int w = 1; w < n; w++) {
+            int d = parent[w];
+            while (d > semi[w]) {
+                d = idomPre[d];
+            }
+            idomPre[w] = d;
+        }
+
+        // Dominators always precede the dominated nodes in preorder,
+        // so walking backwards accumulates the retained sizes bottom-up.
+        long[] retainedPre = new long[n];
+        for (int w = n - 1; w > 0; w--) {
+            retainedPre[w] += graph.size(vertex[w]);
+            retainedPre[idomPre[w]] += retainedPre[w];
+        }
+
+        idoms = new int[n];
+        retained = new long[n];
+        for (int w = 0; w < n; w++) {
+            int v = vertex[w];
+            idoms[v] = (w == 0) ? -1 : vertex[idomPre[w]];
+            retained[v] = retainedPre[w];
+        }
+    }
+
+    private static int eval(int v, int[] ancestor, int[] label, int[] path) {
+        if (ancestor[v] < 0) {
+            return label[v];
+        }
+
+        // Iterative path compression: collect the path up to the forest root,
+        // then propagate the minimal labels down from the top.
+        int top = 0;
+        int x = v;
+        while (ancestor[ancestor[x]] >= 0) {
+            path[top++] = x;
+            x = ancestor[x];
+        }
+        while (top > 0) {
+            x = path[--top];
+            int a = ancestor[x];
+            if (label[a] < label[x]) {
+                label[x] = label[a];
+            }
+            ancestor[x] = ancestor[a];
+        }
+        return label[v];
+    }
+
+    private int node(Object o) {
+        int id = graph.id(o);
+        if (id < 0) {
+            throw new IllegalArgumentException("Object is not in the graph: " + ObjectUtils.safeToString(o));
+        }
+        return id;
+    }
+
+    /**
+     * Answer the total instance count
+     *
+     * @return total instance count
+     */
+    public long totalCount() {
+        return graph.nodeCount() - 1;
+    }
+
+    /**
+     * Answer the total instance footprint
+     *
+     * @return total instance footprint, bytes
+     */
+    public long totalSize() {
+        return retained[ObjectGraph.ROOT];
+    }
+
+    /**
+     * Answer the retained size of the object: the footprint of all objects
+     * it dominates, including itself.
+     *
+     * @param o object in the graph
+     * @return retained size, bytes
+     */
+    public long retainedSize(Object o) {
+        return retained[node(o)];
+    }
+
+    /**
+     * Answer the immediate dominator of the object.
+     *
+     * @param o object in the graph
+     * @return immediate dominator, or null, if the object is dominated only by the roots collectively
+     */
+    public Object immediateDominator(Object o) {
+        return graph.obj(idoms[node(o)]);
+    }
+
+    /**
+     * Answer the objects with the largest retained sizes.
+     *
+     * @param limit maximum number of objects to answer
+     * @return objects, in descending order of retained sizes
+     */
+    public List<Object> topDominators(int limit) {
+        List<Object> result = new ArrayList<>();
+        for (int id : topNodes(limit)) {
+            result.add(graph.obj(id));
+        }
+        return result;
+    }
+
+    private int[] topNodes(int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare(retained[o1], retained[o2]);
+            }
+        });
+        for (int id = 1; id < graph.nodeCount(); id++) {
+            if (top.size() < limit) {
+                top.add(id);
+            } else if (retained[top.peek()] < retained[id]) {
+                top.poll();
+                top.add(id);
+            }
+        }
+
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll();
+        }
+        return result;
+    }
+
+    /**
+     * Answer the retained sizes by class. Instances dominated by other instances
+     * of the same class are not counted separately, so that retained sizes do not
+     * overlap within the class. This is the lower bound for the retained size
+     * of all class instances taken together.
+     *
+     * @return class retained sizes multiset
+     */
+    public Multiset<Class<?>> getClassRetainedSizes() {
+        if (classRetainedSizes != null) {
+            return classRetainedSizes;
+        }
+
+        int n = graph.nodeCount();
+
+        // Children lists in the dominator tree
+        int[] childStarts = new int[n + 1];
+        for (int v = 1; v < n; v++) {
+            childStarts[idoms[v] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            childStarts[i + 1] += childStarts[i];
+        }
+        int[] children = new int[n];
+        int[] fill = Arrays.copyOf(childStarts, n);
+        for (int v = 1; v < n; v++) {
+            children[fill[idoms[v]]++] = v;
+        }
+
+        // Walk the dominator tree, tracking the classes on the current path.
+        Multiset<Class<?>> result = new Multiset<>();
+        Map<Class<?>, Integer> active = new HashMap<>();
+        int[] stack = new int[n];
+        int[] cursors = new int[n];
+        int sp = 0;
+        stack[sp] = ObjectGraph.ROOT;
+        cursors[sp] = childStarts[ObjectGraph.ROOT];
+        sp++;
+
+        while (sp > 0) {
+            int v = stack[sp - 1];
+            int c = cursors[sp - 1];
+            if (c < childStarts[v + 1]) {
+                cursors[sp - 1] = c + 1;
+                int ch = children[c];
+                Class<?> klass = graph.obj(ch).getClass();
+                Integer cnt = active.get(klass);
+                if (cnt == null) {
+                    result.add(klass, retained[ch]);
+                    cnt = 0;
+                }
+                active.put(klass, cnt + 1);
+                stack[sp] = ch;
+                cursors[sp] = childStarts[ch];
+                sp++;
+            } else {
+                sp--;
+                if (v != ObjectGraph.ROOT) {
+                    Class<?> klass = graph.obj(v).getClass();
+                    int cnt = active.get(klass);
+                    if (cnt == 1) {
+                        active.remove(klass);
+                    } else {
+                        active.put(klass, cnt - 1);
+                    }
+                }
+            }
+        }
+
+        classRetainedSizes = result;
+        return result;
+    }
+
+    /**
+     * Get the stringly representation of the largest dominators, and retained sizes by class.
+     *
+     * @param limit maximum number of lines in each table
+     * @return retained size tables
+     */
+    public String toPrintable(int limit) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+
+        pw.println("Top dominators:");
+        pw.printf(" %12s %10s   %-40s %s%n", "RETAINED", "SHALLOW", "TYPE", "VALUE");
+        for (int id : topNodes(limit)) {
+            Object o = graph.obj(id);
+            pw.printf(" %12d %10d   %-40s %s%n", retained[id], graph.size(id), o.getClass().getName(), ObjectUtils.safeToString(o));
+        }
+        pw.println();
+
+        final Multiset<Class<?>> byClass = getClassRetainedSizes();
+        List<Class<?>> classes = new ArrayList<>(byClass.keys());
+        Collections.sort(classes, new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> o1, Class<?> o2) {
+                return Long.compare(byClass.count(o2), byClass.count(o1));
+            }
+        });
+
+        pw.println("Retained sizes by class:");
+        pw.printf(" %12s   %s%n", "RETAINED", "TYPE");
+        for (Class<?> klass : classes.subList(0, Math.min(limit, classes.size()))) {
+            pw.printf(" %12d   %s%n", byClass.count(klass), klass.getName());
+        }
+        pw.printf(" %12d   %s%n", totalSize(), "(total)");
+        pw.println();
+        pw.close();
+        return sw.toString();
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.Multiset;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * References that lead out of the walked graph through the walk boundary,
+ * aggregated by class of the boundary objects.
+ *
+ * @see WalkBoundary
+ */
+public class ExternalEdges {
+
+    private final Multiset<Class<?>> edgeCounts = new Multiset<>();
+    private final Multiset<Class<?>> objectCounts = new Multiset<>();
+    private final Multiset<Class<?>> objectSizes = new Multiset<>();
+
+    /**
+     * Record the reference to the boundary object.
+     *
+     * @param o boundary object
+     * @param first true, if this is the first reference to the object
+     */
+    void add(Object o, boolean first) {
+        Class<?> klass = o.getClass();
+        edgeCounts.add(klass);
+        if (first) {
+            objectCounts.add(klass);
+            objectSizes.add(klass, ClassShape.sizeOf(o));
+        }
+    }
+
+    void merge(ExternalEdges other) {
+        edgeCounts.merge(other.edgeCounts);
+        objectCounts.merge(other.objectCounts);
+        objectSizes.merge(other.objectSizes);
+    }
+
+    /**
+     * Answer if there are no external edges.
+     *
+     * @return true, if walk did not hit any boundary objects
+     */
+    public boolean isEmpty() {
+        return edgeCounts.keys().isEmpty();
+    }
+
+    /**
+     * Answer the classes of boundary objects
+     *
+     * @return boundary classes
+     */
+    public Collection<Class<?>> getClasses() {
+        return edgeCounts.keys();
+    }
+
+    /**
+     * Answer the number of references to boundary objects, by class
+     *
+     * @return edge counts multiset
+     */
+    public Multiset<Class<?>> getEdgeCounts() {
+        return edgeCounts;
+    }
+
+    /**
+     * Answer the number of distinct boundary objects, by class
+     *
+     * @return object counts multiset
+     */
+    public Multiset<Class<?>> getObjectCounts() {
+        return objectCounts;
+    }
+
+    /**
+     * Answer the shallow footprint of distinct boundary objects, by class
+     *
+     * @return object sizes multiset
+     */
+    public Multiset<Class<?>> getObjectSizes() {
+        return objectSizes;
+    }
+
+    /**
+     * Answer the total number of references to boundary objects
+     *
+     * @return total edge count
+     */
+    public long totalEdges() {
+        return edgeCounts.size();
+    }
+
+    /**
+     * Answer the total number of distinct boundary objects
+     *
+     * @return total object count
+     */
+    public long totalCount() {
+        return objectCounts.size();
+    }
+
+    /**
+     * Answer the total shallow footprint of distinct boundary objects
+     *
+     * @return total footprint, bytes
+     */
+    public long totalSize() {
+        return objectSizes.size();
+    }
+
+    /**
+     * Get the stringly representation of external edges table
+     *
+     * @return external edges table
+     */
+    public String toPrintable() {
+        Set<Class<?>> classes = new TreeSet<>(new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> o1, Class<?> o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        classes.addAll(getClasses());
+
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("External edges:");
+        pw.printf(" %9s %9s %9s   %s%n", "EDGES", "COUNT", "SUM", "DESCRIPTION");
+        for (Class<?> key : classes) {
+            pw.printf(" %9d %9d %9d   %s%n", edgeCounts.count(key), objectCounts.count(key), objectSizes.count(key), key.getName());
+        }
+        pw.printf(" %9d %9d %9d   %s%n", totalEdges(), totalCount(), totalSize(), "(total)");
+        pw.println();
+        pw.close();
+        return sw.toString();
+    }
+
+}
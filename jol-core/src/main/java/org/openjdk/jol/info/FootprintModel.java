@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.datamodel.DataModel;
+import org.openjdk.jol.layouters.HotSpotLayouter;
+import org.openjdk.jol.layouters.Layouter;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Analytical footprint models for the common JDK collections. Answers how
+ * large the collection would be, without building it: the layouts of the
+ * collection internals come from {@link HotSpotLayouter} for the given
+ * {@link DataModel}, and the table sizes follow the growth policies of the
+ * given JDK version, for the collections filled one element at a time after
+ * the default constructor.
+ * <p>
+ * Footprints include everything a {@link GraphLayout} walk from the collection
+ * would count: the collection instance, its internal arrays and nodes, plus the
+ * key and value objects. Key and value footprints are given per element, as the
+ * total size of objects that belong to that element only. Hash collections are
+ * modeled without treeified bins.
+ */
+public class FootprintModel {
+
+    private final DataModel model;
+    private final int jdkVersion;
+    private final Layouter layouter;
+    private final ConcurrentMap<Class<?>, Long> instanceSizes = new ConcurrentHashMap<>();
+
+    /**
+     * Models the footprints for the given data model and JDK version.
+     *
+     * @param model data model
+     * @param jdkVersion JDK version, 8 or later
+     */
+    public FootprintModel(DataModel model, int jdkVersion) {
+        this.model = model;
+        this.jdkVersion = jdkVersion;
+        this.layouter = new HotSpotLayouter(model, jdkVersion);
+    }
+
+    DataModel model() {
+        return model;
+    }
+
+    /**
+     * Answer the instance size for the class.
+     *
+     * @param klass class, not an array class
+     * @return instance size, bytes
+     */
+    public long instanceSize(Class<?> klass) {
+        if (klass.isArray()) {
+            throw new IllegalArgumentException("Array class, use arraySize instead: " + klass);
+        }
+        Long size = instanceSizes.get(klass);
+        if (size == null) {
+            size = layouter.layout(ClassData.parseClass(klass)).instanceSize();
+            instanceSizes.put(klass, size);
+        }
+        return size;
+    }
+
+    /**
+     * Answer the array size.
+     *
+     * @param componentType array component type
+     * @param length array length
+     * @return array size, bytes
+     */
+    public long arraySize(Class<?> componentType, int length) {
+        String arrayName = Array.newInstance(componentType, 0).getClass().getName();
+        ClassData cd = new ClassData(arrayName, componentType.getName(), length);
+        return layouter.layout(cd).instanceSize();
+    }
+
+    /**
+     * Answer the footprint of the String of given length, with the backing array.
+     * JDK 9 and later are modeled with compact Latin-1 strings.
+     *
+     * @param length string length, chars
+     * @return string footprint, bytes
+     */
+    public long stringSize(int length) {
+        Class<?> component = (jdkVersion >= 9) ? byte.class : char.class;
+        return instanceSize(String.class) + arraySize(component, length);
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.ArrayList}.
+     *
+     * @param size number of elements
+     * @param elementSize footprint of every element, bytes
+     * @return collection footprint, bytes
+     */
+    public long arrayList(int size, long elementSize) {
+        return instanceSize(java.util.ArrayList.class) +
+                arraySize(Object.class, arrayListCapacity(size)) +
+                size * elementSize;
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.ArrayDeque}.
+     *
+     * @param size number of elements
+     * @param elementSize footprint of every element, bytes
+     * @return collection footprint, bytes
+     */
+    public long arrayDeque(int size, long elementSize) {
+        return instanceSize(java.util.ArrayDeque.class) +
+                arraySize(Object.class, arrayDequeCapacity(size, jdkVersion)) +
+                size * elementSize;
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.HashMap}.
+     *
+     * @param size number of mappings
+     * @param keySize footprint of every key, bytes
+     * @param valueSize footprint of every value, bytes
+     * @return collection footprint, bytes
+     */
+    public long hashMap(int size, long keySize, long valueSize) {
+        return hashTable(java.util.HashMap.class, "java.util.HashMap$Node",
+                hashMapCapacity(size), size, keySize, valueSize);
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.LinkedHashMap}.
+     *
+     * @param size number of mappings
+     * @param keySize footprint of every key, bytes
+     * @param valueSize footprint of every value, bytes
+     * @return collection footprint, bytes
+     */
+    public long linkedHashMap(int size, long keySize, long valueSize) {
+        return hashTable(java.util.LinkedHashMap.class, "java.util.LinkedHashMap$Entry",
+                hashMapCapacity(size), size, keySize, valueSize);
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.concurrent.ConcurrentHashMap}.
+     *
+     * @param size number of mappings
+     * @param keySize footprint of every key, bytes
+     * @param valueSize footprint of every value, bytes
+     * @return collection footprint, bytes
+     */
+    public long concurrentHashMap(int size, long keySize, long valueSize) {
+        return hashTable(java.util.concurrent.ConcurrentHashMap.class, "java.util.concurrent.ConcurrentHashMap$Node",
+                concurrentHashMapCapacity(size), size, keySize, valueSize);
+    }
+
+    /**
+     * Answer the footprint of {@link java.util.TreeMap}.
+     *
+     * @param size number of mappings
+     * @param keySize footprint of every key, bytes
+     * @param valueSize footprint of every value, bytes
+     * @return collection footprint, bytes
+     */
+    public long treeMap(int size, long keySize, long valueSize) {
+        return instanceSize(java.util.TreeMap.class) +
+                size * (instanceSize(internalClass("java.util.TreeMap$Entry")) + keySize + valueSize);
+    }
+
+    private long hashTable(Class<?> klass, String nodeClass, int capacity, int size, long keySize, long valueSize) {
+        long tableSize = (capacity > 0) ? arraySize(internalClass(nodeClass), capacity) : 0;
+        return instanceSize(klass) + tableSize +
+                size * (instanceSize(internalClass(nodeClass)) + keySize + valueSize);
+    }
+
+    private static Class<?> internalClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot find the collection internals: " + name, e);
+        }
+    }
+
+    /**
+     * ArrayList starts with 10 elements on the first add, and grows by half when full.
+     * Empty list shares the empty array.
+     */
+    static int arrayListCapacity(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        int cap = 10;
+        while (cap < size) {
+            cap += cap >> 1;
+        }
+        return cap;
+    }
+
+    /**
+     * ArrayDeque grows when it becomes full. Since JDK 9, it starts with 17 slots,
+     * and grows by the old capacity plus two while small, and by half after that.
+     * Before, it starts with 16 slots and doubles.
+     */
+    static int arrayDequeCapacity(int size, int jdkVersion) {
+        if (jdkVersion >= 9) {
+            int cap = 17;
+            while (size >= cap) {
+                cap += (cap < 64) ? cap + 2 : cap >> 1;
+            }
+            return cap;
+        } else {
+            int cap = 16;
+            while (size >= cap) {
+                cap <<= 1;
+            }
+            return cap;
+        }
+    }
+
+    /**
+     * HashMap allocates 16 buckets on the first put, and doubles when the
+     * number of mappings exceeds 3/4 of the buckets.
+     */
+    static int hashMapCapacity(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        int cap = 16;
+        while (size > cap / 4 * 3) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    /**
+     * ConcurrentHashMap allocates 16 buckets on the first put, and doubles when the
+     * number of mappings reaches 3/4 of the buckets.
+     */
+    static int concurrentHashMapCapacity(int size) {
+        if (size == 0) {
+            return 0;
+        }
+        int cap = 16;
+        while (size >= cap - (cap >>> 2)) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    @Override
+    public String toString() {
+        return "Footprint model (JDK " + jdkVersion + ", " + model + ")";
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Fast footprint estimates for cache weighers. Answers the total footprint
+ * of the objects reachable from the entry, like {@link GraphStats#totalSize()}
+ * does, but much cheaper for the typical small entries.
+ * <p>
+ * Strings, boxed primitives, primitive arrays, small collections, and other
+ * graphs of up to {@link #SMALL_GRAPH} objects are measured without the visited
+ * set, using the cached class shapes. Larger graphs fall back to the walk
+ * within the given limits. When the limits are hit, the answer covers only
+ * the part of the graph walked so far.
+ * <p>
+ * Weigher is thread-safe: every thread uses its own walker and scratch space.
+ */
+public class FootprintWeigher {
+
+    /**
+     * Graphs up to this number of objects take the fast path.
+     */
+    static final int SMALL_GRAPH = 64;
+
+    private final WalkLimits limits;
+    private final boolean fastPath;
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(limits);
+        }
+    };
+
+    /**
+     * Weighs entries up to 100K objects, not traversing the shared JVM
+     * structures of {@link WalkBoundary#defaults()}.
+     */
+    public FootprintWeigher() {
+        this(WalkLimits.none().withMaxObjects(100_000).withBoundary(WalkBoundary.defaults()));
+    }
+
+    /**
+     * Weighs entries within the given limits.
+     *
+     * @param limits walk limits
+     */
+    public FootprintWeigher(WalkLimits limits) {
+        this.limits = limits;
+        // Fast path cannot stop half-way through the small graph.
+        this.fastPath = limits.maxObjects() >= SMALL_GRAPH && !limits.hasDepthLimit();
+    }
+
+    /**
+     * Answer the footprint of the object and everything reachable from it.
+     *
+     * @param o object to weigh, null weighs nothing
+     * @return footprint, bytes
+     */
+    public long weigh(Object o) {
+        return weigh(o, null);
+    }
+
+    /**
+     * Answer the footprint of the cache entry. Objects shared between
+     * key and value are counted once.
+     *
+     * @param key entry key, may be null
+     * @param value entry value, may be null
+     * @return footprint, bytes
+     */
+    public long weigh(Object key, Object value) {
+        if (key == null) {
+            if (value == null) {
+                return 0;
+            }
+            key = value;
+            value = null;
+        }
+
+        Scratch sc = scratch.get();
+        if (fastPath) {
+            long size = weighSmall(sc.objs, key, value);
+            if (size >= 0 && size <= limits.maxBytes()) {
+                return size;
+            }
+        }
+        return sc.walker.measure(key, value);
+    }
+
+    /**
+     * Answer the footprint of the cache entry, saturated to int, for
+     * the cache libraries that take int weights.
+     *
+     * @param key entry key, may be null
+     * @param value entry value, may be null
+     * @return footprint, bytes, at most {@link Integer#MAX_VALUE}
+     */
+    public int weighInt(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, weigh(key, value));
+    }
+
+    /**
+     * Measures the small graph, using the scratch array both as the work list
+     * and as the visited set. Returns -1 when the graph turns out too large.
+     */
+    private long weighSmall(Object[] objs, Object key, Object value) {
+        objs[0] = key;
+        int n = 1;
+        if (value != null && value != key) {
+            objs[1] = value;
+            n = 2;
+        }
+
+        long size = 0;
+        for (int i = 0; i < n; i++) {
+            Object o = objs[i];
+            Class<?> cl = o.getClass();
+            ClassShape shape = ClassShape.of(cl);
+            size += shape.size(o);
+            if (!shape.hasReferences()) {
+                continue;
+            }
+
+            if (cl.isArray()) {
+                Object[] arr = (Object[]) o;
+                if (arr.length > SMALL_GRAPH * 4) {
+                    n = -1;
+                    break;
+                }
+                for (Object e : arr) {
+                    n = addSmall(objs, n, e);
+                    if (n < 0) break;
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int f = 0; f < rfs.count(); f++) {
+                    n = addSmall(objs, n, rfs.value(o, f));
+                    if (n < 0) break;
+                }
+            }
+            if (n < 0) break;
+        }
+
+        for (int i = 0; i < objs.length && objs[i] != null; i++) {
+            objs[i] = null;
+        }
+        return (n < 0) ? -1 : size;
+    }
+
+    private int addSmall(Object[] objs, int n, Object e) {
+        if (e == null || limits.isBoundary(e)) {
+            return n;
+        }
+        for (int j = 0; j < n; j++) {
+            if (objs[j] == e) {
+                return n;
+            }
+        }
+        if (n == objs.length) {
+            return -1;
+        }
+        objs[n] = e;
+        return n + 1;
+    }
+
+    private static class Scratch {
+        final Object[] objs = new Object[SMALL_GRAPH];
+        final ReusableGraphStatsWalker walker;
+
+        Scratch(WalkLimits limits) {
+            walker = new ReusableGraphStatsWalker(limits);
+        }
+    }
+
+}
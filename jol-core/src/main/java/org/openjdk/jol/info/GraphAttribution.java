@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Footprint of the object graph, attributed to its roots.
+ * <p>
+ * Objects reachable from a single root are exclusive to that root.
+ * Objects reachable from several roots are shared, and are reported
+ * as shared by every root they are reachable from.
+ *
+ * @see GraphAttributionWalker
+ */
+public class GraphAttribution {
+
+    /**
+     * Attribute the object graph footprint to the given roots.
+     *
+     * @param roots root instances to start from
+     * @return footprint attribution
+     */
+    public static GraphAttribution parseInstance(Object... roots) {
+        return new GraphAttributionWalker().walk(roots);
+    }
+
+    private final long[] exclusiveCounts;
+    private final long[] exclusiveSizes;
+    private final long[] sharedCounts;
+    private final long[] sharedSizes;
+    private long totalCount;
+    private long totalSize;
+    private long totalSharedCount;
+    private long totalSharedSize;
+
+    GraphAttribution(int roots, int count, long[] sizes, long[] masks, int words) {
+        exclusiveCounts = new long[roots];
+        exclusiveSizes = new long[roots];
+        sharedCounts = new long[roots];
+        sharedSizes = new long[roots];
+
+        for (int id = 0; id < count; id++) {
+            long size = sizes[id];
+            int base = id * words;
+
+            int owners = 0;
+            for (int w = 0; w < words; w++) {
+                owners += Long.bitCount(masks[base + w]);
+            }
+
+            totalCount++;
+            totalSize += size;
+
+            if (owners == 1) {
+                int r = owner(masks, base, words);
+                exclusiveCounts[r]++;
+                exclusiveSizes[r] += size;
+            } else {
+                totalSharedCount++;
+                totalSharedSize += size;
+                for (int w = 0; w < words; w++) {
+                    long m = masks[base + w];
+                    while (m != 0) {
+                        int r = (w << 6) + Long.numberOfTrailingZeros(m);
+                        sharedCounts[r]++;
+                        sharedSizes[r] += size;
+                        m &= m - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int owner(long[] masks, int base, int words) {
+        for (int w = 0; w < words; w++) {
+            long m = masks[base + w];
+            if (m != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(m);
+            }
+        }
+        throw new IllegalStateException("Object without owners");
+    }
+
+    /**
+     * Answer the number of roots
+     *
+     * @return number of roots
+     */
+    public int rootCount() {
+        return exclusiveSizes.length;
+    }
+
+    /**
+     * Answer the footprint of objects reachable only from the given root
+     *
+     * @param root root index, in the order roots were given
+     * @return exclusive footprint, bytes
+     */
+    public long exclusiveSize(int root) {
+        return exclusiveSizes[root];
+    }
+
+    /**
+     * Answer the count of objects reachable only from the given root
+     *
+     * @param root root index, in the order roots were given
+     * @return exclusive instance count
+     */
+    public long exclusiveCount(int root) {
+        return exclusiveCounts[root];
+    }
+
+    /**
+     * Answer the footprint of objects reachable from the given root and some other root
+     *
+     * @param root root index, in the order roots were given
+     * @return shared footprint, bytes
+     */
+    public long sharedSize(int root) {
+        return sharedSizes[root];
+    }
+
+    /**
+     * Answer the count of objects reachable from the given root and some other root
+     *
+     * @param root root index, in the order roots were given
+     * @return shared instance count
+     */
+    public long sharedCount(int root) {
+        return sharedCounts[root];
+    }
+
+    /**
+     * Answer the footprint of all objects reachable from the given root
+     *
+     * @param root root index, in the order roots were given
+     * @return total footprint, bytes
+     */
+    public long totalSize(int root) {
+        return exclusiveSizes[root] + sharedSizes[root];
+    }
+
+    /**
+     * Answer the count of all objects reachable from the given root
+     *
+     * @param root root index, in the order roots were given
+     * @return total instance count
+     */
+    public long totalCount(int root) {
+        return exclusiveCounts[root] + sharedCounts[root];
+    }
+
+    /**
+     * Answer the footprint of objects reachable from more than one root
+     *
+     * @return shared footprint, bytes
+     */
+    public long sharedSize() {
+        return totalSharedSize;
+    }
+
+    /**
+     * Answer the count of objects reachable from more than one root
+     *
+     * @return shared instance count
+     */
+    public long sharedCount() {
+        return totalSharedCount;
+    }
+
+    /**
+     * Answer the total instance footprint, counting shared objects once
+     *
+     * @return total instance footprint, bytes
+     */
+    public long totalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Answer the total instance count, counting shared objects once
+     *
+     * @return total instance count
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Get the stringly representation of per-root footprint table
+     *
+     * @return footprint table
+     */
+    public String toFootprint() {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("Footprint attribution:");
+        pw.printf(" %6s %12s %12s %12s%n", "ROOT", "EXCLUSIVE", "SHARED", "TOTAL");
+        for (int r = 0; r < rootCount(); r++) {
+            pw.printf(" %6d %12d %12d %12d%n", r, exclusiveSize(r), sharedSize(r), totalSize(r));
+        }
+        pw.printf(" %6s %12d %12d %12d%n", "(all)", totalSize() - sharedSize(), sharedSize(), totalSize());
+        pw.println();
+        pw.close();
+        return sw.toString();
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.SimpleIdentityIntMap;
+import org.openjdk.jol.util.SimpleIntStack;
+
+import java.util.Arrays;
+
+/**
+ * Walker that attributes the graph footprint to the roots it is reachable from.
+ * <p>
+ * Every object carries the bitmask of roots it is reachable from. Walking
+ * an object propagates its bitmask to the referenced objects, and the object
+ * is walked again only when it gains new owner bits. This way, the whole
+ * attribution is computed in a single traversal, and most objects are
+ * walked once.
+ */
+public class GraphAttributionWalker extends AbstractGraphWalker {
+
+    public GraphAttribution walk(Object... roots) {
+        verifyRoots(roots);
+
+        Nodes nodes = new Nodes((roots.length + 63) >>> 6);
+        SimpleIntStack s = new SimpleIntStack();
+
+        for (int r = 0; r < roots.length; r++) {
+            int id = nodes.intern(roots[r]);
+            nodes.masks[id * nodes.words + (r >>> 6)] |= 1L << r;
+            if (!nodes.queued[id]) {
+                nodes.queued[id] = true;
+                s.push(id);
+            }
+        }
+
+        while (!s.isEmpty()) {
+            int node = s.pop();
+            nodes.queued[node] = false;
+
+            Object o = nodes.objs[node];
+            Class<?> cl = o.getClass();
+
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) {
+                // Nothing to do here
+                continue;
+            }
+
+            if (cl.isArray()) {
+                for (Object e : (Object[]) o) {
+                    if (e == null) continue;
+                    int id = nodes.intern(e);
+                    if (nodes.propagate(node, id) && !nodes.queued[id]) {
+                        nodes.queued[id] = true;
+                        s.push(id);
+                    }
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    Object e = rfs.value(o, i);
+                    if (e == null) continue;
+                    int id = nodes.intern(e);
+                    if (nodes.propagate(node, id) && !nodes.queued[id]) {
+                        nodes.queued[id] = true;
+                        s.push(id);
+                    }
+                }
+            }
+        }
+
+        return new GraphAttribution(roots.length, nodes.count, nodes.sizes, nodes.masks, nodes.words);
+    }
+
+    /**
+     * Discovered objects, with their sizes, owner bitmasks, and queued flags, by id.
+     */
+    private static final class Nodes {
+        final int words;
+        final SimpleIdentityIntMap ids = new SimpleIdentityIntMap();
+        Object[] objs = new Object[16];
+        long[] sizes = new long[16];
+        long[] masks;
+        boolean[] queued = new boolean[16];
+        int count;
+
+        Nodes(int words) {
+            this.words = words;
+            this.masks = new long[16 * words];
+        }
+
+        /**
+         * Answer the id of the object, assigning the new one on first encounter.
+         *
+         * @return object id
+         */
+        int intern(Object o) {
+            int id = ids.putIfAbsent(o, count);
+            if (id == SimpleIdentityIntMap.ABSENT) {
+                if (count == objs.length) {
+                    int newLen = count * 2;
+                    objs = Arrays.copyOf(objs, newLen);
+                    sizes = Arrays.copyOf(sizes, newLen);
+                    masks = Arrays.copyOf(masks, newLen * words);
+                    queued = Arrays.copyOf(queued, newLen);
+                }
+                id = count++;
+                objs[id] = o;
+                sizes[id] = sizeOf(o);
+            }
+            return id;
+        }
+
+        /**
+         * Merges the owner bits of one node into the other.
+         *
+         * @return true, if the target node gained new owner bits
+         */
+        boolean propagate(int from, int to) {
+            boolean changed = false;
+            int f = from * words;
+            int t = to * words;
+            for (int w = 0; w < words; w++) {
+                long add = masks[f + w] & ~masks[t + w];
+                if (add != 0) {
+                    masks[t + w] |= add;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+
+}
@@ -25,25 +25,18 @@
 package org.openjdk.jol.info;
 
 /**
- * Object path in object graph.
- *
- * @author Aleksey Shipilev
+ * Object graph visitor that accepts the elements of large reference
+ * arrays in batches, instead of one {@link #visit(GraphPathRecord)} call
+ * per element. All other objects are still visited one by one.
  */
-final class FieldGraphPathRecord extends GraphPathRecord {
-    private final String name;
-
-    FieldGraphPathRecord(GraphPathRecord parent, String name, int depth, Object obj) {
-        super(parent, depth, obj);
-        this.name = name;
-    }
+public interface GraphBatchVisitor extends GraphVisitor {
 
-    @Override
-    public final String path() {
-        if (parent != null) {
-            return parent.path() + "." + name;
-        } else {
-            return name;
-        }
-    }
+    /**
+     * Visit the batch of array elements discovered together. The batch
+     * is only valid during this call.
+     *
+     * @param batch discovered elements
+     */
+    void visitBatch(GraphPathBatch batch);
 
 }
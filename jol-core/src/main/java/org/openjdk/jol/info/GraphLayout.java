@@ -32,12 +32,16 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.List;
 
 /**
  * Holds the object graph layout info.
@@ -54,7 +58,24 @@ public class GraphLayout {
         return new GraphWalker().walk(roots);
     }
 
-    private final List<GraphPathRecord> gprs = new ArrayList<>();
+    /**
+     * Parse the object graph starting from the given instance,
+     * walking the graph with several threads.
+     *
+     * @param parallelism number of threads to walk with
+     * @param roots root instances to start from
+     * @return object graph
+     */
+    public static GraphLayout parseInstanceParallel(int parallelism, Object... roots) {
+        return new ParallelGraphWalker(parallelism).walk(roots);
+    }
+
+    /**
+     * Buffer size for the streaming printouts.
+     */
+    private static final int PRINT_BUFFER_SIZE = 64 * 1024;
+
+    private final GraphRecords records;
     private final String description;
 
     private volatile boolean processedHisto;
@@ -63,12 +84,16 @@ public class GraphLayout {
     private Multiset<Class<?>> classCounts;
 
     private volatile boolean processedAddresses;
-    private Map<Long, GraphPathRecord> addresses;
+    private AddressIndex addresses;
+    private long[] recordAddresses;
     private long minAddress;
     private long maxAddress;
     private int addressTries;
     private boolean addressStable;
 
+    private boolean truncated;
+    private final ExternalEdges externalEdges = new ExternalEdges();
+
     private volatile boolean processedTotals;
     private long totalCount;
     private long totalSize;
@@ -85,62 +110,160 @@ public class GraphLayout {
             sb.append(String.format("%s@%xd", root.getClass().getName(), System.identityHashCode(root)));
         }
         this.description = sb.toString();
+        this.records = new GraphRecords();
     }
 
-    void addRecord(GraphPathRecord gpr) {
-        gprs.add(gpr);
+    private GraphLayout(String description, GraphRecords records) {
+        this.description = description;
+        this.records = records;
+    }
+
+    GraphRecords records() {
+        return records;
+    }
+
+    String description() {
+        return description;
+    }
+
+    long[] recordAddresses() {
+        ensureProcessedAddresses();
+        return recordAddresses;
+    }
+
+    boolean addressStable() {
+        ensureProcessedAddresses();
+        return addressStable;
+    }
+
+    int addressTries() {
+        ensureProcessedAddresses();
+        return addressTries;
+    }
+
+    /**
+     * Restore the detached layout from the stored records.
+     */
+    static GraphLayout restore(String description, GraphRecords records,
+                               boolean truncated, int addressTries, boolean addressStable) {
+        GraphLayout res = new GraphLayout(description, records);
+        res.ensureProcessedAddresses();
+        res.addressTries = addressTries;
+        res.addressStable = addressStable;
+        res.truncated = truncated;
+        return res;
+    }
+
+    void setTruncated() {
+        truncated = true;
+    }
+
+    /**
+     * Answer if the walk was stopped early by the walk limits,
+     * and the layout does not cover the entire graph.
+     *
+     * @return true, if layout is truncated
+     * @see WalkLimits
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Answer the references to the objects at the walk boundary,
+     * which were not traversed.
+     *
+     * @return external edges
+     * @see WalkBoundary
+     */
+    public ExternalEdges getExternalEdges() {
+        return externalEdges;
     }
 
     private void ensureProcessedAddresses() {
         if (processedAddresses) return;
 
         synchronized (this) {
-            if (gprs.isEmpty()) {
+            if (records.size() == 0) {
                 minAddress = 0;
                 maxAddress = 0;
             }
 
-            addresses = new HashMap<>();
-
             // First round of address computations to seed the addresses.
             // We would then confirm the addresses are stable on the next step.
-            long[] rawAddresses = new long[gprs.size()];
-            for (int i = 0; i < gprs.size(); i++) {
-                rawAddresses[i] = VM.current().addressOf(gprs.get(i).obj());
+            long[] rawAddresses = new long[records.size()];
+            for (int i = 0; i < records.size(); i++) {
+                rawAddresses[i] = addressOf(i);
             }
 
             boolean good = false;
+            int stable = 0;
             for (addressTries = 0; (addressTries < 10) && !good; addressTries++) {
-                addresses.clear();
-                minAddress = Long.MAX_VALUE;
-                maxAddress = Long.MIN_VALUE;
-
                 good = true;
-                for (int i = 0; i < gprs.size(); i++) {
-                    GraphPathRecord gpr = gprs.get(i);
-                    Object o = gpr.obj();
-
-                    long addr = VM.current().addressOf(o);
+                stable = records.size();
+                for (int i = 0; i < records.size(); i++) {
+                    long addr = addressOf(i);
                     if (rawAddresses[i] != addr) {
                         // If any object have moved, continue traversing to recompute
                         // others, and then force a retry, hoping for a clean iteration.
                         rawAddresses[i] = addr;
+                        if (good) {
+                            stable = i;
+                        }
                         good = false;
                     }
-
-                    if (good) {
-                        addresses.put(addr, gpr);
-                        minAddress = Math.min(minAddress, addr);
-                        maxAddress = Math.max(maxAddress, addr);
-                    }
                 }
             }
 
+            // Index the addresses that were confirmed on the last try.
+            addresses = AddressIndex.build(rawAddresses, stable);
+            if (addresses.size() > 0) {
+                minAddress = addresses.address(0);
+                maxAddress = addresses.address(addresses.size() - 1);
+            } else if (records.size() > 0) {
+                minAddress = Long.MAX_VALUE;
+                maxAddress = Long.MIN_VALUE;
+            }
+
+            recordAddresses = rawAddresses;
             addressStable = good;
             processedAddresses = true;
         }
     }
 
+    private long addressOf(int idx) {
+        if (records.hasObj(idx)) {
+            return VM.current().addressOf(records.obj(idx));
+        } else {
+            // Snapshot records have their addresses recorded.
+            return records.detachedAddress(idx);
+        }
+    }
+
+    /**
+     * Produce the snapshot of this layout data, that does not keep the objects alive.
+     * The snapshot records the object classes, sizes, addresses and paths, so that
+     * totals, histograms, printing, and {@link #add(GraphLayout)}/{@link #subtract(GraphLayout)}
+     * work on the snapshot without the actual objects. This method does not change the
+     * current data object, but produces another one.
+     *
+     * Note that the object addresses are captured at the time of snapshot. If objects
+     * move after that, the snapshot would still report the old addresses.
+     *
+     * @return new data object, that does not retain the objects.
+     */
+    public GraphLayout snapshot() {
+        ensureProcessedAddresses();
+
+        GraphLayout res = new GraphLayout(description, records.detach(recordAddresses));
+        res.ensureProcessedAddresses();
+        res.addressTries = addressTries;
+        res.addressStable = addressStable;
+        res.truncated = truncated;
+        res.externalEdges.merge(externalEdges);
+        return res;
+    }
+
     /**
      * Subtract another layout data from the current one.
      * This method does not change the current data object, but produces another one.
@@ -157,9 +280,10 @@ public class GraphLayout {
         another.ensureProcessedAddresses();
 
         GraphLayout res = new GraphLayout();
-        for (Map.Entry<Long, GraphPathRecord> e : addresses.entrySet()) {
-            if (!another.addresses.containsKey(e.getKey())) {
-                res.addRecord(e.getValue());
+        res.truncated = truncated || another.truncated;
+        for (int p = 0; p < addresses.size(); p++) {
+            if (!another.addresses.contains(addresses.address(p))) {
+                res.records.addCopy(records, addresses.record(p));
             }
         }
         return res;
@@ -181,12 +305,15 @@ public class GraphLayout {
         another.ensureProcessedAddresses();
 
         GraphLayout res = new GraphLayout();
-        for (Map.Entry<Long, GraphPathRecord> e : addresses.entrySet()) {
-            res.addRecord(e.getValue());
+        res.truncated = truncated || another.truncated;
+        res.externalEdges.merge(externalEdges);
+        res.externalEdges.merge(another.externalEdges);
+        for (int p = 0; p < addresses.size(); p++) {
+            res.records.addCopy(records, addresses.record(p));
         }
-        for (Map.Entry<Long, GraphPathRecord> e : another.addresses.entrySet()) {
-            if (!addresses.containsKey(e.getKey())) {
-                res.addRecord(e.getValue());
+        for (int p = 0; p < another.addresses.size(); p++) {
+            if (!addresses.contains(another.addresses.address(p))) {
+                res.records.addCopy(another.records, another.addresses.record(p));
             }
         }
         return res;
@@ -206,12 +333,12 @@ public class GraphLayout {
             classSizes = new Multiset<>();
             classCounts = new Multiset<>();
 
-            for (GraphPathRecord gpr : gprs) {
-                Class<?> klass = gpr.klass();
+            for (int i = 0; i < records.size(); i++) {
+                Class<?> klass = records.klass(i);
                 classes.add(klass);
                 classCounts.add(klass);
                 try {
-                    classSizes.add(klass, gpr.size());
+                    classSizes.add(klass, records.size(i));
                 } catch (Exception e) {
                     classSizes.add(klass, 0);
                 }
@@ -255,10 +382,10 @@ public class GraphLayout {
         if (processedTotals) return;
 
         synchronized (this) {
-            for (GraphPathRecord gpr : gprs) {
-                totalSize += gpr.size();
+            for (int i = 0; i < records.size(); i++) {
+                totalSize += records.size(i);
             }
-            totalCount = gprs.size();
+            totalCount = records.size();
 
             processedTotals = true;
         }
@@ -305,14 +432,65 @@ public class GraphLayout {
     }
 
     /**
-     * Answer the set of addresses for the discovered objects
+     * Answer the set of addresses for the discovered objects. The set is a copy,
+     * use {@link #addressCount()} and {@link #addressAt(int)} to iterate the
+     * addresses without copying.
      *
      * @return sorted set of addresses
      * @see #record(long)
      */
     public SortedSet<Long> addresses() {
         ensureProcessedAddresses();
-        return new TreeSet<>(addresses.keySet());
+        SortedSet<Long> res = new TreeSet<>();
+        for (int p = 0; p < addresses.size(); p++) {
+            res.add(addresses.address(p));
+        }
+        return res;
+    }
+
+    /**
+     * Answer the number of distinct addresses for the discovered objects
+     *
+     * @return number of addresses
+     * @see #addressAt(int)
+     */
+    public int addressCount() {
+        ensureProcessedAddresses();
+        return addresses.size();
+    }
+
+    /**
+     * Answer the address at the given position, in ascending address order
+     *
+     * @param pos position, from 0 to {@link #addressCount()}, exclusive
+     * @return address
+     */
+    public long addressAt(int pos) {
+        ensureProcessedAddresses();
+        return addresses.address(pos);
+    }
+
+    /**
+     * Get the object descriptor for the address at the given position
+     *
+     * @param pos position, from 0 to {@link #addressCount()}, exclusive
+     * @return object descriptor
+     */
+    public GraphPathRecord recordAt(int pos) {
+        ensureProcessedAddresses();
+        return records.record(addresses.record(pos));
+    }
+
+    /**
+     * Answer the position of the first address at or above the given one.
+     * Together with {@link #addressAt(int)}, walks the address ranges.
+     *
+     * @param address address
+     * @return position, or {@link #addressCount()} if all addresses are below
+     */
+    public int addressPosition(long address) {
+        ensureProcessedAddresses();
+        return addresses.ceiling(address);
     }
 
     /**
@@ -323,7 +501,8 @@ public class GraphLayout {
      */
     public GraphPathRecord record(long address) {
         ensureProcessedAddresses();
-        return addresses.get(address);
+        int pos = addresses.find(address);
+        return (pos >= 0) ? records.record(addresses.record(pos)) : null;
     }
 
     /**
@@ -333,18 +512,82 @@ public class GraphLayout {
      */
     public String toFootprint() {
         StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
+        try {
+            toFootprint(sw, PrintOptions.all());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Write the footprint table to the stream, as UTF-8 text. The stream is flushed, but not closed.
+     *
+     * @param out stream to write to
+     * @param options print options
+     * @throws IOException when I/O fails
+     */
+    public void toFootprint(OutputStream out, PrintOptions options) throws IOException {
+        toFootprint(new OutputStreamWriter(out, StandardCharsets.UTF_8), options);
+    }
+
+    /**
+     * Write the footprint table to the writer. The output is buffered in fixed-size chunks.
+     * Classes are printed in name order, or by total size, descending, when the row limit
+     * in options cuts the table. The writer is flushed, but not closed.
+     *
+     * @param out writer to write to
+     * @param options print options
+     * @throws IOException when I/O fails
+     */
+    public void toFootprint(Writer out, PrintOptions options) throws IOException {
+        PrintWriter pw = new PrintWriter(new BufferedWriter(out, PRINT_BUFFER_SIZE));
         pw.println(description + " footprint:");
         pw.printf(" %9s %9s %9s   %s%n", "COUNT", "AVG", "SUM", "DESCRIPTION");
-        for (Class<?> key : getClasses()) {
+
+        Collection<Class<?>> keys = getClasses();
+        if (options.maxRows() < keys.size()) {
+            // Keep the largest classes when the rows are limited
+            final Multiset<Class<?>> sizes = getClassSizes();
+            ArrayList<Class<?>> bySize = new ArrayList<>(keys);
+            Collections.sort(bySize, new Comparator<Class<?>>() {
+                @Override
+                public int compare(Class<?> o1, Class<?> o2) {
+                    return Long.compare(sizes.count(o2), sizes.count(o1));
+                }
+            });
+            keys = bySize;
+        }
+
+        long rows = 0;
+        long otherClasses = 0;
+        long otherCount = 0;
+        long otherSize = 0;
+        for (Class<?> key : keys) {
             long count = getClassCounts().count(key);
             long size = getClassSizes().count(key);
+            if (size < options.minSize() || rows >= options.maxRows()) {
+                otherClasses++;
+                otherCount += count;
+                otherSize += size;
+                continue;
+            }
             pw.printf(" %9d %9d %9d   %s%n", count, size / count, size, key.getName());
+            rows++;
+        }
+        if (otherClasses > 0) {
+            pw.printf(" %9d %9s %9d   %s%n", otherCount, "", otherSize, "(" + otherClasses + " other classes)");
         }
         pw.printf(" %9d %9s %9d   %s%n", totalCount(), "", totalSize(), "(total)");
+        if (truncated) {
+            pw.println();
+            pw.println("Walk was stopped by walk limits, the footprint is incomplete.");
+        }
         pw.println();
-        pw.close();
-        return sw.toString();
+        if (!externalEdges.isEmpty()) {
+            pw.print(externalEdges.toPrintable());
+        }
+        finishPrint(pw);
     }
 
     /**
@@ -354,37 +597,182 @@ public class GraphLayout {
      */
     public String toPrintable() {
         StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw);
+        try {
+            toPrintable(sw, PrintOptions.all());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return sw.toString();
+    }
 
-        long last = 0L;
+    /**
+     * Write the linearized text form of object graph to the stream, as UTF-8 text.
+     * The stream is flushed, but not closed.
+     *
+     * @param out stream to write to
+     * @param options print options
+     * @throws IOException when I/O fails
+     */
+    public void toPrintable(OutputStream out, PrintOptions options) throws IOException {
+        toPrintable(new OutputStreamWriter(out, StandardCharsets.UTF_8), options);
+    }
+
+    /**
+     * Write the linearized text form of object graph to the writer. Objects are
+     * written in one pass in address order, and the output is buffered in fixed-size
+     * chunks. The writer is flushed, but not closed.
+     *
+     * @param out writer to write to
+     * @param options print options
+     * @throws IOException when I/O fails
+     */
+    public void toPrintable(Writer out, PrintOptions options) throws IOException {
+        ensureProcessedAddresses();
 
         int typeLen = "TYPE".length();
-        for (long addr : addresses()) {
-            GraphPathRecord r = record(addr);
-            typeLen = Math.max(typeLen, r.klass().getName().length());
+        for (Class<?> klass : getClasses()) {
+            typeLen = Math.max(typeLen, klass.getName().length());
+        }
+        if (getClasses().contains(GraphSnapshot.Unresolved.class)) {
+            // Unresolved classes are printed with their recorded names.
+            for (int i = 0; i < records.size(); i++) {
+                typeLen = Math.max(typeLen, records.className(i).length());
+            }
         }
 
+        PrintWriter pw = new PrintWriter(new BufferedWriter(out, PRINT_BUFFER_SIZE));
         pw.println(description + " object externals:");
         pw.printf(" %16s %10s %-" + typeLen + "s %-30s %s%n", "ADDRESS", "SIZE", "TYPE", "PATH", "VALUE");
-        for (long addr : addresses()) {
-            GraphPathRecord record = record(addr);
+
+        Printout po = new Printout(pw, " %16x %10d %-" + typeLen + "s %-30s %s%n", options);
+        long last = 0L;
+        for (int p = 0; p < addresses.size(); p++) {
+            long addr = addresses.address(p);
+            GraphPathRecord record = records.record(addresses.record(p));
             long size = record.size();
 
             if (addr > last && last != 0L) {
-                pw.printf(" %16x %10d %-" + typeLen + "s %-30s %s%n", last, addr - last, "(something else)", "(somewhere else)", "(something else)");
+                po.gap(last, addr - last);
             }
             if (addr < last) {
-                pw.printf(" %16x %10d %-" + typeLen + "s %-30s %s%n", last, addr - last, "**** OVERLAP ****", "**** OVERLAP ****", "**** OVERLAP ****");
+                po.row(last, addr - last, "**** OVERLAP ****", "**** OVERLAP ****", "**** OVERLAP ****");
             }
 
-            pw.printf(" %16x %10d %-" + typeLen + "s %-30s %s%n", addr, size, record.klass().getName(), record.path(), ObjectUtils.safeToString(record.obj()));
+            if (size < options.minSize()) {
+                po.fold(addr, size);
+            } else if (po.hasRoom()) {
+                po.flushFold();
+                String value = (record.obj() != null) ? ObjectUtils.safeToString(record.obj()) : "(not retained)";
+                po.row(addr, size, record.className(), record.path(), value);
+            } else {
+                po.hide(size);
+            }
             last = addr + size;
         }
+        po.finish();
+
         pw.println();
         pw.println("Addresses are " + (addressStable ? "stable" : "still unstable") + " after " + addressTries + " tries.");
+        if (truncated) {
+            pw.println("Walk was stopped by walk limits, the graph is incomplete.");
+        }
         pw.println();
-        pw.close();
-        return sw.toString();
+        finishPrint(pw);
+    }
+
+    private static void finishPrint(PrintWriter pw) throws IOException {
+        pw.flush();
+        if (pw.checkError()) {
+            throw new IOException("Failed to write the printout");
+        }
+    }
+
+    /**
+     * Rows of the object printout, with the options applied.
+     */
+    private static class Printout {
+        private final PrintWriter pw;
+        private final String format;
+        private final PrintOptions options;
+
+        private long rows;
+
+        private long foldStart;
+        private long foldCount;
+        private long foldSize;
+
+        private long hiddenCount;
+        private long hiddenSize;
+
+        private long gapCount;
+        private long gapSize;
+        private long gapMax;
+
+        Printout(PrintWriter pw, String format, PrintOptions options) {
+            this.pw = pw;
+            this.format = format;
+            this.options = options;
+        }
+
+        boolean hasRoom() {
+            return rows < options.maxRows();
+        }
+
+        void row(long addr, long size, String type, String path, String value) {
+            if (hasRoom()) {
+                pw.printf(format, addr, size, type, path, value);
+                rows++;
+            }
+        }
+
+        void gap(long addr, long size) {
+            flushFold();
+            if (options.gapSummary()) {
+                gapCount++;
+                gapSize += size;
+                gapMax = Math.max(gapMax, size);
+            } else {
+                row(addr, size, "(something else)", "(somewhere else)", "(something else)");
+            }
+        }
+
+        void fold(long addr, long size) {
+            if (foldCount == 0) {
+                foldStart = addr;
+            }
+            foldCount++;
+            foldSize += size;
+        }
+
+        void flushFold() {
+            if (foldCount > 0) {
+                if (hasRoom()) {
+                    row(foldStart, foldSize, "(" + foldCount + " smaller objects)", "(various)", "(various)");
+                } else {
+                    hiddenCount += foldCount;
+                    hiddenSize += foldSize;
+                }
+                foldCount = 0;
+                foldSize = 0;
+            }
+        }
+
+        void hide(long size) {
+            hiddenCount++;
+            hiddenSize += size;
+        }
+
+        void finish() {
+            flushFold();
+            if (hiddenCount > 0) {
+                pw.println();
+                pw.println("Row limit reached, " + hiddenCount + " more objects (" + hiddenSize + " bytes) are not shown.");
+            }
+            if (gapCount > 0) {
+                pw.println();
+                pw.println("Gaps between objects: " + gapCount + ", " + gapSize + " bytes total, " + gapMax + " bytes largest.");
+            }
+        }
     }
 
     /**
@@ -394,10 +782,11 @@ public class GraphLayout {
      * @throws IOException when I/O fails
      */
     public void toImage(String fileName) throws IOException {
-        if (addresses().isEmpty()) return;
+        ensureProcessedAddresses();
+        if (addresses.size() == 0) return;
 
         long start = startAddress();
-        long end = endAddress() + record(endAddress()).size();
+        long end = endAddress() + records.size(addresses.record(addresses.size() - 1));
 
         if (start == end) {
             // Make sure we render something
@@ -420,28 +809,30 @@ public class GraphLayout {
 
         int minDepth = Integer.MAX_VALUE;
         int maxDepth = Integer.MIN_VALUE;
-        for (long addr : addresses()) {
-            GraphPathRecord p = record(addr);
-            minDepth = Math.min(minDepth, p.depth());
-            maxDepth = Math.max(maxDepth, p.depth());
+        for (int p = 0; p < addresses.size(); p++) {
+            int depth = records.depth(addresses.record(p));
+            minDepth = Math.min(minDepth, depth);
+            maxDepth = Math.max(maxDepth, depth);
         }
 
         Multiset<Integer> depths = new Multiset<>();
-        for (long addr : addresses()) {
-            GraphPathRecord r = record(addr);
-            depths.add(r.depth(), r.size());
+        for (int p = 0; p < addresses.size(); p++) {
+            int idx = addresses.record(p);
+            depths.add(records.depth(idx), records.size(idx));
         }
 
         int lastX = 0;
-        for (long addr : addresses()) {
-            long size = record(addr).size();
+        for (int p = 0; p < addresses.size(); p++) {
+            long addr = addresses.address(p);
+            int idx = addresses.record(p);
+            long size = records.size(idx);
 
             int x1 = SCALE_WIDTH + EXT_PAD + (int) ((WIDTH - SCALE_WIDTH - EXT_PAD * 2) * (addr - start) / (end - start));
             int x2 = SCALE_WIDTH + EXT_PAD + (int) ((WIDTH - SCALE_WIDTH - EXT_PAD * 2) * (addr + size - start) / (end - start));
             x1 = Math.max(x1, lastX);
             x2 = Math.max(x2, lastX);
 
-            float relDepth = 1.0f * (record(addr).depth() - minDepth) / (maxDepth - minDepth + 1);
+            float relDepth = 1.0f * (records.depth(idx) - minDepth) / (maxDepth - minDepth + 1);
             g.setColor(Color.getHSBColor(relDepth, 1.0f, 0.9f));
             g.fillRect(x1, EXT_PAD, x2 - x1, GRAPH_HEIGHT);
         }
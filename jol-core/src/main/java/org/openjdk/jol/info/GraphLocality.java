@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.Multiset;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Locality report over the object graph layout: how far the objects are placed
+ * from the objects that reference them, and what it would cost to chase the pointers.
+ * <p>
+ * The report considers the edges through which the walk had discovered the objects,
+ * from the parent record to the child record. For each edge, it measures the address
+ * distance, checks if the edge crosses the cache line or the page boundary, and
+ * estimates the number of new cache lines the traversal would load to reach the child:
+ * the lines that the child object spans, except the line it shares with its parent.
+ * These estimates are aggregated per child class. The report also builds the density
+ * map over the covered address range, to show how sparse the graph is.
+ * <p>
+ * Addresses are taken as {@link GraphLayout} recorded them. If objects were moving
+ * during the walk, the report would reflect the mix of old and new addresses, use
+ * {@link GraphLayout#snapshot()} to capture the addresses once.
+ */
+public class GraphLocality {
+
+    /**
+     * Default cache line size, in bytes.
+     */
+    public static final int CACHE_LINE_SIZE = 64;
+
+    /**
+     * Default page size, in bytes.
+     */
+    public static final int PAGE_SIZE = 4096;
+
+    /**
+     * Number of distance histogram buckets, see {@link #distanceCount(int)}.
+     */
+    public static final int DISTANCE_BUCKETS = 64;
+
+    private static final int DENSITY_CELLS = 64;
+
+    private final String description;
+    private final int lineSize;
+    private final int pageSize;
+
+    private final long[] addrs;
+    private final long[] sizes;
+    private final long minAddress;
+    private final long maxAddress;
+
+    private final long[] distances;
+    private long edges;
+    private long forwardEdges;
+    private long lineCrossings;
+    private long pageCrossings;
+    private long linesLoaded;
+
+    private final Multiset<Class<?>> classEdges;
+    private final Multiset<Class<?>> classLineCrossings;
+    private final Multiset<Class<?>> classPageCrossings;
+    private final Multiset<Class<?>> classLinesLoaded;
+
+    /**
+     * Parse the object graph starting from the given instance(s), and produce
+     * the locality report with the default cache line and page sizes.
+     *
+     * @param roots root instances to start from
+     * @return locality report
+     */
+    public static GraphLocality parseInstance(Object... roots) {
+        return of(GraphLayout.parseInstance(roots));
+    }
+
+    /**
+     * Produce the locality report for the layout, with the default cache line
+     * and page sizes.
+     *
+     * @param layout layout to analyze
+     * @return locality report
+     */
+    public static GraphLocality of(GraphLayout layout) {
+        return of(layout, CACHE_LINE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * Produce the locality report for the layout.
+     *
+     * @param layout layout to analyze
+     * @param lineSize cache line size, power of two
+     * @param pageSize page size, power of two
+     * @return locality report
+     */
+    public static GraphLocality of(GraphLayout layout, int lineSize, int pageSize) {
+        if (Integer.bitCount(lineSize) != 1) {
+            throw new IllegalArgumentException("Cache line size should be the power of two: " + lineSize);
+        }
+        if (Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size should be the power of two: " + pageSize);
+        }
+        return new GraphLocality(layout, lineSize, pageSize);
+    }
+
+    private GraphLocality(GraphLayout layout, int lineSize, int pageSize) {
+        this.description = layout.description();
+        this.lineSize = lineSize;
+        this.pageSize = pageSize;
+
+        GraphRecords records = layout.records();
+        int count = records.size();
+        addrs = layout.recordAddresses();
+        sizes = new long[count];
+
+        distances = new long[DISTANCE_BUCKETS];
+        classEdges = new Multiset<>();
+        classLineCrossings = new Multiset<>();
+        classPageCrossings = new Multiset<>();
+        classLinesLoaded = new Multiset<>();
+
+        int lineShift = Integer.numberOfTrailingZeros(lineSize);
+        int pageShift = Integer.numberOfTrailingZeros(pageSize);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            long addr = addrs[i];
+            long size = records.size(i);
+            sizes[i] = size;
+            min = Math.min(min, addr);
+            max = Math.max(max, addr + size);
+
+            int parent = records.parent(i);
+            if (parent == GraphRecords.NO_PARENT) {
+                continue;
+            }
+
+            long pAddr = addrs[parent];
+            long dist = addr - pAddr;
+            distances[bucket(dist)]++;
+            edges++;
+            if (dist > 0) {
+                forwardEdges++;
+            }
+
+            Class<?> klass = records.klass(i);
+            classEdges.add(klass);
+
+            long firstLine = addr >>> lineShift;
+            long lastLine = (addr + Math.max(size, 1) - 1) >>> lineShift;
+            long pFirstLine = pAddr >>> lineShift;
+            long pLastLine = (pAddr + Math.max(sizes[parent], 1) - 1) >>> lineShift;
+
+            long loaded = lastLine - firstLine + 1;
+            if (firstLine >= pFirstLine && firstLine <= pLastLine) {
+                // Parent had already loaded this line.
+                loaded--;
+            } else {
+                lineCrossings++;
+                classLineCrossings.add(klass);
+            }
+            linesLoaded += loaded;
+            classLinesLoaded.add(klass, loaded);
+
+            if ((addr >>> pageShift) != (pAddr >>> pageShift)) {
+                pageCrossings++;
+                classPageCrossings.add(klass);
+            }
+        }
+
+        if (count > 0) {
+            minAddress = min;
+            maxAddress = max;
+        } else {
+            minAddress = 0;
+            maxAddress = 0;
+        }
+    }
+
+    private static int bucket(long dist) {
+        long d = Math.abs(dist);
+        return (d == 0) ? 0 : Math.min(DISTANCE_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(d));
+    }
+
+    /**
+     * Answer the number of parent-to-child edges in the report.
+     *
+     * @return number of edges
+     */
+    public long edgeCount() {
+        return edges;
+    }
+
+    /**
+     * Answer the number of edges where the child is placed at the higher address
+     * than its parent. Forward edges are friendlier to hardware prefetchers.
+     *
+     * @return number of forward edges
+     */
+    public long forwardEdgeCount() {
+        return forwardEdges;
+    }
+
+    /**
+     * Answer the number of edges that need another cache line to reach the child:
+     * the child does not start on any line its parent spans.
+     *
+     * @return number of cache line crossings
+     */
+    public long lineCrossingCount() {
+        return lineCrossings;
+    }
+
+    /**
+     * Answer the number of edges where the child starts on the other page than its parent.
+     *
+     * @return number of page crossings
+     */
+    public long pageCrossingCount() {
+        return pageCrossings;
+    }
+
+    /**
+     * Answer the share of edges crossing the cache line.
+     *
+     * @return share, from 0 to 1
+     */
+    public double lineCrossingShare() {
+        return share(lineCrossings, edges);
+    }
+
+    /**
+     * Answer the share of edges crossing the page.
+     *
+     * @return share, from 0 to 1
+     */
+    public double pageCrossingShare() {
+        return share(pageCrossings, edges);
+    }
+
+    /**
+     * Answer the estimated number of the cache lines loaded while chasing all edges.
+     *
+     * @return number of cache lines
+     */
+    public long linesLoaded() {
+        return linesLoaded;
+    }
+
+    /**
+     * Answer the number of edges in the distance bucket. Bucket {@code 0} holds
+     * the zero distances, bucket {@code b} holds the absolute distances in
+     * {@code [2^(b-1), 2^b)} bytes.
+     *
+     * @param bucket bucket index, from 0 to {@link #DISTANCE_BUCKETS}, exclusive
+     * @return number of edges
+     */
+    public long distanceCount(int bucket) {
+        return distances[bucket];
+    }
+
+    /**
+     * Answer the number of incoming edges, per child class.
+     *
+     * @return multiset of edge counts
+     */
+    public Multiset<Class<?>> getClassEdges() {
+        return classEdges;
+    }
+
+    /**
+     * Answer the number of incoming edges crossing the cache line, per child class.
+     *
+     * @return multiset of cache line crossings
+     */
+    public Multiset<Class<?>> getClassLineCrossings() {
+        return classLineCrossings;
+    }
+
+    /**
+     * Answer the number of incoming edges crossing the page, per child class.
+     *
+     * @return multiset of page crossings
+     */
+    public Multiset<Class<?>> getClassPageCrossings() {
+        return classPageCrossings;
+    }
+
+    /**
+     * Answer the estimated number of cache lines loaded to reach the objects, per class.
+     * This is the pointer chasing cost estimate: divided by the edge count, it tells
+     * how many new lines the traversal would load for each object of the class.
+     *
+     * @return multiset of loaded cache lines
+     */
+    public Multiset<Class<?>> getClassLinesLoaded() {
+        return classLinesLoaded;
+    }
+
+    /**
+     * Answer the starting address of the covered range.
+     *
+     * @return starting address
+     */
+    public long startAddress() {
+        return minAddress;
+    }
+
+    /**
+     * Answer the ending address of the covered range, exclusive.
+     *
+     * @return ending address
+     */
+    public long endAddress() {
+        return maxAddress;
+    }
+
+    /**
+     * Answer the density map of the covered address range. The range is divided
+     * into cells of equal size, and each cell answers the share of its bytes that
+     * are occupied by the objects in the graph.
+     *
+     * @param cells number of cells, positive
+     * @return occupied share per cell, from 0 to 1
+     */
+    public double[] densityMap(int cells) {
+        if (cells <= 0) {
+            throw new IllegalArgumentException("Number of cells should be positive: " + cells);
+        }
+        double[] res = new double[cells];
+        long span = maxAddress - minAddress;
+        if (span <= 0) {
+            return res;
+        }
+        long cellSize = (span + cells - 1) / cells;
+
+        long[] occupied = new long[cells];
+        for (int i = 0; i < addrs.length; i++) {
+            long start = addrs[i] - minAddress;
+            long end = start + sizes[i];
+            for (int c = (int) (start / cellSize); c < cells && start < end; c++) {
+                long cellEnd = (c + 1) * cellSize;
+                long bytes = Math.min(end, cellEnd) - start;
+                occupied[c] += bytes;
+                start += bytes;
+            }
+        }
+
+        for (int c = 0; c < cells; c++) {
+            long size = Math.min(cellSize, span - c * cellSize);
+            res[c] = (size > 0) ? Math.min(1.0, (double) occupied[c] / size) : 0;
+        }
+        return res;
+    }
+
+    private static double share(long part, long total) {
+        return (total == 0) ? 0 : (double) part / total;
+    }
+
+    /**
+     * Get the stringly representation of the locality report
+     *
+     * @return report text
+     */
+    public String toPrintable() {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+
+        pw.println(description + " locality:");
+        pw.printf(" %d edges, %d forward (%.1f%%), %d cross %d-byte lines (%.1f%%), %d cross %d-byte pages (%.1f%%)%n",
+                edges, forwardEdges, share(forwardEdges, edges) * 100,
+                lineCrossings, lineSize, lineCrossingShare() * 100,
+                pageCrossings, pageSize, pageCrossingShare() * 100);
+        pw.println();
+
+        pw.println("Parent-to-child distance:");
+        pw.printf(" %21s %9s %8s%n", "DISTANCE", "COUNT", "PERCENT");
+        for (int b = 0; b < DISTANCE_BUCKETS; b++) {
+            if (distances[b] == 0) continue;
+            String range = (b == 0) ? "0" : ((1L << (b - 1)) + ".." + ((b < 63) ? (1L << b) : "inf"));
+            pw.printf(" %21s %9d %7.1f%%%n", range, distances[b], share(distances[b], edges) * 100);
+        }
+        pw.println();
+
+        List<Class<?>> classes = new ArrayList<>(classLinesLoaded.keys());
+        Collections.sort(classes, new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> o1, Class<?> o2) {
+                int c = Long.compare(classLinesLoaded.count(o2), classLinesLoaded.count(o1));
+                return (c != 0) ? c : o1.getName().compareTo(o2.getName());
+            }
+        });
+        pw.println("Pointer chasing, by class:");
+        pw.printf(" %9s %9s %10s %7s %7s   %s%n", "EDGES", "LINES", "LINES/EDGE", "LINE X", "PAGE X", "CLASS");
+        for (Class<?> k : classes) {
+            long e = classEdges.count(k);
+            long lines = classLinesLoaded.count(k);
+            pw.printf(" %9d %9d %10.2f %6.1f%% %6.1f%%   %s%n",
+                    e, lines, (double) lines / e,
+                    share(classLineCrossings.count(k), e) * 100,
+                    share(classPageCrossings.count(k), e) * 100,
+                    k.getName());
+        }
+        pw.printf(" %9d %9d %10.2f %6.1f%% %6.1f%%   %s%n",
+                edges, linesLoaded, share(linesLoaded, edges),
+                lineCrossingShare() * 100, pageCrossingShare() * 100, "(total)");
+        pw.println();
+
+        long span = maxAddress - minAddress;
+        pw.printf("Density map, %x..%x, %d bytes per cell:%n", minAddress, maxAddress,
+                (span + DENSITY_CELLS - 1) / DENSITY_CELLS);
+        final String SHADES = " .:-=+*#%@";
+        StringBuilder sb = new StringBuilder(" [");
+        for (double d : densityMap(DENSITY_CELLS)) {
+            int s = (d == 0) ? 0 : 1 + (int) Math.min(SHADES.length() - 2, d * (SHADES.length() - 1));
+            sb.append(SHADES.charAt(s));
+        }
+        sb.append("]");
+        pw.println(sb);
+        pw.println();
+
+        pw.close();
+        return sw.toString();
+    }
+
+}
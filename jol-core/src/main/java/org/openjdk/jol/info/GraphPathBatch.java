@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Consecutive object paths in object graph, discovered together.
+ * Accessors read the walk data directly, without creating a record per object.
+ */
+public final class GraphPathBatch {
+    private final GraphRecords records;
+    private int from;
+    private int to;
+
+    GraphPathBatch(GraphRecords records) {
+        this.records = records;
+    }
+
+    void reset(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    private int idx(int i) {
+        if (i < 0 || i >= to - from) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", count: " + (to - from));
+        }
+        return from + i;
+    }
+
+    public int count() {
+        return to - from;
+    }
+
+    public GraphPathRecord record(int i) {
+        return new GraphPathRecord(records, idx(i));
+    }
+
+    public String path(int i) {
+        return records.path(idx(i));
+    }
+
+    public Class<?> klass(int i) {
+        return records.klass(idx(i));
+    }
+
+    public long size(int i) {
+        return records.size(idx(i));
+    }
+
+}
@@ -24,49 +24,48 @@
  */
 package org.openjdk.jol.info;
 
-import org.openjdk.jol.vm.VM;
-
 /**
  * Object path in object graph.
  *
  * @author Aleksey Shipilev
  */
-public abstract class GraphPathRecord {
-    protected final GraphPathRecord parent;
-    private final int depth;
-    private final Object obj;
-    private long size;
+public final class GraphPathRecord {
+    private final GraphRecords records;
+    private final int idx;
 
-    GraphPathRecord(GraphPathRecord parent, int depth, Object obj) {
-        this.parent = parent;
-        this.obj = obj;
-        this.depth = depth;
+    GraphPathRecord(GraphRecords records, int idx) {
+        this.records = records;
+        this.idx = idx;
     }
 
-    final Object obj() {
-        return obj;
+    Object obj() {
+        return records.obj(idx);
     }
 
-    public abstract String path();
+    public String path() {
+        return records.path(idx);
+    }
 
-    public final Class<?> klass() {
-        return obj.getClass();
+    public Class<?> klass() {
+        return records.klass(idx);
     }
 
-    public final long size() {
-        if (size == 0) {
-            // Object size would not change, fine to compute lazily.
-            size = VM.current().sizeOf(obj);
-        }
-        return size;
+    /**
+     * Answer the class name. For the snapshots read without the original classes,
+     * {@link #klass()} is {@link GraphSnapshot.Unresolved}, and this is the recorded name.
+     *
+     * @return class name
+     */
+    public String className() {
+        return records.className(idx);
     }
 
-    final void setSize(long size) {
-        this.size = size;
+    public long size() {
+        return records.size(idx);
     }
 
-    final int depth() {
-        return depth;
+    int depth() {
+        return records.depth(idx);
     }
 
 }
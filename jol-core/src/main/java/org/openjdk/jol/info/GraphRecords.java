@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact storage for the graph path records. Keeps the record data in
+ * primitive arrays, indexed by record number, and builds the paths
+ * on demand by following the parent indexes.
+ *
+ * Records may also be stored without the objects, in which case
+ * the class and the address of the object are stored instead.
+ * These records do not keep their objects alive.
+ */
+final class GraphRecords {
+
+    /**
+     * Parent index for the records that have no parent.
+     */
+    static final int NO_PARENT = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] objs;
+    private Class<?>[] klasses;
+    private long[] addresses;
+    // Recorded names for the classes that snapshots could not resolve, see GraphSnapshot.Unresolved.
+    // Absent unless there are such classes.
+    private String[] classNames;
+    private int[] parents;
+    private int[] depths;
+    private long[] sizes;
+
+    // Label encoding: non-negative values are the array indexes,
+    // negative values point into the label table: -1 is the first entry.
+    private int[] labels;
+
+    // Label table holds field names and root labels. Records copied from
+    // other storages have their full paths here, without the parents.
+    private final List<String> labelTable;
+    private final Map<String, Integer> labelIds;
+
+    private int size;
+
+    GraphRecords() {
+        objs = new Object[INITIAL_CAPACITY];
+        parents = new int[INITIAL_CAPACITY];
+        depths = new int[INITIAL_CAPACITY];
+        sizes = new long[INITIAL_CAPACITY];
+        labels = new int[INITIAL_CAPACITY];
+        labelTable = new ArrayList<>();
+        labelIds = new HashMap<>();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= objs.length) return;
+        int newCapacity = Math.max(capacity, objs.length * 2);
+        objs = Arrays.copyOf(objs, newCapacity);
+        if (klasses != null) {
+            klasses = Arrays.copyOf(klasses, newCapacity);
+            addresses = Arrays.copyOf(addresses, newCapacity);
+        }
+        if (classNames != null) {
+            classNames = Arrays.copyOf(classNames, newCapacity);
+        }
+        parents = Arrays.copyOf(parents, newCapacity);
+        depths = Arrays.copyOf(depths, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+        labels = Arrays.copyOf(labels, newCapacity);
+    }
+
+    private int labelId(String name) {
+        Integer id = labelIds.get(name);
+        if (id == null) {
+            id = labelTable.size();
+            labelTable.add(name);
+            labelIds.put(name, id);
+        }
+        return id;
+    }
+
+    private int add(Object obj, int parent, int depth, int label, long size) {
+        ensureCapacity(this.size + 1);
+        int idx = this.size++;
+        objs[idx] = obj;
+        parents[idx] = parent;
+        depths[idx] = depth;
+        labels[idx] = label;
+        sizes[idx] = size;
+        return idx;
+    }
+
+    /**
+     * Add the record for the object reachable through the named field.
+     * Roots have no parents, and their names are the root labels.
+     *
+     * @return record index
+     */
+    int addField(Object obj, int parent, String name, int depth, long size) {
+        return add(obj, parent, depth, -(labelId(name) + 1), size);
+    }
+
+    /**
+     * Add the record for the object reachable through the array element.
+     *
+     * @return record index
+     */
+    int addElement(Object obj, int parent, int index, int depth, long size) {
+        return add(obj, parent, depth, index, size);
+    }
+
+    /**
+     * Add the copy of the record from another storage. The copy takes
+     * the full path of the original record as its label, so that it does not
+     * keep the other storage alive.
+     *
+     * @return record index
+     */
+    int addCopy(GraphRecords other, int idx) {
+        // Paths are mostly unique, do not bother interning them.
+        int label = -(labelTable.size() + 1);
+        labelTable.add(other.path(idx));
+        int copy = add(other.objs[idx], NO_PARENT, other.depths[idx], label, other.sizes[idx]);
+        if (other.objs[idx] == null) {
+            setDetached(copy, other.klasses[idx], other.addresses[idx]);
+            if (other.classNames != null && other.classNames[idx] != null) {
+                setClassName(copy, other.classNames[idx]);
+            }
+        }
+        return copy;
+    }
+
+    private void setClassName(int idx, String name) {
+        if (classNames == null) {
+            classNames = new String[objs.length];
+        }
+        classNames[idx] = name;
+    }
+
+    private void setDetached(int idx, Class<?> klass, long address) {
+        if (klasses == null) {
+            klasses = new Class<?>[objs.length];
+            addresses = new long[objs.length];
+        }
+        klasses[idx] = klass;
+        addresses[idx] = address;
+    }
+
+    /**
+     * Produce the copy of this storage, that does not keep the objects alive.
+     *
+     * @param objAddresses object addresses, by record index
+     * @return detached storage
+     */
+    GraphRecords detach(long[] objAddresses) {
+        GraphRecords res = new GraphRecords();
+        res.ensureCapacity(size);
+        res.klasses = new Class<?>[res.objs.length];
+        res.addresses = new long[res.objs.length];
+
+        res.labelTable.addAll(labelTable);
+        res.labelIds.putAll(labelIds);
+
+        for (int i = 0; i < size; i++) {
+            res.add(null, parents[i], depths[i], labels[i], size(i));
+            res.klasses[i] = klass(i);
+            if (classNames != null && classNames[i] != null) {
+                res.setClassName(i, classNames[i]);
+            }
+            res.addresses[i] = objAddresses[i];
+        }
+        return res;
+    }
+
+    /**
+     * Restore the detached storage from its columns.
+     *
+     * @param classNames recorded names for the unresolved classes, by record index; null if there are none
+     * @return detached storage
+     */
+    static GraphRecords restore(Class<?>[] klasses, String[] classNames, long[] addresses, long[] sizes,
+                                int[] parents, int[] depths, int[] labels, List<String> labelNames) {
+        int count = klasses.length;
+        GraphRecords res = new GraphRecords();
+        res.objs = new Object[count];
+        res.klasses = klasses;
+        res.classNames = classNames;
+        res.addresses = addresses;
+        res.sizes = sizes;
+        res.parents = parents;
+        res.depths = depths;
+        res.labels = labels;
+        res.size = count;
+        for (String l : labelNames) {
+            res.labelTable.add(l);
+            res.labelIds.put(l, res.labelTable.size() - 1);
+        }
+        return res;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Answer the encoded label: non-negative values are array indexes,
+     * negative values are label ids, see {@link #labelName(int)}.
+     */
+    int label(int idx) {
+        return labels[idx];
+    }
+
+    int labelCount() {
+        return labelTable.size();
+    }
+
+    /**
+     * Answer the label by its id. Records copied from other storages
+     * have their full paths as labels.
+     */
+    String labelName(int id) {
+        return labelTable.get(id);
+    }
+
+    Object obj(int idx) {
+        return objs[idx];
+    }
+
+    int parent(int idx) {
+        return parents[idx];
+    }
+
+    int depth(int idx) {
+        return depths[idx];
+    }
+
+    Class<?> klass(int idx) {
+        Object o = objs[idx];
+        return (o != null) ? o.getClass() : klasses[idx];
+    }
+
+    /**
+     * Answer the class name. Unresolved classes answer the names they were recorded with.
+     *
+     * @return class name
+     */
+    String className(int idx) {
+        if (classNames != null && classNames[idx] != null) {
+            return classNames[idx];
+        }
+        return klass(idx).getName();
+    }
+
+    /**
+     * Answer if the record keeps the object.
+     *
+     * @return true, if object is available
+     */
+    boolean hasObj(int idx) {
+        return objs[idx] != null;
+    }
+
+    /**
+     * Answer the address of the object, as it was recorded
+     * for the record that does not keep the object.
+     *
+     * @return recorded address
+     */
+    long detachedAddress(int idx) {
+        return addresses[idx];
+    }
+
+    long size(int idx) {
+        long s = sizes[idx];
+        if (s == 0) {
+            // Object size would not change, fine to compute lazily.
+            s = ClassShape.sizeOf(objs[idx]);
+            sizes[idx] = s;
+        }
+        return s;
+    }
+
+    String path(int idx) {
+        // Collect the chain up to the top-most record, then unwind it.
+        int len = 0;
+        for (int i = idx; i != NO_PARENT; i = parents[i]) {
+            len++;
+        }
+        int[] chain = new int[len];
+        for (int i = idx, c = len - 1; i != NO_PARENT; i = parents[i], c--) {
+            chain[c] = i;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < len; c++) {
+            int label = labels[chain[c]];
+            if (label >= 0) {
+                sb.append("[").append(label).append("]");
+            } else {
+                if (c > 0) {
+                    sb.append(".");
+                }
+                sb.append(labelTable.get(-label - 1));
+            }
+        }
+        return sb.toString();
+    }
+
+    GraphPathRecord record(int idx) {
+        return new GraphPathRecord(this, idx);
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.datamodel.DataModel;
+import org.openjdk.jol.util.MathUtil;
+import org.openjdk.jol.util.Multiset;
+import org.openjdk.jol.vm.VM;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reprojects the object graph onto other data models: answers what the same
+ * objects would take with, for example, compressed references disabled, larger
+ * object alignment, or compact object headers.
+ * <p>
+ * Every object size is recomputed under each of the given {@link FootprintModel}s,
+ * which carry the {@link DataModel} and the JDK version for {@link org.openjdk.jol.layouters.HotSpotLayouter}.
+ * Class layouts are computed once per class and model, and cached. The objects can come
+ * from the walked {@link GraphLayout}, see {@link #add(GraphLayout)}, or from the streaming
+ * walk, since this class is also the {@link GraphStreamVisitor}. Objects are not
+ * de-duplicated across the additions.
+ * <p>
+ * Array sizes depend on the array lengths. For the layouts that do not keep the objects,
+ * like snapshots, the lengths are inferred from the recorded sizes under the current VM,
+ * and might overestimate the length by the alignment padding.
+ * <p>
+ * Snapshots read without the original classes have {@link GraphSnapshot.Unresolved}
+ * instead of them. Their layouts are unknown, so their instances, arrays included,
+ * keep the recorded sizes under every model.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class GraphReprojection implements GraphStreamVisitor {
+
+    private final FootprintModel[] models;
+    private final Map<Class<?>, Shape> shapes;
+    private Class<?> lastClass;
+    private Shape lastShape;
+
+    private long totalCount;
+    private long totalSize;
+    private final long[] totalSizes;
+    private final Multiset<Class<?>> classCounts;
+    private final Multiset<Class<?>> classSizes;
+    private final List<Multiset<Class<?>>> modelClassSizes;
+
+    /**
+     * Reproject onto the given models.
+     *
+     * @param models footprint models to reproject onto
+     */
+    public GraphReprojection(FootprintModel... models) {
+        if (models.length == 0) {
+            throw new IllegalArgumentException("Need at least one model");
+        }
+        this.models = models.clone();
+        this.shapes = new IdentityHashMap<>();
+        this.totalSizes = new long[models.length];
+        this.classCounts = new Multiset<>();
+        this.classSizes = new Multiset<>();
+        this.modelClassSizes = new ArrayList<>();
+        for (int m = 0; m < models.length; m++) {
+            modelClassSizes.add(new Multiset<Class<?>>());
+        }
+    }
+
+    /**
+     * Reproject the layout onto the given models.
+     *
+     * @param layout layout to reproject
+     * @param models footprint models to reproject onto
+     * @return reprojection
+     */
+    public static GraphReprojection of(GraphLayout layout, FootprintModel... models) {
+        return new GraphReprojection(models).add(layout);
+    }
+
+    /**
+     * Add the objects from the layout.
+     *
+     * @param layout layout to add
+     * @return this reprojection
+     */
+    public GraphReprojection add(GraphLayout layout) {
+        GraphRecords records = layout.records();
+        for (int i = 0; i < records.size(); i++) {
+            add(records.obj(i), records.klass(i), records.size(i));
+        }
+        return this;
+    }
+
+    @Override
+    public void visit(Object obj, Class<?> klass, long size, int depth, Object parent, String field, int index) {
+        add(obj, klass, size);
+    }
+
+    private void add(Object obj, Class<?> klass, long size) {
+        Shape shape;
+        if (klass == lastClass) {
+            shape = lastShape;
+        } else {
+            shape = shapes.get(klass);
+            if (shape == null) {
+                shape = new Shape(klass, models);
+                shapes.put(klass, shape);
+            }
+            lastClass = klass;
+            lastShape = shape;
+        }
+
+        totalCount++;
+        totalSize += size;
+        classCounts.add(klass);
+        classSizes.add(klass, size);
+
+        if (shape.recorded) {
+            for (int m = 0; m < models.length; m++) {
+                totalSizes[m] += size;
+                modelClassSizes.get(m).add(klass, size);
+            }
+        } else if (shape.sizes != null) {
+            for (int m = 0; m < models.length; m++) {
+                long s = shape.sizes[m];
+                totalSizes[m] += s;
+                modelClassSizes.get(m).add(klass, s);
+            }
+        } else {
+            long length = (obj != null) ? Array.getLength(obj) : shape.inferLength(size);
+            for (int m = 0; m < models.length; m++) {
+                long s = shape.arraySize(m, length);
+                totalSizes[m] += s;
+                modelClassSizes.get(m).add(klass, s);
+            }
+        }
+    }
+
+    /**
+     * Answer the number of models.
+     *
+     * @return number of models
+     */
+    public int modelCount() {
+        return models.length;
+    }
+
+    /**
+     * Answer the model.
+     *
+     * @param model model index
+     * @return footprint model
+     */
+    public FootprintModel model(int model) {
+        return models[model];
+    }
+
+    /**
+     * Answer the total number of added objects.
+     *
+     * @return total number of objects
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Answer the total size of added objects, as measured in the current VM.
+     *
+     * @return total size, bytes
+     */
+    public long totalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Answer the total size of added objects under the model.
+     *
+     * @param model model index
+     * @return total size, bytes
+     */
+    public long totalSize(int model) {
+        return totalSizes[model];
+    }
+
+    /**
+     * Answer the class counts of added objects.
+     *
+     * @return multiset of class counts
+     */
+    public Multiset<Class<?>> getClassCounts() {
+        return classCounts;
+    }
+
+    /**
+     * Answer the class sizes of added objects, as measured in the current VM.
+     *
+     * @return multiset of class sizes
+     */
+    public Multiset<Class<?>> getClassSizes() {
+        return classSizes;
+    }
+
+    /**
+     * Answer the class sizes of added objects under the model.
+     *
+     * @param model model index
+     * @return multiset of class sizes
+     */
+    public Multiset<Class<?>> getClassSizes(int model) {
+        return modelClassSizes.get(model);
+    }
+
+    /**
+     * Get the stringly representation of the totals per model
+     *
+     * @return report text
+     */
+    public String toPrintable() {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("Reprojected footprint of " + totalCount + " objects:");
+        pw.printf(" %12s %8s   %s%n", "SUM", "DIFF", "MODEL");
+        pw.printf(" %12d %8s   %s%n", totalSize, "", "(current VM)");
+        for (int m = 0; m < models.length; m++) {
+            String diff = (totalSize == 0) ? "" :
+                    String.format("%+.1f%%", (totalSizes[m] - totalSize) * 100.0 / totalSize);
+            pw.printf(" %12d %8s   %s%n", totalSizes[m], diff, models[m]);
+        }
+        pw.println();
+        pw.close();
+        return sw.toString();
+    }
+
+    /**
+     * Per-class sizes under every model: instance sizes for the plain classes,
+     * and the array geometry for the array classes. Unresolved classes have neither,
+     * and use the recorded sizes.
+     */
+    private static final class Shape {
+        private final boolean recorded;
+        private final long[] sizes;
+        private final int[] bases;
+        private final int[] scales;
+        private final int[] aligns;
+        private final int currentBase;
+        private final int currentScale;
+
+        Shape(Class<?> klass, FootprintModel[] models) {
+            int count = models.length;
+            recorded = (klass == GraphSnapshot.Unresolved.class);
+            if (recorded) {
+                sizes = null;
+                bases = null;
+                scales = null;
+                aligns = null;
+                currentBase = 0;
+                currentScale = 0;
+            } else if (klass.isArray()) {
+                // Follows the array layout in HotSpotLayouter.
+                String component = klass.getComponentType().getName();
+                sizes = null;
+                bases = new int[count];
+                scales = new int[count];
+                aligns = new int[count];
+                for (int m = 0; m < count; m++) {
+                    DataModel model = models[m].model();
+                    bases[m] = model.arrayHeaderSize();
+                    scales[m] = model.sizeOf(component);
+                    aligns[m] = model.objectAlignment();
+                }
+                currentBase = VM.current().arrayBaseOffset(component);
+                currentScale = VM.current().arrayIndexScale(component);
+            } else {
+                sizes = new long[count];
+                for (int m = 0; m < count; m++) {
+                    sizes[m] = models[m].instanceSize(klass);
+                }
+                bases = null;
+                scales = null;
+                aligns = null;
+                currentBase = 0;
+                currentScale = 0;
+            }
+        }
+
+        long inferLength(long size) {
+            return Math.max(0, (size - currentBase) / currentScale);
+        }
+
+        long arraySize(int m, long length) {
+            return MathUtil.align(bases[m] + length * scales[m], aligns[m]);
+        }
+    }
+
+}
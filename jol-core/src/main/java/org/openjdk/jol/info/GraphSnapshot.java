@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary snapshot of {@link GraphLayout}, to capture the layout in one place,
+ * and analyze it offline in another.
+ *
+ * <p>The snapshot is columnar: the header, the class name and label dictionaries,
+ * then the columns of addresses, sizes, class ids, parent indexes, depths and labels,
+ * each stored as the contiguous big-endian array. The part after the header is
+ * optionally deflated. Uncompressed snapshot files are memory-mapped on reading,
+ * and the columns are bulk-copied from the mapping.
+ *
+ * <p>The layout read back is detached, like {@link GraphLayout#snapshot()}: it does
+ * not have the objects, but answers totals, histograms, records, paths and printouts.
+ * Class names are resolved with the given class loader. The records of classes that
+ * are not available there, including lambdas and other hidden classes, have
+ * {@link Unresolved} as their class, and keep the recorded class names, see
+ * {@link GraphPathRecord#className()}.
+ * External edges are not stored.
+ */
+public class GraphSnapshot {
+
+    /**
+     * Sentinel class for the records whose classes could not be resolved on reading.
+     * Histograms count all unresolved classes under this class; the recorded class
+     * names are available from {@link GraphPathRecord#className()}.
+     */
+    public static final class Unresolved {
+        private Unresolved() {
+            // no instances
+        }
+    }
+
+    private static final int MAGIC = 0x4A4F4C53; // "JOLS"
+    private static final int VERSION = 1;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Column bytes per record: address and size, then class id, parent, depth and label.
+     */
+    private static final int RECORD_BYTES = 2 * 8 + 4 * 4;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private GraphSnapshot() {
+        // prevent instantiation
+    }
+
+    /**
+     * Write the layout snapshot into the file.
+     *
+     * @param layout layout to write
+     * @param fileName file name
+     * @param compress deflate the snapshot
+     * @throws IOException when write fails
+     */
+    public static void write(GraphLayout layout, String fileName, boolean compress) throws IOException {
+        try (OutputStream out = new FileOutputStream(fileName)) {
+            write(layout, out, compress);
+        }
+    }
+
+    /**
+     * Write the layout snapshot into the stream. The stream is flushed, but not closed.
+     *
+     * @param layout layout to write
+     * @param out stream to write to
+     * @param compress deflate the snapshot
+     * @throws IOException when write fails
+     */
+    public static void write(GraphLayout layout, OutputStream out, boolean compress) throws IOException {
+        GraphRecords records = layout.records();
+        long[] addresses = layout.recordAddresses();
+        int count = records.size();
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(compress ? FLAG_COMPRESSED : 0);
+        header.flush();
+
+        Deflater deflater = null;
+        DeflaterOutputStream dos = null;
+        WritableByteChannel ch;
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            dos = new DeflaterOutputStream(out, deflater, CHUNK_SIZE);
+            ch = Channels.newChannel(dos);
+        } else {
+            ch = Channels.newChannel(out);
+        }
+
+        try {
+            ColumnOutput co = new ColumnOutput(ch);
+            co.putString(layout.description());
+            co.putInt(layout.isTruncated() ? 1 : 0);
+            co.putInt(layout.addressStable() ? 1 : 0);
+            co.putInt(layout.addressTries());
+            co.putInt(count);
+
+            // Class name dictionary, in order of first appearance.
+            Map<String, Integer> classIds = new HashMap<>();
+            List<String> classes = new ArrayList<>();
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                String name = records.className(i);
+                Integer id = classIds.get(name);
+                if (id == null) {
+                    id = classes.size();
+                    classes.add(name);
+                    classIds.put(name, id);
+                }
+                ids[i] = id;
+            }
+            co.putInt(classes.size());
+            for (String name : classes) {
+                co.putString(name);
+            }
+
+            int labelCount = records.labelCount();
+            co.putInt(labelCount);
+            for (int l = 0; l < labelCount; l++) {
+                co.putString(records.labelName(l));
+            }
+
+            for (int i = 0; i < count; i++) {
+                co.putLong(addresses[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                co.putLong(records.size(i));
+            }
+            for (int i = 0; i < count; i++) {
+                co.putInt(ids[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                co.putInt(records.parent(i));
+            }
+            for (int i = 0; i < count; i++) {
+                co.putInt(records.depth(i));
+            }
+            for (int i = 0; i < count; i++) {
+                co.putInt(records.label(i));
+            }
+            co.flush();
+
+            if (dos != null) {
+                dos.finish();
+            }
+            out.flush();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Read the layout snapshot from the file, resolving the classes with
+     * the context class loader. Uncompressed snapshots are memory-mapped.
+     *
+     * @param fileName file name
+     * @return detached layout
+     * @throws IOException when read fails, or file is not a snapshot
+     */
+    public static GraphLayout read(String fileName) throws IOException {
+        return read(fileName, Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Read the layout snapshot from the file. Uncompressed snapshots are memory-mapped.
+     *
+     * @param fileName file name
+     * @param loader class loader to resolve the classes with
+     * @return detached layout
+     * @throws IOException when read fails, or file is not a snapshot
+     */
+    public static GraphLayout read(String fileName, ClassLoader loader) throws IOException {
+        try (FileChannel fc = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (fc.read(header) < 0) {
+                    throw new EOFException("Truncated snapshot header");
+                }
+            }
+            header.flip();
+            boolean compressed = readHeader(header);
+
+            long bodySize = fc.size() - HEADER_SIZE;
+            if (!compressed && bodySize <= Integer.MAX_VALUE) {
+                ByteBuffer mapped = fc.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, bodySize);
+                return readBody(new ColumnInput(mapped), loader);
+            }
+            return readBody(fc, compressed, loader);
+        }
+    }
+
+    /**
+     * Read the layout snapshot from the stream. The stream is not closed.
+     *
+     * @param in stream to read from
+     * @param loader class loader to resolve the classes with
+     * @return detached layout
+     * @throws IOException when read fails, or stream is not a snapshot
+     */
+    public static GraphLayout read(InputStream in, ClassLoader loader) throws IOException {
+        ReadableByteChannel ch = Channels.newChannel(in);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (ch.read(header) < 0) {
+                throw new EOFException("Truncated snapshot header");
+            }
+        }
+        header.flip();
+        boolean compressed = readHeader(header);
+        return readBody(ch, compressed, loader);
+    }
+
+    private static boolean readHeader(ByteBuffer header) throws IOException {
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a layout snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        return (header.getInt() & FLAG_COMPRESSED) != 0;
+    }
+
+    private static GraphLayout readBody(ReadableByteChannel ch, boolean compressed, ClassLoader loader) throws IOException {
+        if (!compressed) {
+            return readBody(new ColumnInput(ch), loader);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            // Do not close the inflater stream, it would close the underlying channel.
+            InputStream in = new InflaterInputStream(Channels.newInputStream(ch), inflater, CHUNK_SIZE);
+            return readBody(new ColumnInput(Channels.newChannel(in)), loader);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static GraphLayout readBody(ColumnInput ci, ClassLoader loader) throws IOException {
+        String description = ci.getString();
+        boolean truncated = ci.getInt() != 0;
+        boolean addressStable = ci.getInt() != 0;
+        int addressTries = ci.getInt();
+        int count = checkCount(ci.getInt());
+
+        String[] names = new String[checkCount(ci.getInt())];
+        Class<?>[] dict = new Class<?>[names.length];
+        for (int c = 0; c < dict.length; c++) {
+            names[c] = ci.getString();
+            dict[c] = resolve(names[c], loader);
+        }
+
+        int labelCount = checkCount(ci.getInt());
+        List<String> labelNames = new ArrayList<>(labelCount);
+        for (int l = 0; l < labelCount; l++) {
+            labelNames.add(ci.getString());
+        }
+
+        // Check the count before allocating the columns for it.
+        if ((long) count * RECORD_BYTES > ci.remaining()) {
+            throw new EOFException("Truncated snapshot, " + count + " records do not fit");
+        }
+        long[] addresses = new long[count];
+        long[] sizes = new long[count];
+        int[] ids = new int[count];
+        int[] parents = new int[count];
+        int[] depths = new int[count];
+        int[] labels = new int[count];
+        ci.getLongs(addresses);
+        ci.getLongs(sizes);
+        ci.getInts(ids);
+        ci.getInts(parents);
+        ci.getInts(depths);
+        ci.getInts(labels);
+
+        Class<?>[] klasses = new Class<?>[count];
+        String[] classNames = null;
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            int parent = parents[i];
+            int label = labels[i];
+            if (id < 0 || id >= dict.length ||
+                    parent < GraphRecords.NO_PARENT || parent >= i ||
+                    label < -labelCount) {
+                throw new IOException("Corrupted snapshot record: " + i);
+            }
+            if (dict[id] != null) {
+                klasses[i] = dict[id];
+            } else {
+                if (classNames == null) {
+                    classNames = new String[count];
+                }
+                klasses[i] = Unresolved.class;
+                classNames[i] = names[id];
+            }
+        }
+
+        GraphRecords records = GraphRecords.restore(klasses, classNames, addresses, sizes, parents, depths, labels, labelNames);
+        return GraphLayout.restore(description, records, truncated, addressTries, addressStable);
+    }
+
+    /**
+     * Resolve the class by its name.
+     *
+     * @return class, or null if it is not available
+     */
+    private static Class<?> resolve(String name, ClassLoader loader) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static int checkCount(int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Corrupted snapshot, negative count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Buffers the primitive writes into the chunks, and writes the chunks into the channel.
+     */
+    private static final class ColumnOutput {
+        private final WritableByteChannel ch;
+        private final ByteBuffer buf;
+
+        ColumnOutput(WritableByteChannel ch) {
+            this.ch = ch;
+            this.buf = ByteBuffer.allocate(CHUNK_SIZE);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                flush();
+            }
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int off = 0;
+            while (off < bytes.length) {
+                ensure(1);
+                int len = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, len);
+                off += len;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    /**
+     * Reads the primitives either from the mapped buffer, or from the chunks of the channel.
+     */
+    private static final class ColumnInput {
+        private final ReadableByteChannel ch;
+        private final ByteBuffer buf;
+
+        ColumnInput(ByteBuffer mapped) {
+            this.ch = null;
+            this.buf = mapped;
+        }
+
+        ColumnInput(ReadableByteChannel ch) {
+            this.ch = ch;
+            this.buf = ByteBuffer.allocate(CHUNK_SIZE);
+            buf.limit(0);
+        }
+
+        private void need(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            if (ch == null) {
+                throw new EOFException("Truncated snapshot");
+            }
+            buf.compact();
+            while (buf.position() < n) {
+                if (ch.read(buf) < 0) {
+                    throw new EOFException("Truncated snapshot");
+                }
+            }
+            buf.flip();
+        }
+
+        int getInt() throws IOException {
+            need(4);
+            return buf.getInt();
+        }
+
+        /**
+         * Answer the number of bytes left, if known.
+         *
+         * @return remaining bytes in the mapped buffer; {@link Long#MAX_VALUE} for channels
+         */
+        long remaining() {
+            return (ch == null) ? buf.remaining() : Long.MAX_VALUE;
+        }
+
+        private void needBulk(long n) throws IOException {
+            if (buf.remaining() < n) {
+                throw new EOFException("Truncated snapshot");
+            }
+        }
+
+        String getString() throws IOException {
+            int len = checkCount(getInt());
+            byte[] bytes = new byte[len];
+            int off = 0;
+            while (off < len) {
+                need(1);
+                int n = Math.min(buf.remaining(), len - off);
+                buf.get(bytes, off, n);
+                off += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void getLongs(long[] dst) throws IOException {
+            if (ch == null) {
+                needBulk(dst.length * 8L);
+                buf.asLongBuffer().get(dst);
+                buf.position(buf.position() + dst.length * 8);
+            } else {
+                for (int i = 0; i < dst.length; i++) {
+                    need(8);
+                    dst[i] = buf.getLong();
+                }
+            }
+        }
+
+        void getInts(int[] dst) throws IOException {
+            if (ch == null) {
+                needBulk(dst.length * 4L);
+                buf.asIntBuffer().get(dst);
+                buf.position(buf.position() + dst.length * 4);
+            } else {
+                for (int i = 0; i < dst.length; i++) {
+                    need(4);
+                    dst[i] = buf.getInt();
+                }
+            }
+        }
+    }
+
+}
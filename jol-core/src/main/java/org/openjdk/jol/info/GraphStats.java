@@ -39,14 +39,47 @@ public class GraphStats {
         return new GraphStatsWalker().walk(roots);
     }
 
+    /**
+     * Parse the object graph starting from the given instance,
+     * walking the graph with several threads.
+     *
+     * @param parallelism number of threads to walk with
+     * @param roots root instances to start from
+     * @return object graph
+     */
+    public static GraphStats parseInstanceParallel(int parallelism, Object... roots) {
+        return new ParallelGraphStatsWalker(parallelism).walk(roots);
+    }
+
     private long totalCount;
     private long totalSize;
+    private boolean truncated;
+    // Created on the first boundary edge, most walks do not have any.
+    private ExternalEdges externalEdges;
 
     void addRecord(long size) {
         totalCount++;
         totalSize += size;
     }
 
+    void addRecords(long count, long size) {
+        totalCount += count;
+        totalSize += size;
+    }
+
+    void merge(GraphStats other) {
+        totalCount += other.totalCount;
+        totalSize += other.totalSize;
+        truncated |= other.truncated;
+        if (other.externalEdges != null) {
+            getExternalEdges().merge(other.externalEdges);
+        }
+    }
+
+    void setTruncated() {
+        truncated = true;
+    }
+
     /**
      * Answer the total instance count
      *
@@ -64,4 +97,31 @@ public class GraphStats {
     public long totalSize() {
         return totalSize;
     }
+
+    /**
+     * Answer if the walk was stopped early by the walk limits,
+     * and the statistics do not cover the entire graph. {@link OffHeapGraphStatsWalker}
+     * also marks the statistics truncated when GCs moved the objects during every
+     * attempt, and the statistics might be imprecise.
+     *
+     * @return true, if statistics are truncated
+     * @see WalkLimits
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Answer the references to the objects at the walk boundary,
+     * which were not traversed.
+     *
+     * @return external edges
+     * @see WalkBoundary
+     */
+    public ExternalEdges getExternalEdges() {
+        if (externalEdges == null) {
+            externalEdges = new ExternalEdges();
+        }
+        return externalEdges;
+    }
 }
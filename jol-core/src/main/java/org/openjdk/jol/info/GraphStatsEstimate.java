@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Estimated statistics about the object graph.
+ * Large reference arrays are sampled instead of walked completely,
+ * and the totals are extrapolated from the samples.
+ *
+ * @see SamplingGraphStatsWalker
+ */
+public class GraphStatsEstimate {
+
+    /**
+     * Normal quantile for the 95% confidence intervals.
+     */
+    private static final double Z_95 = 1.96;
+
+    /**
+     * Estimate the object graph starting from the given instance.
+     *
+     * @param roots root instances to start from
+     * @return object graph estimate
+     */
+    public static GraphStatsEstimate parseInstance(Object... roots) {
+        return new SamplingGraphStatsWalker().walk(roots);
+    }
+
+    private double totalCount;
+    private double totalSize;
+    private double countVariance;
+    private double sizeVariance;
+    private long sampledArrays;
+
+    void addRecord(double weight, long size) {
+        totalCount += weight;
+        totalSize += weight * size;
+    }
+
+    void addSampledArray(double countVariance, double sizeVariance) {
+        this.countVariance += countVariance;
+        this.sizeVariance += sizeVariance;
+        sampledArrays++;
+    }
+
+    double rawCount() {
+        return totalCount;
+    }
+
+    double rawSize() {
+        return totalSize;
+    }
+
+    /**
+     * Answer the estimated total instance count
+     *
+     * @return total instance count
+     */
+    public long totalCount() {
+        return Math.round(totalCount);
+    }
+
+    /**
+     * Answer the estimated total instance footprint
+     *
+     * @return total instance footprint, bytes
+     */
+    public long totalSize() {
+        return Math.round(totalSize);
+    }
+
+    /**
+     * Answer the half-width of 95% confidence interval for the total instance count.
+     *
+     * @return count error
+     */
+    public double totalCountError() {
+        return Z_95 * Math.sqrt(countVariance);
+    }
+
+    /**
+     * Answer the half-width of 95% confidence interval for the total instance footprint.
+     *
+     * @return footprint error, bytes
+     */
+    public double totalSizeError() {
+        return Z_95 * Math.sqrt(sizeVariance);
+    }
+
+    /**
+     * Answer the number of arrays that were sampled instead of walked completely.
+     *
+     * @return number of sampled arrays
+     */
+    public long sampledArrays() {
+        return sampledArrays;
+    }
+
+    /**
+     * Answer if the estimate is exact, that is, nothing was sampled.
+     *
+     * @return true, if estimate is exact
+     */
+    public boolean isExact() {
+        return sampledArrays == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d (+-%.0f) objects, %d (+-%.0f) bytes",
+                totalCount(), totalCountError(), totalSize(), totalSizeError());
+    }
+}
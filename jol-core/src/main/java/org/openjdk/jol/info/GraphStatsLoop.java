@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.IdentitySet;
+
+/**
+ * The walk loop shared by the statistics walkers. Takes the pending objects from
+ * the work list, follows their references within the walk limits, and reports
+ * the newly discovered objects to the {@link Sink}.
+ * <p>
+ * The loop keeps no per-walk state besides the array scratch space and the
+ * countdown to the next time check, so the walkers can reuse it across walks
+ * without allocating. The countdown carries over between the calls, so that
+ * the walks driven in small steps still check the time.
+ */
+final class GraphStatsLoop {
+
+    /**
+     * Receives the counts from the walk loop.
+     */
+    interface Sink {
+
+        long count();
+
+        long size();
+
+        /**
+         * Count the newly discovered object.
+         *
+         * @param o object
+         * @param size object size
+         * @param depth object depth, roots are at depth 0
+         * @param parent object that references this one, or null for roots
+         * @param field referencing field name, or null for array elements and roots
+         * @param index referencing array index, or -1 for fields and roots
+         */
+        void add(Object o, long size, int depth, Object parent, String field, int index);
+
+        /**
+         * Mark the walk truncated, and continue.
+         */
+        void truncate();
+
+        /**
+         * Mark the walk truncated, and stop it.
+         */
+        void stop();
+
+        /**
+         * Answer where to record the references to the boundary objects.
+         *
+         * @return external edges, or null to skip recording
+         */
+        ExternalEdges edges();
+    }
+
+    private final WalkLimits limits;
+    private ArrayBlock block;
+    private int untilTimeCheck = WalkLimits.TIME_CHECK_INTERVAL;
+
+    GraphStatsLoop(WalkLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Adds the root object, unless it is visited already.
+     *
+     * @return false, if the limits stopped the walk
+     */
+    boolean addRoot(Object root, IdentitySet visited, WorkList s, Sink sink) {
+        if (visited.add(root)) {
+            long size = AbstractGraphWalker.sizeOf(root);
+            if (!limits.admits(sink.count(), sink.size(), size)) {
+                sink.stop();
+                return false;
+            }
+            sink.add(root, size, 0, null, null, -1);
+            s.push(root, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Processes the pending objects until the work list is empty, the limits stop
+     * the walk, {@code maxObjects} objects are processed, or, if {@code timed},
+     * the step deadline passes.
+     *
+     * @return number of processed objects
+     */
+    long run(IdentitySet visited, WorkList s, Sink sink, long deadline,
+             long maxObjects, long stepDeadline, boolean timed) {
+        long processed = 0;
+
+        if (!s.isEmpty()) {
+            // Steps can be shorter than the check interval, check on entry too.
+            if (limits.expired(deadline)) {
+                sink.stop();
+                return processed;
+            }
+            if (timed && System.nanoTime() - stepDeadline > 0) {
+                return processed;
+            }
+        }
+
+        walk:
+        while (!s.isEmpty() && processed < maxObjects) {
+            if (--untilTimeCheck == 0) {
+                untilTimeCheck = WalkLimits.TIME_CHECK_INTERVAL;
+                if (limits.expired(deadline)) {
+                    sink.stop();
+                    break;
+                }
+                if (timed && System.nanoTime() - stepDeadline > 0) {
+                    break;
+                }
+            }
+
+            Object o = s.pop();
+            int depth = s.lastDepth() + 1;
+            Class<?> cl = o.getClass();
+            processed++;
+
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) {
+                // Nothing to do here
+                continue;
+            }
+
+            if (cl.isArray()) {
+                Object[] arr = (Object[]) o;
+
+                if (arr.length >= ArrayBlock.MIN_ARRAY_LENGTH) {
+                    if (block == null) {
+                        block = new ArrayBlock();
+                    }
+                    ExternalEdges edges = (limits.boundary() != null) ? sink.edges() : null;
+                    for (int from = 0; from < arr.length; from += ArrayBlock.SIZE) {
+                        block.gather(arr, from, limits, edges, visited);
+                        if (!limits.admitsDepth(depth)) {
+                            if (block.hasUnvisited(visited)) {
+                                sink.truncate();
+                            }
+                            block.clear();
+                            continue;
+                        }
+                        int added = block.addTo(visited);
+                        for (int k = 0; k < added; k++) {
+                            Object e = block.added(k);
+                            long size = AbstractGraphWalker.sizeOf(e);
+                            if (!limits.admits(sink.count(), sink.size(), size)) {
+                                block.clear();
+                                sink.stop();
+                                break walk;
+                            }
+                            sink.add(e, size, depth, o, null, block.addedIndex(k));
+                            s.push(e, depth);
+                        }
+                        block.clear();
+                    }
+                    continue;
+                }
+
+                for (int i = 0; i < arr.length; i++) {
+                    Object e = arr[i];
+                    if (e == null) continue;
+                    if (limits.isBoundary(e)) {
+                        ExternalEdges edges = sink.edges();
+                        if (edges != null) {
+                            edges.add(e, visited.add(e));
+                        }
+                        continue;
+                    }
+                    if (!limits.admitsDepth(depth)) {
+                        if (!visited.contains(e)) {
+                            sink.truncate();
+                        }
+                        continue;
+                    }
+                    if (visited.add(e)) {
+                        long size = AbstractGraphWalker.sizeOf(e);
+                        if (!limits.admits(sink.count(), sink.size(), size)) {
+                            sink.stop();
+                            break walk;
+                        }
+                        sink.add(e, size, depth, o, null, i);
+                        s.push(e, depth);
+                    }
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    Object e = rfs.value(o, i);
+                    if (e == null) continue;
+                    if (limits.isBoundary(e)) {
+                        ExternalEdges edges = sink.edges();
+                        if (edges != null) {
+                            edges.add(e, visited.add(e));
+                        }
+                        continue;
+                    }
+                    if (!limits.admitsDepth(depth)) {
+                        if (!visited.contains(e)) {
+                            sink.truncate();
+                        }
+                        continue;
+                    }
+                    if (visited.add(e)) {
+                        long size = AbstractGraphWalker.sizeOf(e);
+                        if (!limits.admits(sink.count(), sink.size(), size)) {
+                            sink.stop();
+                            break walk;
+                        }
+                        sink.add(e, size, depth, o, rfs.name(i), -1);
+                        s.push(e, depth);
+                    }
+                }
+            }
+        }
+        return processed;
+    }
+
+}
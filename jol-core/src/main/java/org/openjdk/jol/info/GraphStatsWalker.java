@@ -24,13 +24,10 @@
  */
 package org.openjdk.jol.info;
 
+import org.openjdk.jol.util.AddressIdentityHashSet;
+import org.openjdk.jol.util.IdentitySet;
 import org.openjdk.jol.util.SimpleIdentityHashSet;
-import org.openjdk.jol.util.ObjectUtils;
-import org.openjdk.jol.util.SimpleStack;
-import org.openjdk.jol.vm.VM;
-import org.openjdk.jol.vm.VirtualMachine;
 
-import java.lang.reflect.Field;
 
 /**
  * Walker for graph statistics.
@@ -39,49 +36,203 @@ import java.lang.reflect.Field;
  */
 public class GraphStatsWalker extends AbstractGraphWalker {
 
+    /**
+     * Track the visited objects by their addresses, without installing identity hash codes.
+     * See {@link AddressIdentityHashSet}.
+     */
+    private static final boolean ADDRESS_VISITED_SET = Boolean.getBoolean("jol.addressVisitedSet");
+
+    /**
+     * How many times to restart the walk when the address-keyed visited set
+     * turns out inconsistent due to GC moving objects. After that, the walk
+     * does the final exact pass with {@link SimpleIdentityHashSet}.
+     */
+    static final int MAX_RESTARTS = 10;
+
+    private final WalkLimits limits;
+    private final TraversalOrder order;
+    private final boolean addressVisitedSet;
+
+    public GraphStatsWalker() {
+        this(WalkLimits.none());
+    }
+
+    /**
+     * Walks the graph within the given limits.
+     *
+     * @param limits walk limits
+     */
+    public GraphStatsWalker(WalkLimits limits) {
+        this(limits, TraversalOrder.DEPTH_FIRST);
+    }
+
+    /**
+     * Walks the graph within the given limits, in the given order.
+     * Depth-limited walks always go breadth-first, so that every object
+     * is reached through its shortest path.
+     *
+     * @param limits walk limits
+     * @param order traversal order
+     */
+    public GraphStatsWalker(WalkLimits limits, TraversalOrder order) {
+        this(limits, order, ADDRESS_VISITED_SET);
+    }
+
+    GraphStatsWalker(WalkLimits limits, boolean addressVisitedSet) {
+        this(limits, TraversalOrder.DEPTH_FIRST, addressVisitedSet);
+    }
+
+    GraphStatsWalker(WalkLimits limits, TraversalOrder order, boolean addressVisitedSet) {
+        this.limits = limits;
+        this.order = order;
+        this.addressVisitedSet = addressVisitedSet;
+    }
+
+    WorkList newWorkList() {
+        return WorkList.forLimits(order, limits);
+    }
+
     public GraphStats walk(Object... roots) {
+        return start(roots).finish();
+    }
+
+    /**
+     * Start the resumable walk. The walk does not progress until it is stepped.
+     *
+     * @param roots root instances to start from
+     * @return resumable walk
+     */
+    public ResumableWalk<GraphStats> start(Object... roots) {
         verifyRoots(roots);
+        return new Walk(roots);
+    }
 
-        GraphStats data = new GraphStats();
+    /**
+     * Walks with the given visited set and work list, so that callers can
+     * reuse them across walks. The set is not cleared, and objects that are
+     * already in it are not counted. The exception is {@link AddressIdentityHashSet}
+     * that went inconsistent during the walk: it is cleared for the restart.
+     */
+    GraphStats walk(IdentitySet visited, WorkList work, Object... roots) {
+        verifyRoots(roots);
+        work.clear();
+        return new Walk(visited, work, roots).finish();
+    }
 
-        SimpleIdentityHashSet visited = new SimpleIdentityHashSet();
-        SimpleStack<Object> s = new SimpleStack<>();
-        VirtualMachine vm = VM.current();
+    private class Walk extends ResumableWalk<GraphStats> implements GraphStatsLoop.Sink {
+        private final Object[] roots;
+        private final long deadline = limits.deadline();
+        private final GraphStatsLoop loop = new GraphStatsLoop(limits);
+        private GraphStats data;
+        private IdentitySet visited;
+        private WorkList s;
+        private boolean done;
+        private int restarts;
 
-        for (Object root : roots) {
-            if (visited.add(root)) {
-                data.addRecord(vm.sizeOf(root));
-                s.push(root);
-            }
+        Walk(Object... roots) {
+            this(null, null, roots);
         }
 
-        while (!s.isEmpty()) {
-            Object o = s.pop();
-            Class<?> cl = o.getClass();
+        Walk(IdentitySet visited, WorkList s, Object... roots) {
+            this.roots = roots;
+            this.visited = visited;
+            this.s = s;
+            init();
+        }
 
-            if (cl.isArray()) {
-                if (cl.getComponentType().isPrimitive()) {
-                    // Nothing to do here
-                    continue;
-                }
+        private void init() {
+            data = new GraphStats();
+            done = false;
+            if (visited == null) {
+                visited = addressVisitedSet ? new AddressIdentityHashSet() : new SimpleIdentityHashSet();
+            }
+            if (s == null) {
+                s = newWorkList();
+            }
 
-                for (Object e : (Object[]) o) {
-                    if (e != null && visited.add(e)) {
-                        s.push(e);
-                    }
+            for (Object root : roots) {
+                if (!loop.addRoot(root, visited, s, this)) {
+                    return;
                 }
-            } else {
-                for (Field f : getAllReferenceFields(cl)) {
-                    Object e = ObjectUtils.value(o, f);
-                    if (e != null && visited.add(e)) {
-                        data.addRecord(vm.sizeOf(e));
-                        s.push(e);
+            }
+        }
+
+        @Override
+        public long count() {
+            return data.totalCount();
+        }
+
+        @Override
+        public long size() {
+            return data.totalSize();
+        }
+
+        @Override
+        public void add(Object o, long size, int depth, Object parent, String field, int index) {
+            data.addRecord(size);
+        }
+
+        @Override
+        public void truncate() {
+            data.setTruncated();
+        }
+
+        @Override
+        public void stop() {
+            data.setTruncated();
+            done = true;
+        }
+
+        @Override
+        public ExternalEdges edges() {
+            return data.getExternalEdges();
+        }
+
+        @Override
+        public long discovered() {
+            return data.totalCount();
+        }
+
+        @Override
+        public long pending() {
+            return s.size();
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public GraphStats result() {
+            return data;
+        }
+
+        @Override
+        long run(long maxObjects, long stepDeadline, boolean timed) {
+            long processed = loop.run(visited, s, this, deadline, maxObjects, stepDeadline, timed);
+
+            if (done || s.isEmpty()) {
+                if (visited instanceof AddressIdentityHashSet &&
+                        !((AddressIdentityHashSet) visited).validate()) {
+                    // Some moved objects were counted twice, start over.
+                    // Clear the set in place, it might be the one the caller passed in.
+                    // When GCs keep spoiling the walks, do the last one with the
+                    // identity hash codes, which are not affected by moving objects.
+                    if (restarts < MAX_RESTARTS) {
+                        ((AddressIdentityHashSet) visited).clear();
+                    } else {
+                        visited = new SimpleIdentityHashSet();
                     }
+                    restarts++;
+                    s.clear();
+                    init();
+                } else {
+                    done = true;
                 }
             }
+            return processed;
         }
-
-        return data;
     }
 
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Object graph streaming visitor callback. Unlike {@link GraphVisitor},
+ * receives the object data directly, without any per-object records.
+ *
+ * @see GraphStreamWalker
+ */
+public interface GraphStreamVisitor {
+
+    /**
+     * Visit the discovered object
+     *
+     * @param obj discovered object
+     * @param klass object class
+     * @param size object footprint, bytes
+     * @param depth object depth, roots are at depth 0
+     * @param parent object that references this one, or null for roots
+     * @param field name of the referencing field, or null if referenced from array or a root
+     * @param index index in the referencing array, or -1 if referenced from field or a root
+     */
+    void visit(Object obj, Class<?> klass, long size, int depth, Object parent, String field, int index);
+
+}
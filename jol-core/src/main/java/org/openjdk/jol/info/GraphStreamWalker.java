@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.SimpleIdentityHashSet;
+
+/**
+ * Walker that streams the discovered objects to visitors, without
+ * building the {@link GraphLayout}. Keeps only the visited set and the walk
+ * stack, so the custom aggregations can run over very large graphs with
+ * little extra memory.
+ */
+public class GraphStreamWalker extends AbstractGraphWalker {
+
+    private final GraphStreamVisitor[] visitors;
+    private final WalkLimits limits;
+
+    /**
+     * Walks the entire graph.
+     *
+     * @param visitor visitors to call for every discovered object
+     */
+    public GraphStreamWalker(GraphStreamVisitor... visitor) {
+        this(WalkLimits.none(), visitor);
+    }
+
+    /**
+     * Walks the graph within the given limits.
+     *
+     * @param limits walk limits
+     * @param visitor visitors to call for every discovered object
+     */
+    public GraphStreamWalker(WalkLimits limits, GraphStreamVisitor... visitor) {
+        this.visitors = visitor;
+        this.limits = limits;
+    }
+
+    /**
+     * Walk the graph, calling the visitors for every discovered object.
+     *
+     * @param roots root instances to start from
+     * @return statistics for the walked graph
+     */
+    public GraphStats walk(Object... roots) {
+        verifyRoots(roots);
+
+        Walk w = new Walk();
+        // The visited set is keyed by identity hash codes: the address-keyed set would
+        // need the walk restarts, and the visitors cannot take back what they have seen.
+        SimpleIdentityHashSet visited = new SimpleIdentityHashSet();
+        // Visitors get the depths, track them even without the depth limit.
+        // Depth-limited walks go breadth-first, see WorkList.forLimits.
+        TraversalOrder order = limits.hasDepthLimit() ? TraversalOrder.BREADTH_FIRST : TraversalOrder.DEPTH_FIRST;
+        WorkList s = new WorkList(order, true);
+        GraphStatsLoop loop = new GraphStatsLoop(limits);
+
+        for (Object root : roots) {
+            if (!loop.addRoot(root, visited, s, w)) {
+                return w.data;
+            }
+        }
+        loop.run(visited, s, w, limits.deadline(), Long.MAX_VALUE, 0, false);
+        return w.data;
+    }
+
+    private class Walk implements GraphStatsLoop.Sink {
+        private final GraphStats data = new GraphStats();
+
+        @Override
+        public long count() {
+            return data.totalCount();
+        }
+
+        @Override
+        public long size() {
+            return data.totalSize();
+        }
+
+        @Override
+        public void add(Object o, long size, int depth, Object parent, String field, int index) {
+            data.addRecord(size);
+            Class<?> cl = o.getClass();
+            for (GraphStreamVisitor v : visitors) {
+                v.visit(o, cl, size, depth, parent, field, index);
+            }
+        }
+
+        @Override
+        public void truncate() {
+            data.setTruncated();
+        }
+
+        @Override
+        public void stop() {
+            data.setTruncated();
+        }
+
+        @Override
+        public ExternalEdges edges() {
+            return data.getExternalEdges();
+        }
+    }
+
+}
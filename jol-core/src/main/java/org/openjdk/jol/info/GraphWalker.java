@@ -24,13 +24,8 @@
  */
 package org.openjdk.jol.info;
 
-import org.openjdk.jol.util.ObjectUtils;
 import org.openjdk.jol.util.SimpleIdentityHashSet;
-import org.openjdk.jol.util.SimpleStack;
-import org.openjdk.jol.vm.VM;
-
-import java.lang.reflect.Field;
-import java.util.HashMap;
+import org.openjdk.jol.util.SimpleIntStack;
 
 /**
  * Concrete class to walk object graphs.
@@ -40,80 +35,278 @@ import java.util.HashMap;
 public class GraphWalker extends AbstractGraphWalker {
 
     private final GraphVisitor[] visitors;
-    private final HashMap<Class<?>, Long> sizeCache;
+    private final WalkLimits limits;
 
     public GraphWalker(GraphVisitor... visitor) {
+        this(WalkLimits.none(), visitor);
+    }
+
+    /**
+     * Walks the graph within the given limits.
+     *
+     * @param limits walk limits
+     * @param visitor visitors to call for every discovered object
+     */
+    public GraphWalker(WalkLimits limits, GraphVisitor... visitor) {
         this.visitors = visitor;
-        sizeCache = new HashMap<>();
+        this.limits = limits;
+    }
+
+    private void visit(GraphRecords records, int idx) {
+        if (visitors.length > 0) {
+            GraphPathRecord gpr = records.record(idx);
+            for (GraphVisitor v : visitors) {
+                v.visit(gpr);
+            }
+        }
+    }
+
+    private void visitBatch(GraphRecords records, GraphPathBatch batch, int from, int to) {
+        if (visitors.length > 0 && from < to) {
+            batch.reset(from, to);
+            for (GraphVisitor v : visitors) {
+                if (v instanceof GraphBatchVisitor) {
+                    ((GraphBatchVisitor) v).visitBatch(batch);
+                } else {
+                    for (int idx = from; idx < to; idx++) {
+                        v.visit(records.record(idx));
+                    }
+                }
+            }
+        }
     }
 
     public GraphLayout walk(Object... roots) {
+        return start(roots).finish();
+    }
+
+    /**
+     * Start the resumable walk. The walk does not progress until it is stepped.
+     *
+     * @param roots root instances to start from
+     * @return resumable walk
+     */
+    public ResumableWalk<GraphLayout> start(Object... roots) {
         verifyRoots(roots);
+        return new Walk(roots);
+    }
+
+    private class Walk extends ResumableWalk<GraphLayout> {
+        private final GraphLayout data;
+        private final GraphRecords records;
+        private final SimpleIdentityHashSet visited = new SimpleIdentityHashSet();
+        private final SimpleIntStack s = new SimpleIntStack();
+        // Depth-limited walks go breadth-first, so that every object is reached
+        // through its shortest path. Records are added in discovery order, and
+        // every record is pending once, so the queue is the cursor over records.
+        private final boolean fifo = limits.hasDepthLimit();
+        private int cursor;
+        private final GraphPathBatch batch;
+        private ArrayBlock block;
+        private final long deadline = limits.deadline();
+        // Carries over between the steps, so that short steps still check the time.
+        private int untilTimeCheck = WalkLimits.TIME_CHECK_INTERVAL;
+        private long totalSize;
+        private boolean done;
+
+        Walk(Object... roots) {
+            data = new GraphLayout(roots);
+            records = data.records();
+            batch = new GraphPathBatch(records);
 
-        GraphLayout data = new GraphLayout(roots);
+            int rootId = 1;
+            boolean single = (roots.length == 1);
+            for (Object root : roots) {
+                if (visited.add(root)) {
+                    long size = sizeOf(root);
+                    if (!limits.admits(records.size(), totalSize, size)) {
+                        data.setTruncated();
+                        done = true;
+                        return;
+                    }
+                    totalSize += size;
+                    String label = single ? "" : ("<r" + rootId + ">");
+                    push(records.addField(root, GraphRecords.NO_PARENT, label, 0, size));
+                }
+                rootId++;
+            }
+        }
 
-        SimpleIdentityHashSet visited = new SimpleIdentityHashSet();
-        SimpleStack<GraphPathRecord> s = new SimpleStack<>();
+        @Override
+        public long discovered() {
+            return records.size();
+        }
 
-        int rootId = 1;
-        boolean single = (roots.length == 1);
-        for (Object root : roots) {
-            String label = single ? "" : ("<r" + rootId + ">");
-            GraphPathRecord e = new FieldGraphPathRecord(null, label, 0, root);
-            if (visited.add(root)) {
-                data.addRecord(e);
-                s.push(e);
+        private void push(int idx) {
+            if (!fifo) {
+                s.push(idx);
             }
-            rootId++;
         }
 
-        while (!s.isEmpty()) {
-            GraphPathRecord cGpr = s.pop();
-            Object o = cGpr.obj();
-            Class<?> cl = o.getClass();
+        private boolean hasPending() {
+            return fifo ? (cursor < records.size()) : !s.isEmpty();
+        }
+
+        private int pop() {
+            return fifo ? cursor++ : s.pop();
+        }
+
+        @Override
+        public long pending() {
+            return fifo ? (records.size() - cursor) : s.size();
+        }
 
-            if (cl.isArray()) {
-                if (cl.getComponentType().isPrimitive()) {
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public GraphLayout result() {
+            return data;
+        }
+
+        @Override
+        long run(long maxObjects, long stepDeadline, boolean timed) {
+            long processed = 0;
+
+            if (hasPending()) {
+                // Steps can be shorter than the check interval, check on entry too.
+                if (limits.expired(deadline)) {
+                    data.setTruncated();
+                    done = true;
+                    return processed;
+                }
+                if (timed && System.nanoTime() - stepDeadline > 0) {
+                    return processed;
+                }
+            }
+
+            walk:
+            while (hasPending() && processed < maxObjects) {
+                if (--untilTimeCheck == 0) {
+                    untilTimeCheck = WalkLimits.TIME_CHECK_INTERVAL;
+                    if (limits.expired(deadline)) {
+                        data.setTruncated();
+                        done = true;
+                        break;
+                    }
+                    if (timed && System.nanoTime() - stepDeadline > 0) {
+                        return processed;
+                    }
+                }
+
+                int cIdx = pop();
+                Object o = records.obj(cIdx);
+                int depth = records.depth(cIdx) + 1;
+                Class<?> cl = o.getClass();
+                processed++;
+
+                ClassShape shape = ClassShape.of(cl);
+                if (!shape.hasReferences()) {
                     // Nothing to do here
                     continue;
                 }
 
-                Object[] arr = (Object[]) o;
+                if (cl.isArray()) {
+                    Object[] arr = (Object[]) o;
 
-                for (int i = 0; i < arr.length; i++) {
-                    Object e = arr[i];
-                    if (e != null && visited.add(e)) {
-                        GraphPathRecord gpr = new ArrayGraphPathRecord(cGpr, i, cGpr.depth() + 1, e);
-                        data.addRecord(gpr);
-                        for (GraphVisitor v : visitors) {
-                            v.visit(gpr);
+                    if (arr.length >= ArrayBlock.MIN_ARRAY_LENGTH) {
+                        if (block == null) {
+                            block = new ArrayBlock();
                         }
-                        s.push(gpr);
+                        for (int from = 0; from < arr.length; from += ArrayBlock.SIZE) {
+                            block.gather(arr, from, limits, data.getExternalEdges(), visited);
+                            if (!limits.admitsDepth(depth)) {
+                                if (block.hasUnvisited(visited)) {
+                                    data.setTruncated();
+                                }
+                                block.clear();
+                                continue;
+                            }
+                            int added = block.addTo(visited);
+                            int first = records.size();
+                            for (int k = 0; k < added; k++) {
+                                Object e = block.added(k);
+                                long size = sizeOf(e);
+                                if (!limits.admits(records.size(), totalSize, size)) {
+                                    visitBatch(records, batch, first, records.size());
+                                    block.clear();
+                                    data.setTruncated();
+                                    done = true;
+                                    break walk;
+                                }
+                                totalSize += size;
+                                push(records.addElement(e, cIdx, block.addedIndex(k), depth, size));
+                            }
+                            visitBatch(records, batch, first, records.size());
+                            block.clear();
+                        }
+                        continue;
                     }
-                }
-            } else {
-                Long knownSize = sizeCache.get(cl);
-                if (knownSize == null) {
-                    knownSize = VM.current().sizeOf(o);
-                    sizeCache.put(cl, knownSize);
-                }
-                cGpr.setSize(knownSize);
-
-                for (Field f : getAllReferenceFields(cl)) {
-                    Object e = ObjectUtils.value(o, f);
-                    if (e != null && visited.add(e)) {
-                        GraphPathRecord gpr = new FieldGraphPathRecord(cGpr, f.getName(), cGpr.depth() + 1, e);
-                        data.addRecord(gpr);
-                        for (GraphVisitor v : visitors) {
-                            v.visit(gpr);
+
+                    for (int i = 0; i < arr.length; i++) {
+                        Object e = arr[i];
+                        if (e == null) continue;
+                        if (limits.isBoundary(e)) {
+                            data.getExternalEdges().add(e, visited.add(e));
+                            continue;
+                        }
+                        if (!limits.admitsDepth(depth)) {
+                            if (!visited.contains(e)) {
+                                data.setTruncated();
+                            }
+                            continue;
+                        }
+                        if (visited.add(e)) {
+                            long size = sizeOf(e);
+                            if (!limits.admits(records.size(), totalSize, size)) {
+                                data.setTruncated();
+                                done = true;
+                                break walk;
+                            }
+                            totalSize += size;
+                            int idx = records.addElement(e, cIdx, i, depth, size);
+                            visit(records, idx);
+                            push(idx);
+                        }
+                    }
+                } else {
+                    ReferenceFields rfs = shape.referenceFields();
+                    for (int i = 0; i < rfs.count(); i++) {
+                        Object e = rfs.value(o, i);
+                        if (e == null) continue;
+                        if (limits.isBoundary(e)) {
+                            data.getExternalEdges().add(e, visited.add(e));
+                            continue;
+                        }
+                        if (!limits.admitsDepth(depth)) {
+                            if (!visited.contains(e)) {
+                                data.setTruncated();
+                            }
+                            continue;
+                        }
+                        if (visited.add(e)) {
+                            long size = sizeOf(e);
+                            if (!limits.admits(records.size(), totalSize, size)) {
+                                data.setTruncated();
+                                done = true;
+                                break walk;
+                            }
+                            totalSize += size;
+                            int idx = records.addField(e, cIdx, rfs.name(i), depth, size);
+                            visit(records, idx);
+                            push(idx);
                         }
-                        s.push(gpr);
                     }
                 }
             }
-        }
 
-        return data;
+            if (!hasPending()) {
+                done = true;
+            }
+            return processed;
+        }
     }
 
 }
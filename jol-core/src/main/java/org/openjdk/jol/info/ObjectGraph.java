@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.SimpleIdentityIntMap;
+
+import java.util.Arrays;
+
+/**
+ * Object graph with all the edges, stored in primitive arrays.
+ * <p>
+ * Node {@link #ROOT} is the synthetic root that references all the real roots.
+ * Outgoing edges for every node are stored contiguously in the edge table,
+ * in {@code [edgeStart(n), edgeEnd(n))} range.
+ */
+final class ObjectGraph {
+
+    static final int ROOT = 0;
+
+    private final SimpleIdentityIntMap ids;
+
+    private Object[] objs;
+    private long[] sizes;
+    private int[] edgeStarts;
+    private int[] edgeEnds;
+    private int count;
+
+    private int[] edges;
+    private int edgeCount;
+
+    ObjectGraph() {
+        ids = new SimpleIdentityIntMap();
+        objs = new Object[16];
+        sizes = new long[16];
+        edgeStarts = new int[16];
+        edgeEnds = new int[16];
+        edges = new int[16];
+        count = 1; // synthetic root
+    }
+
+    /**
+     * Finds the node for the object, adding it if not yet present.
+     *
+     * @return node id, or negated (id + 1) if the node was just added
+     */
+    int addNode(Object o, long size) {
+        int id = ids.putIfAbsent(o, count);
+        if (id != SimpleIdentityIntMap.ABSENT) {
+            return id;
+        }
+        if (count == objs.length) {
+            int newLen = count * 2;
+            objs = Arrays.copyOf(objs, newLen);
+            sizes = Arrays.copyOf(sizes, newLen);
+            edgeStarts = Arrays.copyOf(edgeStarts, newLen);
+            edgeEnds = Arrays.copyOf(edgeEnds, newLen);
+        }
+        id = count++;
+        objs[id] = o;
+        sizes[id] = size;
+        return -(id + 1);
+    }
+
+    void startEdges(int node) {
+        edgeStarts[node] = edgeCount;
+        edgeEnds[node] = edgeCount;
+    }
+
+    /**
+     * Adds the edge from the node that had {@link #startEdges(int)} called last.
+     */
+    void addEdge(int from, int to) {
+        if (edgeCount == edges.length) {
+            edges = Arrays.copyOf(edges, edgeCount * 2);
+        }
+        edges[edgeCount++] = to;
+        edgeEnds[from] = edgeCount;
+    }
+
+    int nodeCount() {
+        return count;
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    int id(Object o) {
+        return ids.get(o);
+    }
+
+    Object obj(int node) {
+        return objs[node];
+    }
+
+    long size(int node) {
+        return sizes[node];
+    }
+
+    int edgeStart(int node) {
+        return edgeStarts[node];
+    }
+
+    int edgeEnd(int node) {
+        return edgeEnds[node];
+    }
+
+    int edge(int idx) {
+        return edges[idx];
+    }
+
+}
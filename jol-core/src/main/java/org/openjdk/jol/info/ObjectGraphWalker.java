@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.SimpleIntStack;
+
+/**
+ * Walker that captures all the edges in object graph, not only the
+ * first-discovered ones.
+ */
+class ObjectGraphWalker extends AbstractGraphWalker {
+
+    public ObjectGraph walk(Object... roots) {
+        verifyRoots(roots);
+
+        ObjectGraph g = new ObjectGraph();
+        SimpleIntStack s = new SimpleIntStack();
+
+        g.startEdges(ObjectGraph.ROOT);
+        for (Object root : roots) {
+            int id = g.addNode(root, sizeOf(root));
+            if (id < 0) {
+                id = -id - 1;
+                s.push(id);
+            }
+            g.addEdge(ObjectGraph.ROOT, id);
+        }
+
+        while (!s.isEmpty()) {
+            int node = s.pop();
+            Object o = g.obj(node);
+            Class<?> cl = o.getClass();
+
+            g.startEdges(node);
+
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) {
+                // Nothing to do here
+                continue;
+            }
+
+            if (cl.isArray()) {
+                for (Object e : (Object[]) o) {
+                    if (e == null) continue;
+                    int id = g.id(e);
+                    if (id < 0) {
+                        id = -g.addNode(e, sizeOf(e)) - 1;
+                        s.push(id);
+                    }
+                    g.addEdge(node, id);
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    Object e = rfs.value(o, i);
+                    if (e == null) continue;
+                    int id = g.id(e);
+                    if (id < 0) {
+                        id = -g.addNode(e, sizeOf(e)) - 1;
+                        s.push(id);
+                    }
+                    g.addEdge(node, id);
+                }
+            }
+        }
+
+        return g;
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ChunkedStack;
+import org.openjdk.jol.util.GCEpoch;
+import org.openjdk.jol.util.OffHeapAddressSet;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+/**
+ * Walker for graph statistics that keeps its bookkeeping off the Java heap.
+ * <p>
+ * The visited set holds object addresses in the direct buffer, and the only
+ * references the walker holds are the pending objects, kept in small on-heap
+ * chunks. This way, measuring the very large graph does not inflate the heap
+ * that is being measured.
+ * <p>
+ * Since the visited set has only the addresses, any GC that moves objects
+ * invalidates it. The walker watches the GC epoch, and restarts the walk when
+ * it changes, in the same way {@link GraphLayout} retries address computations.
+ * If the walk cannot complete without GCs in {@link #MAX_TRIES} attempts,
+ * the last attempt runs to completion regardless of GCs, and its result is
+ * marked as {@link GraphStats#isTruncated() truncated}: moved objects might be
+ * counted twice, or missed when other objects moved to their old addresses.
+ * The walker never falls back to the on-heap visited set.
+ */
+public class OffHeapGraphStatsWalker extends AbstractGraphWalker {
+
+    static final int MAX_TRIES = 10;
+
+    /**
+     * Check the GC epoch once in this many objects, to amortize the GC bean reads.
+     * Uses the same interval as deadline checks, so that both are done together.
+     */
+    static final int CHECK_INTERVAL = WalkLimits.TIME_CHECK_INTERVAL;
+
+    private final WalkLimits limits;
+    private final int maxTries;
+    private int tries;
+
+    public OffHeapGraphStatsWalker() {
+        this(WalkLimits.none());
+    }
+
+    /**
+     * Walks the graph within the given limits.
+     *
+     * @param limits walk limits
+     */
+    public OffHeapGraphStatsWalker(WalkLimits limits) {
+        this(limits, MAX_TRIES);
+    }
+
+    OffHeapGraphStatsWalker(WalkLimits limits, int maxTries) {
+        this.limits = limits;
+        this.maxTries = maxTries;
+    }
+
+    /**
+     * Answer the number of attempts the last walk took.
+     *
+     * @return number of attempts
+     */
+    public int lastTries() {
+        return tries;
+    }
+
+    public GraphStats walk(Object... roots) {
+        verifyRoots(roots);
+
+        OffHeapAddressSet visited = new OffHeapAddressSet();
+        tries = 0;
+        while (true) {
+            tries++;
+            boolean last = tries >= maxTries;
+            visited.clear();
+            long epoch = GCEpoch.current();
+            GraphStats data = new GraphStats();
+            if (tryWalk(roots, visited, data, epoch, last) && GCEpoch.current() == epoch) {
+                return data;
+            }
+            if (last) {
+                // GCs keep moving the objects, the last attempt is not exact.
+                data.setTruncated();
+                return data;
+            }
+        }
+    }
+
+    /**
+     * @param last true, if the walk should complete even if GC happens
+     * @return false, if GC happened during the walk, and the walk was abandoned
+     */
+    private boolean tryWalk(Object[] roots, OffHeapAddressSet visited, GraphStats data, long epoch, boolean last) {
+        // Depth-limited walks go breadth-first, see WorkList.forLimits.
+        ChunkedStack<Object> s = limits.hasDepthLimit() ? null : new ChunkedStack<>();
+        WorkList q = limits.hasDepthLimit() ? WorkList.forLimits(TraversalOrder.BREADTH_FIRST, limits) : null;
+        VirtualMachine vm = VM.current();
+        long deadline = limits.deadline();
+
+        for (Object root : roots) {
+            if (visited.add(vm.addressOf(root))) {
+                long size = sizeOf(root);
+                if (!limits.admits(data.totalCount(), data.totalSize(), size)) {
+                    data.setTruncated();
+                    return true;
+                }
+                data.addRecord(size);
+                if (q != null) {
+                    q.push(root, 0);
+                } else {
+                    s.push(root);
+                }
+            }
+        }
+
+        int untilCheck = CHECK_INTERVAL;
+
+        walk:
+        while ((q != null) ? !q.isEmpty() : !s.isEmpty()) {
+            if (--untilCheck == 0) {
+                untilCheck = CHECK_INTERVAL;
+                if (!last && GCEpoch.current() != epoch) {
+                    return false;
+                }
+                if (limits.expired(deadline)) {
+                    data.setTruncated();
+                    break;
+                }
+            }
+
+            Object o;
+            int depth;
+            if (q != null) {
+                o = q.pop();
+                depth = q.lastDepth() + 1;
+            } else {
+                o = s.pop();
+                depth = 1;
+            }
+            Class<?> cl = o.getClass();
+
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) {
+                // Nothing to do here
+                continue;
+            }
+
+            if (cl.isArray()) {
+                for (Object e : (Object[]) o) {
+                    if (e == null) continue;
+                    if (limits.isBoundary(e)) {
+                        data.getExternalEdges().add(e, visited.add(vm.addressOf(e)));
+                        continue;
+                    }
+                    if (!limits.admitsDepth(depth)) {
+                        if (!visited.contains(vm.addressOf(e))) {
+                            data.setTruncated();
+                        }
+                        continue;
+                    }
+                    if (visited.add(vm.addressOf(e))) {
+                        long size = sizeOf(e);
+                        if (!limits.admits(data.totalCount(), data.totalSize(), size)) {
+                            data.setTruncated();
+                            break walk;
+                        }
+                        data.addRecord(size);
+                        if (q != null) {
+                            q.push(e, depth);
+                        } else {
+                            s.push(e);
+                        }
+                    }
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    Object e = rfs.value(o, i);
+                    if (e == null) continue;
+                    if (limits.isBoundary(e)) {
+                        data.getExternalEdges().add(e, visited.add(vm.addressOf(e)));
+                        continue;
+                    }
+                    if (!limits.admitsDepth(depth)) {
+                        if (!visited.contains(vm.addressOf(e))) {
+                            data.setTruncated();
+                        }
+                        continue;
+                    }
+                    if (visited.add(vm.addressOf(e))) {
+                        long size = sizeOf(e);
+                        if (!limits.admits(data.totalCount(), data.totalSize(), size)) {
+                            data.setTruncated();
+                            break walk;
+                        }
+                        data.addRecord(size);
+                        if (q != null) {
+                            q.push(e, depth);
+                        } else {
+                            s.push(e);
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+}
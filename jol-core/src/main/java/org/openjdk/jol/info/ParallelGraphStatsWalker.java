@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ConcurrentIdentityHashSet;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walker for graph statistics, that walks the graph with several threads.
+ * Produces the same statistics as {@link GraphStatsWalker}.
+ */
+public class ParallelGraphStatsWalker extends AbstractGraphWalker {
+
+    /**
+     * Do not split the task work stacks smaller than this.
+     */
+    static final int SPLIT_THRESHOLD = 64;
+
+    /**
+     * Do not split the task work stacks when there are enough queued tasks already.
+     */
+    static final int SURPLUS_THRESHOLD = 2;
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * Walks with the private pool of given parallelism.
+     *
+     * @param parallelism number of threads to walk with
+     */
+    public ParallelGraphStatsWalker(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.pool = null;
+    }
+
+    /**
+     * Walks with the given pool. The pool is not shut down after the walk.
+     *
+     * @param pool pool to walk with
+     */
+    public ParallelGraphStatsWalker(ForkJoinPool pool) {
+        this.parallelism = pool.getParallelism();
+        this.pool = pool;
+    }
+
+    public GraphStats walk(Object... roots) {
+        verifyRoots(roots);
+
+        GraphStats data = new GraphStats();
+
+        ConcurrentIdentityHashSet visited = new ConcurrentIdentityHashSet(parallelism);
+        VirtualMachine vm = VM.current();
+
+        Object[] initial = new Object[Math.max(roots.length, SPLIT_THRESHOLD)];
+        int count = 0;
+        for (Object root : roots) {
+            if (visited.add(root)) {
+                data.addRecord(sizeOf(root));
+                initial[count++] = root;
+            }
+        }
+
+        ForkJoinPool p = (pool != null) ? pool : new ForkJoinPool(parallelism);
+        try {
+            data.merge(p.invoke(new WalkTask(visited, initial, count)));
+        } finally {
+            if (pool == null) {
+                p.shutdown();
+            }
+        }
+
+        return data;
+    }
+
+    private class WalkTask extends RecursiveTask<GraphStats> {
+        private final ConcurrentIdentityHashSet visited;
+        private Object[] stack;
+        private int size;
+
+        WalkTask(ConcurrentIdentityHashSet visited, Object[] stack, int size) {
+            this.visited = visited;
+            this.stack = stack;
+            this.size = size;
+        }
+
+        private void push(Object o) {
+            if (size == stack.length) {
+                stack = Arrays.copyOf(stack, size * 2);
+            }
+            stack[size++] = o;
+        }
+
+        private WalkTask split() {
+            // Give away the bottom half of the stack: these are the oldest
+            // entries, which are likely to have the largest subgraphs.
+            int half = size / 2;
+            Object[] away = new Object[Math.max(half * 2, SPLIT_THRESHOLD)];
+            System.arraycopy(stack, 0, away, 0, half);
+            System.arraycopy(stack, half, stack, 0, size - half);
+            Arrays.fill(stack, size - half, size, null);
+            size -= half;
+            return new WalkTask(visited, away, half);
+        }
+
+        @Override
+        protected GraphStats compute() {
+            GraphStats data = new GraphStats();
+            List<WalkTask> forked = new ArrayList<>();
+            VirtualMachine vm = VM.current();
+
+            while (size > 0) {
+                Object o = stack[--size];
+                stack[size] = null;
+                Class<?> cl = o.getClass();
+
+                ClassShape shape = ClassShape.of(cl);
+                if (!shape.hasReferences()) {
+                    // Nothing to do here
+                    continue;
+                }
+
+                if (cl.isArray()) {
+                    for (Object e : (Object[]) o) {
+                        if (e != null && visited.add(e)) {
+                            data.addRecord(sizeOf(e));
+                            push(e);
+                        }
+                    }
+                } else {
+                    ReferenceFields rfs = shape.referenceFields();
+                    for (int i = 0; i < rfs.count(); i++) {
+                        Object e = rfs.value(o, i);
+                        if (e != null && visited.add(e)) {
+                            data.addRecord(sizeOf(e));
+                            push(e);
+                        }
+                    }
+                }
+
+                if (size >= SPLIT_THRESHOLD && getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD) {
+                    WalkTask t = split();
+                    t.fork();
+                    forked.add(t);
+                }
+            }
+
+            for (WalkTask t : forked) {
+                data.merge(t.join());
+            }
+            return data;
+        }
+    }
+
+}
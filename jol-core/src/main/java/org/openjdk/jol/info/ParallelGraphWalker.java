@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ConcurrentIdentityHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concrete class to walk object graphs with several threads.
+ * Discovers the same objects as {@link GraphWalker}, but the paths
+ * to the objects may differ, depending on which thread got to them first.
+ * Visitors are called after the walk completes, in no particular order.
+ */
+public class ParallelGraphWalker extends AbstractGraphWalker {
+
+    /**
+     * Chunk ID for the root records, that are added to the layout directly.
+     */
+    private static final int ROOT_CHUNK = 0;
+
+    private final GraphVisitor[] visitors;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * Walks with the private pool of given parallelism.
+     *
+     * @param parallelism number of threads to walk with
+     * @param visitor visitors to call for every discovered object
+     */
+    public ParallelGraphWalker(int parallelism, GraphVisitor... visitor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be positive: " + parallelism);
+        }
+        this.visitors = visitor;
+        this.parallelism = parallelism;
+        this.pool = null;
+    }
+
+    /**
+     * Walks with the given pool. The pool is not shut down after the walk.
+     *
+     * @param pool pool to walk with
+     * @param visitor visitors to call for every discovered object
+     */
+    public ParallelGraphWalker(ForkJoinPool pool, GraphVisitor... visitor) {
+        this.visitors = visitor;
+        this.parallelism = pool.getParallelism();
+        this.pool = pool;
+    }
+
+    private static long ref(int chunk, int idx) {
+        return ((long) chunk << 32) | (idx & 0xFFFFFFFFL);
+    }
+
+    private static int refChunk(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int refIndex(long ref) {
+        return (int) ref;
+    }
+
+    public GraphLayout walk(Object... roots) {
+        verifyRoots(roots);
+
+        GraphLayout data = new GraphLayout(roots);
+        GraphRecords records = data.records();
+
+        ConcurrentIdentityHashSet visited = new ConcurrentIdentityHashSet(parallelism);
+        Queue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+        AtomicInteger chunkIds = new AtomicInteger(ROOT_CHUNK + 1);
+
+        WalkTask root = new WalkTask(visited, chunks, chunkIds, ParallelGraphStatsWalker.SPLIT_THRESHOLD);
+
+        int rootId = 1;
+        boolean single = (roots.length == 1);
+        for (Object r : roots) {
+            if (visited.add(r)) {
+                String label = single ? "" : ("<r" + rootId + ">");
+                int idx = records.addField(r, GraphRecords.NO_PARENT, label, 0, sizeOf(r));
+                root.push(r, ref(ROOT_CHUNK, idx), 0);
+            }
+            rootId++;
+        }
+
+        ForkJoinPool p = (pool != null) ? pool : new ForkJoinPool(parallelism);
+        try {
+            p.invoke(root);
+        } finally {
+            if (pool == null) {
+                p.shutdown();
+            }
+        }
+
+        // Merge the chunks: chunk records go after the root records,
+        // in chunk ID order. Remap the parent references to record indexes.
+        Chunk[] sorted = new Chunk[chunkIds.get()];
+        for (Chunk c : chunks) {
+            sorted[c.id] = c;
+        }
+
+        int[] bases = new int[sorted.length];
+        int base = records.size();
+        for (int c = ROOT_CHUNK + 1; c < sorted.length; c++) {
+            bases[c] = base;
+            base += sorted[c].size;
+        }
+
+        int firstDiscovered = records.size();
+        for (int c = ROOT_CHUNK + 1; c < sorted.length; c++) {
+            Chunk chunk = sorted[c];
+            for (int i = 0; i < chunk.size; i++) {
+                long pRef = chunk.parents[i];
+                int parent = bases[refChunk(pRef)] + refIndex(pRef);
+                if (chunk.names[i] != null) {
+                    records.addField(chunk.objs[i], parent, chunk.names[i], chunk.depths[i], chunk.sizes[i]);
+                } else {
+                    records.addElement(chunk.objs[i], parent, chunk.indexes[i], chunk.depths[i], chunk.sizes[i]);
+                }
+            }
+        }
+
+        // Visit the discovered records only when the layout is assembled,
+        // so that visitors get the complete paths.
+        if (visitors.length > 0) {
+            for (int i = firstDiscovered; i < records.size(); i++) {
+                GraphPathRecord gpr = records.record(i);
+                for (GraphVisitor v : visitors) {
+                    v.visit(gpr);
+                }
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Records discovered by a single task.
+     */
+    private static class Chunk {
+        private final int id;
+        private Object[] objs;
+        private long[] parents;
+        private int[] depths;
+        private long[] sizes;
+        private String[] names;
+        private int[] indexes;
+        private int size;
+
+        Chunk(int id) {
+            this.id = id;
+            int cap = ParallelGraphStatsWalker.SPLIT_THRESHOLD;
+            objs = new Object[cap];
+            parents = new long[cap];
+            depths = new int[cap];
+            sizes = new long[cap];
+            names = new String[cap];
+            indexes = new int[cap];
+        }
+
+        int add(Object obj, long parent, int depth, long objSize, String name, int index) {
+            if (size == objs.length) {
+                int cap = objs.length * 2;
+                objs = Arrays.copyOf(objs, cap);
+                parents = Arrays.copyOf(parents, cap);
+                depths = Arrays.copyOf(depths, cap);
+                sizes = Arrays.copyOf(sizes, cap);
+                names = Arrays.copyOf(names, cap);
+                indexes = Arrays.copyOf(indexes, cap);
+            }
+            int idx = this.size++;
+            objs[idx] = obj;
+            parents[idx] = parent;
+            depths[idx] = depth;
+            sizes[idx] = objSize;
+            names[idx] = name;
+            indexes[idx] = index;
+            return idx;
+        }
+    }
+
+    private class WalkTask extends RecursiveAction {
+        private final ConcurrentIdentityHashSet visited;
+        private final Queue<Chunk> chunks;
+        private final AtomicInteger chunkIds;
+
+        private Object[] stackObjs;
+        private long[] stackRefs;
+        private int[] stackDepths;
+        private int size;
+
+        WalkTask(ConcurrentIdentityHashSet visited, Queue<Chunk> chunks, AtomicInteger chunkIds, int capacity) {
+            this.visited = visited;
+            this.chunks = chunks;
+            this.chunkIds = chunkIds;
+            this.stackObjs = new Object[capacity];
+            this.stackRefs = new long[capacity];
+            this.stackDepths = new int[capacity];
+        }
+
+        void push(Object o, long ref, int depth) {
+            if (size == stackObjs.length) {
+                int cap = size * 2;
+                stackObjs = Arrays.copyOf(stackObjs, cap);
+                stackRefs = Arrays.copyOf(stackRefs, cap);
+                stackDepths = Arrays.copyOf(stackDepths, cap);
+            }
+            stackObjs[size] = o;
+            stackRefs[size] = ref;
+            stackDepths[size] = depth;
+            size++;
+        }
+
+        private WalkTask split() {
+            // Give away the bottom half of the stack: these are the oldest
+            // entries, which are likely to have the largest subgraphs.
+            int half = size / 2;
+            WalkTask t = new WalkTask(visited, chunks, chunkIds, Math.max(half * 2, ParallelGraphStatsWalker.SPLIT_THRESHOLD));
+            System.arraycopy(stackObjs, 0, t.stackObjs, 0, half);
+            System.arraycopy(stackRefs, 0, t.stackRefs, 0, half);
+            System.arraycopy(stackDepths, 0, t.stackDepths, 0, half);
+            t.size = half;
+
+            System.arraycopy(stackObjs, half, stackObjs, 0, size - half);
+            System.arraycopy(stackRefs, half, stackRefs, 0, size - half);
+            System.arraycopy(stackDepths, half, stackDepths, 0, size - half);
+            Arrays.fill(stackObjs, size - half, size, null);
+            size -= half;
+            return t;
+        }
+
+        private void discovered(Chunk chunk, Object e, long parent, int depth, String name, int index) {
+            int idx = chunk.add(e, parent, depth, sizeOf(e), name, index);
+            push(e, ref(chunk.id, idx), depth);
+        }
+
+        @Override
+        protected void compute() {
+            Chunk chunk = new Chunk(chunkIds.getAndIncrement());
+            chunks.add(chunk);
+
+            List<WalkTask> forked = new ArrayList<>();
+
+            while (size > 0) {
+                size--;
+                Object o = stackObjs[size];
+                long cRef = stackRefs[size];
+                int depth = stackDepths[size] + 1;
+                stackObjs[size] = null;
+                Class<?> cl = o.getClass();
+
+                ClassShape shape = ClassShape.of(cl);
+                if (!shape.hasReferences()) {
+                    // Nothing to do here
+                    continue;
+                }
+
+                if (cl.isArray()) {
+                    Object[] arr = (Object[]) o;
+
+                    for (int i = 0; i < arr.length; i++) {
+                        Object e = arr[i];
+                        if (e != null && visited.add(e)) {
+                            discovered(chunk, e, cRef, depth, null, i);
+                        }
+                    }
+                } else {
+                    ReferenceFields rfs = shape.referenceFields();
+                    for (int i = 0; i < rfs.count(); i++) {
+                        Object e = rfs.value(o, i);
+                        if (e != null && visited.add(e)) {
+                            discovered(chunk, e, cRef, depth, rfs.name(i), -1);
+                        }
+                    }
+                }
+
+                if (size >= ParallelGraphStatsWalker.SPLIT_THRESHOLD &&
+                        getSurplusQueuedTaskCount() < ParallelGraphStatsWalker.SURPLUS_THRESHOLD) {
+                    WalkTask t = split();
+                    t.fork();
+                    forked.add(t);
+                }
+            }
+
+            for (WalkTask t : forked) {
+                t.join();
+            }
+        }
+    }
+
+}
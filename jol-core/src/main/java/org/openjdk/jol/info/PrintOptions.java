@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Options for printing the large layouts, see {@link GraphLayout#toPrintable(java.io.Writer, PrintOptions)}
+ * and {@link GraphLayout#toFootprint(java.io.Writer, PrintOptions)}.
+ * Instances are immutable, {@code with*} methods produce new options.
+ */
+public final class PrintOptions {
+
+    private static final PrintOptions ALL = new PrintOptions(Long.MAX_VALUE, 0, false);
+
+    private final long maxRows;
+    private final long minSize;
+    private final boolean gapSummary;
+
+    private PrintOptions(long maxRows, long minSize, boolean gapSummary) {
+        this.maxRows = maxRows;
+        this.minSize = minSize;
+        this.gapSummary = gapSummary;
+    }
+
+    /**
+     * Answer the options that print everything, row by row.
+     *
+     * @return default options
+     */
+    public static PrintOptions all() {
+        return ALL;
+    }
+
+    /**
+     * Limit the number of printed rows. Objects or classes past the limit
+     * are summarized in a single row. Footprint keeps the largest classes.
+     *
+     * @param rows maximum number of rows
+     * @return new options
+     */
+    public PrintOptions withMaxRows(long rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Row count should be non-negative: " + rows);
+        }
+        return new PrintOptions(rows, minSize, gapSummary);
+    }
+
+    /**
+     * Print only the objects, or the classes in footprint, that take at least
+     * the given number of bytes. Consecutive smaller objects, or all smaller
+     * classes, are summarized in a single row.
+     *
+     * @param bytes minimum size, bytes
+     * @return new options
+     */
+    public PrintOptions withMinSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Byte count should be non-negative: " + bytes);
+        }
+        return new PrintOptions(maxRows, bytes, gapSummary);
+    }
+
+    /**
+     * Summarize the gaps between the objects at the end of the printout,
+     * instead of printing a row for every gap.
+     *
+     * @return new options
+     */
+    public PrintOptions withGapSummary() {
+        return new PrintOptions(maxRows, minSize, true);
+    }
+
+    /**
+     * @return maximum number of rows
+     */
+    public long maxRows() {
+        return maxRows;
+    }
+
+    /**
+     * @return minimum size of printed objects or classes, bytes
+     */
+    public long minSize() {
+        return minSize;
+    }
+
+    /**
+     * @return true, if gaps are summarized instead of printed one by one
+     */
+    public boolean gapSummary() {
+        return gapSummary;
+    }
+
+    @Override
+    public String toString() {
+        return "PrintOptions{" +
+                "maxRows=" + maxRows +
+                ", minSize=" + minSize +
+                ", gapSummary=" + gapSummary +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ObjectUtils;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reference fields of the class, along with the way to read them.
+ * The access strategy is decided once per class: when the VM is able
+ * to tell the offsets for all reference fields, they are read directly
+ * at these offsets. Otherwise, they are read with reflection.
+ */
+final class ReferenceFields {
+
+    private final VirtualMachine vm;
+    private final String[] names;
+    private final long[] offsets;
+    private final Field[] fields;
+
+    ReferenceFields(Field[] fs) {
+        vm = VM.current();
+        names = new String[fs.length];
+        for (int i = 0; i < fs.length; i++) {
+            names[i] = fs[i].getName();
+        }
+
+        long[] offs = new long[fs.length];
+        try {
+            for (int i = 0; i < fs.length; i++) {
+                offs[i] = vm.fieldOffset(fs[i]);
+            }
+        } catch (Exception e) {
+            // Cannot get the offsets for some of the fields. Fall back to reflection
+            // for the entire class.
+            offs = null;
+        }
+
+        if (offs != null) {
+            offsets = offs;
+            fields = null;
+        } else {
+            offsets = null;
+            fields = fs;
+
+            // The walkers would access through these fields.
+            // Try to make them accessible right now.
+            for (Field f : fs) {
+                try {
+                    f.setAccessible(true);
+                } catch (Exception e) {
+                    // No biggie, walker code would try something else.
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer the number of reference fields.
+     *
+     * @return number of reference fields
+     */
+    int count() {
+        return names.length;
+    }
+
+    /**
+     * Answer the name of the reference field.
+     *
+     * @param idx field index
+     * @return field name
+     */
+    String name(int idx) {
+        return names[idx];
+    }
+
+    /**
+     * Read the reference field from the object.
+     *
+     * @param o object to read from
+     * @param idx field index
+     * @return field value
+     */
+    Object value(Object o, int idx) {
+        if (offsets != null) {
+            return vm.getObject(o, offsets[idx]);
+        } else {
+            return ObjectUtils.value(o, fields[idx]);
+        }
+    }
+
+}
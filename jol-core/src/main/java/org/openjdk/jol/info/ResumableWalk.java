@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object graph walk that can be suspended and resumed. Each step walks
+ * a bounded part of the graph, keeping the walk state between the steps,
+ * so that walking the large graph can be spread over many short time slices.
+ * <p>
+ * Note that the graph may change between the steps. The walk would then
+ * reflect some mix of the old and new graph states, in the same way
+ * the concurrent modification of the graph affects the regular walks.
+ *
+ * @param <T> walk result type
+ * @see GraphWalker#start(Object...)
+ * @see GraphStatsWalker#start(Object...)
+ */
+public abstract class ResumableWalk<T> {
+
+    private long processed;
+
+    /**
+     * Walk at most the given number of objects.
+     *
+     * @param maxObjects maximum number of objects to process in this step
+     * @return true, if the walk is not done yet
+     */
+    public final boolean step(long maxObjects) {
+        if (maxObjects < 0) {
+            throw new IllegalArgumentException("Object count should be non-negative: " + maxObjects);
+        }
+        if (!isDone()) {
+            processed += run(maxObjects, Long.MAX_VALUE, false);
+        }
+        return !isDone();
+    }
+
+    /**
+     * Walk for at most the given time. The time is checked periodically,
+     * so the step can overshoot it a little.
+     *
+     * @param time maximum time for this step
+     * @param unit time unit
+     * @return true, if the walk is not done yet
+     */
+    public final boolean step(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Time should be non-negative: " + time);
+        }
+        if (!isDone()) {
+            processed += run(Long.MAX_VALUE, System.nanoTime() + unit.toNanos(time), true);
+        }
+        return !isDone();
+    }
+
+    /**
+     * Walk until the end.
+     *
+     * @return walk result
+     */
+    public final T finish() {
+        while (step(Long.MAX_VALUE)) {
+            // Walk can restart, keep stepping
+        }
+        return result();
+    }
+
+    /**
+     * Answer the number of objects processed so far, that is, objects
+     * whose references were followed.
+     *
+     * @return processed object count
+     */
+    public final long processed() {
+        return processed;
+    }
+
+    /**
+     * Answer the number of objects discovered so far.
+     *
+     * @return discovered object count
+     */
+    public abstract long discovered();
+
+    /**
+     * Answer the number of discovered objects that are not yet processed.
+     *
+     * @return pending object count
+     */
+    public abstract long pending();
+
+    /**
+     * Answer if the walk is complete, or was stopped by the walk limits.
+     *
+     * @return true, if walk is done
+     */
+    public abstract boolean isDone();
+
+    /**
+     * Answer the walk result. Until the walk is done, the result covers
+     * only the part of the graph discovered so far.
+     *
+     * @return walk result
+     */
+    public abstract T result();
+
+    /**
+     * Process the pending objects.
+     *
+     * @param maxObjects maximum number of objects to process
+     * @param stepDeadline deadline, in {@link System#nanoTime()} terms
+     * @param timed true, if deadline should be checked
+     * @return number of processed objects
+     */
+    abstract long run(long maxObjects, long stepDeadline, boolean timed);
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.ClearableIdentityHashSet;
+
+/**
+ * Walker for graph statistics that keeps its visited set and work list
+ * between the walks. The tables are cleared after every walk in time
+ * proportional to the number of visited objects, and retain their capacity,
+ * so repeated measurements of similar graphs do not re-grow them.
+ * <p>
+ * {@link #measure(Object)} does not allocate once the tables have grown
+ * to fit the graph. The walker is not thread-safe.
+ */
+public class ReusableGraphStatsWalker extends AbstractGraphWalker {
+
+    private final WalkLimits limits;
+    private final ClearableIdentityHashSet visited = new ClearableIdentityHashSet();
+    private final WorkList s;
+    private final GraphStatsLoop loop;
+    private final Counts counts = new Counts();
+
+    public ReusableGraphStatsWalker() {
+        this(WalkLimits.none());
+    }
+
+    /**
+     * Walks the graph within the given limits.
+     *
+     * @param limits walk limits
+     */
+    public ReusableGraphStatsWalker(WalkLimits limits) {
+        this.limits = limits;
+        this.s = WorkList.forLimits(TraversalOrder.DEPTH_FIRST, limits);
+        this.loop = new GraphStatsLoop(limits);
+    }
+
+    public GraphStats walk(Object... roots) {
+        verifyRoots(roots);
+        GraphStats data = new GraphStats();
+        begin(data);
+        try {
+            for (Object root : roots) {
+                addRoot(root);
+            }
+            drain();
+        } finally {
+            reset();
+        }
+        data.addRecords(counts.count, counts.size);
+        if (counts.truncated) {
+            data.setTruncated();
+        }
+        return data;
+    }
+
+    /**
+     * Measure the graph reachable from the given root. Counts and truncation
+     * status for this walk are available through {@link #lastCount()} and
+     * {@link #lastTruncated()} after this call. External edges are not recorded.
+     *
+     * @param root root instance to start from
+     * @return total instance footprint, bytes
+     */
+    public long measure(Object root) {
+        if (root == null) {
+            throw new IllegalArgumentException("Root is null");
+        }
+        return measure(root, null);
+    }
+
+    /**
+     * Measure the graph reachable from both roots, counting the shared objects once.
+     * The second root is optional.
+     */
+    long measure(Object root, Object other) {
+        begin(null);
+        try {
+            addRoot(root);
+            if (other != null) {
+                addRoot(other);
+            }
+            drain();
+        } finally {
+            reset();
+        }
+        return counts.size;
+    }
+
+    /**
+     * Answer the instance count from the last {@link #measure(Object)}
+     *
+     * @return total instance count
+     */
+    public long lastCount() {
+        return counts.count;
+    }
+
+    /**
+     * Answer the instance footprint from the last {@link #measure(Object)}
+     *
+     * @return total instance footprint, bytes
+     */
+    public long lastSize() {
+        return counts.size;
+    }
+
+    /**
+     * Answer if the last {@link #measure(Object)} was stopped early by the walk limits.
+     *
+     * @return true, if the last measurement is truncated
+     */
+    public boolean lastTruncated() {
+        return counts.truncated;
+    }
+
+    /**
+     * Answer the current capacity of the visited set, which is retained between walks.
+     *
+     * @return visited set capacity
+     */
+    int visitedCapacity() {
+        return visited.capacity();
+    }
+
+    private void begin(GraphStats data) {
+        counts.count = 0;
+        counts.size = 0;
+        counts.truncated = false;
+        counts.stopped = false;
+        counts.data = data;
+    }
+
+    private void reset() {
+        visited.clear();
+        s.clear();
+        counts.data = null;
+    }
+
+    private void addRoot(Object root) {
+        if (!counts.stopped) {
+            loop.addRoot(root, visited, s, counts);
+        }
+    }
+
+    private void drain() {
+        if (!counts.stopped) {
+            loop.run(visited, s, counts, limits.deadline(), Long.MAX_VALUE, 0, false);
+        }
+    }
+
+    /**
+     * Plain counters for the walk loop, so that measurements do not allocate.
+     */
+    private static final class Counts implements GraphStatsLoop.Sink {
+        long count;
+        long size;
+        boolean truncated;
+        boolean stopped;
+
+        // Receives the external edges in walk(), null in measure()
+        GraphStats data;
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void add(Object o, long size, int depth, Object parent, String field, int index) {
+            this.count++;
+            this.size += size;
+        }
+
+        @Override
+        public void truncate() {
+            truncated = true;
+        }
+
+        @Override
+        public void stop() {
+            truncated = true;
+            stopped = true;
+        }
+
+        @Override
+        public ExternalEdges edges() {
+            return (data != null) ? data.getExternalEdges() : null;
+        }
+    }
+
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.util.SimpleIdentityHashSet;
+import org.openjdk.jol.util.SimpleIdentityIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Walker for estimated graph statistics.
+ * <p>
+ * Reference arrays longer than the sampling threshold are not walked completely.
+ * They are deferred until the rest of the graph is walked, so the objects that are
+ * reachable from outside the array, including the back-references from the elements
+ * to their owners, are counted exactly. Then, the array elements are counted exactly,
+ * along with the objects of the same classes that are linked from them, like the
+ * chained or linked map entries: these form the <i>spine</i> of the array. Finally,
+ * a simple random sample of the spine nodes is walked, and the footprint that each
+ * sampled node owns is scaled up by the sampling ratio.
+ * <p>
+ * The walk from the sampled node stops at the spine and at the objects counted
+ * before. The objects that are reached from several sampled nodes are shared
+ * between the nodes, and they are counted once, without scaling, along with the
+ * objects reachable through them. This keeps the estimate exact for graphs without
+ * large arrays, and close for large collections, including the ones that link their
+ * elements together. The shared objects that only one of the samples happens to
+ * reach are still scaled, so the estimate for heavily cross-linked elements can be
+ * somewhat higher than the actual footprint.
+ */
+public class SamplingGraphStatsWalker extends AbstractGraphWalker {
+
+    static final int DEFAULT_THRESHOLD = 4096;
+    static final int DEFAULT_SAMPLES = 1024;
+
+    private final int threshold;
+    private final int samples;
+    private final Random random;
+
+    public SamplingGraphStatsWalker() {
+        this(DEFAULT_THRESHOLD, DEFAULT_SAMPLES, new Random());
+    }
+
+    /**
+     * Walks the graph, sampling the large arrays.
+     *
+     * @param threshold arrays longer than this are sampled
+     * @param samples number of elements to sample from each large array
+     * @param random source of randomness for sampling
+     */
+    public SamplingGraphStatsWalker(int threshold, int samples, Random random) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Number of samples should be positive: " + samples);
+        }
+        if (threshold < samples) {
+            throw new IllegalArgumentException("Threshold should not be lower than number of samples: " + threshold);
+        }
+        this.threshold = threshold;
+        this.samples = samples;
+        this.random = random;
+    }
+
+    public GraphStatsEstimate walk(Object... roots) {
+        verifyRoots(roots);
+
+        Walk w = new Walk();
+        for (Object root : roots) {
+            w.discover(root, 1.0);
+        }
+        w.drain();
+        for (int i = 0; i < w.deferred.size(); i++) {
+            w.sample(w.deferred.get(i), w.deferredWeights.get(i));
+        }
+        return w.data;
+    }
+
+    private class Walk {
+        private final GraphStatsEstimate data = new GraphStatsEstimate();
+        private final SimpleIdentityHashSet visited = new SimpleIdentityHashSet();
+
+        // Pending objects for the exact walk
+        private Object[] objs = new Object[16];
+        private double[] weights = new double[16];
+        private int size;
+
+        // Large arrays, sampled after the exact walk
+        private final List<Object[]> deferred = new ArrayList<>();
+        private final List<Double> deferredWeights = new ArrayList<>();
+
+        // Objects discovered from the sampled nodes of the current array
+        private SimpleIdentityIntMap sampledIds;
+        private Object[] sObjs;
+        private long[] sSizes;
+        private int[] sParents;
+        private int[] sOwners;
+        private boolean[] sShared;
+        private int[] sMarks;
+        private int sCount;
+        private int mark;
+
+        void discover(Object e, double weight) {
+            if (e != null && visited.add(e)) {
+                data.addRecord(weight, sizeOf(e));
+                if (size == objs.length) {
+                    objs = Arrays.copyOf(objs, size * 2);
+                    weights = Arrays.copyOf(weights, size * 2);
+                }
+                objs[size] = e;
+                weights[size] = weight;
+                size++;
+            }
+        }
+
+        void drain() {
+            while (size > 0) {
+                size--;
+                Object o = objs[size];
+                double weight = weights[size];
+                objs[size] = null;
+
+                Class<?> cl = o.getClass();
+                ClassShape shape = ClassShape.of(cl);
+                if (!shape.hasReferences()) {
+                    // Nothing to do here
+                    continue;
+                }
+
+                if (cl.isArray()) {
+                    Object[] arr = (Object[]) o;
+                    if (arr.length > threshold) {
+                        defer(arr, weight);
+                    } else {
+                        for (Object e : arr) {
+                            discover(e, weight);
+                        }
+                    }
+                } else {
+                    ReferenceFields rfs = shape.referenceFields();
+                    for (int i = 0; i < rfs.count(); i++) {
+                        discover(rfs.value(o, i), weight);
+                    }
+                }
+            }
+        }
+
+        private void defer(Object[] arr, double weight) {
+            deferred.add(arr);
+            deferredWeights.add(weight);
+        }
+
+        void sample(Object[] arr, double weight) {
+            List<Object> spine = spine(arr, weight);
+            int n = spine.size();
+            int k = samples;
+            if (n <= k) {
+                // Small spine, walk it completely.
+                for (Object o : spine) {
+                    discoverReferences(o, weight);
+                }
+                drain();
+                return;
+            }
+
+            sampledIds = new SimpleIdentityIntMap();
+            sCount = 0;
+            sObjs = new Object[16];
+            sSizes = new long[16];
+            sParents = new int[16];
+            sOwners = new int[16];
+            sShared = new boolean[16];
+            sMarks = new int[16];
+
+            double scale = (double) n / k;
+            int[] picked = pickIndexes(n, k);
+            for (int j = 0; j < k; j++) {
+                walkSample(spine.get(picked[j]), j, weight * scale);
+            }
+
+            double[] counts = new double[k];
+            double[] sizes = new double[k];
+            for (int r = 0; r < sCount; r++) {
+                if (sShared[r]) {
+                    data.addRecord(weight, sSizes[r]);
+                } else {
+                    data.addRecord(weight * scale, sSizes[r]);
+                    counts[sOwners[r]]++;
+                    sizes[sOwners[r]] += sSizes[r];
+                }
+            }
+
+            // Variance of the total estimator under sampling without replacement:
+            //   Var = N^2 * (1 - k/N) * s^2 / k
+            double fpc = 1.0 - (double) k / n;
+            double factor = weight * weight * n * n * fpc / k;
+            data.addSampledArray(
+                    factor * sampleVariance(counts),
+                    factor * sampleVariance(sizes));
+
+            sampledIds = null;
+            sObjs = null;
+        }
+
+        /**
+         * Count the array elements and the objects of the same classes linked
+         * from them, and answer them as the sampling units.
+         */
+        private List<Object> spine(Object[] arr, double weight) {
+            List<Class<?>> classes = new ArrayList<>();
+            List<Object> spine = new ArrayList<>();
+            for (Object e : arr) {
+                if (e == null) continue;
+                Class<?> cl = e.getClass();
+                if (!classes.contains(cl)) {
+                    classes.add(cl);
+                }
+                if (visited.add(e)) {
+                    data.addRecord(weight, sizeOf(e));
+                    spine.add(e);
+                }
+            }
+
+            for (int i = 0; i < spine.size(); i++) {
+                Object o = spine.get(i);
+                Class<?> cl = o.getClass();
+                ClassShape shape = ClassShape.of(cl);
+                if (!shape.hasReferences()) continue;
+                if (cl.isArray()) {
+                    for (Object e : (Object[]) o) {
+                        addSpine(spine, classes, e, weight);
+                    }
+                } else {
+                    ReferenceFields rfs = shape.referenceFields();
+                    for (int f = 0; f < rfs.count(); f++) {
+                        addSpine(spine, classes, rfs.value(o, f), weight);
+                    }
+                }
+            }
+            return spine;
+        }
+
+        private void addSpine(List<Object> spine, List<Class<?>> classes, Object e, double weight) {
+            if (e != null && classes.contains(e.getClass()) && visited.add(e)) {
+                data.addRecord(weight, sizeOf(e));
+                spine.add(e);
+            }
+        }
+
+        private void discoverReferences(Object o, double weight) {
+            Class<?> cl = o.getClass();
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) return;
+            if (cl.isArray()) {
+                Object[] arr = (Object[]) o;
+                for (Object e : arr) {
+                    discover(e, weight);
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    discover(rfs.value(o, i), weight);
+                }
+            }
+        }
+
+        /**
+         * Walk the objects the sampled spine node owns. Objects that the earlier
+         * samples had reached are shared, and are not walked again.
+         */
+        private void walkSample(Object node, int owner, double scaledWeight) {
+            int first = sCount;
+            sampleReferences(node, -1, owner, scaledWeight);
+            for (int r = first; r < sCount; r++) {
+                sampleReferences(sObjs[r], r, owner, scaledWeight);
+            }
+        }
+
+        private void sampleReferences(Object o, int parent, int owner, double scaledWeight) {
+            Class<?> cl = o.getClass();
+            ClassShape shape = ClassShape.of(cl);
+            if (!shape.hasReferences()) return;
+            if (cl.isArray()) {
+                Object[] arr = (Object[]) o;
+                if (arr.length > threshold) {
+                    // Nested large arrays are sampled later, as if owned by this sample.
+                    defer(arr, scaledWeight);
+                    return;
+                }
+                for (Object e : arr) {
+                    sampleDiscover(e, parent, owner);
+                }
+            } else {
+                ReferenceFields rfs = shape.referenceFields();
+                for (int i = 0; i < rfs.count(); i++) {
+                    sampleDiscover(rfs.value(o, i), parent, owner);
+                }
+            }
+        }
+
+        private void sampleDiscover(Object e, int parent, int owner) {
+            if (e == null) return;
+            if (visited.add(e)) {
+                if (sCount == sObjs.length) {
+                    int len = sCount * 2;
+                    sObjs = Arrays.copyOf(sObjs, len);
+                    sSizes = Arrays.copyOf(sSizes, len);
+                    sParents = Arrays.copyOf(sParents, len);
+                    sOwners = Arrays.copyOf(sOwners, len);
+                    sShared = Arrays.copyOf(sShared, len);
+                    sMarks = Arrays.copyOf(sMarks, len);
+                }
+                int r = sCount++;
+                sObjs[r] = e;
+                sSizes[r] = sizeOf(e);
+                sParents[r] = parent;
+                sOwners[r] = owner;
+                sampledIds.putIfAbsent(e, r);
+            } else {
+                int r = sampledIds.get(e);
+                if (r != SimpleIdentityIntMap.ABSENT && sOwners[r] != owner && !sShared[r]) {
+                    share(r);
+                }
+            }
+        }
+
+        /**
+         * Mark the object and everything discovered through it as shared.
+         * Parents are always discovered before their children, so one
+         * forward scan finds all the descendants.
+         */
+        private void share(int from) {
+            mark++;
+            sMarks[from] = mark;
+            sShared[from] = true;
+            for (int r = from + 1; r < sCount; r++) {
+                int p = sParents[r];
+                if (p >= 0 && sMarks[p] == mark) {
+                    sMarks[r] = mark;
+                    sShared[r] = true;
+                }
+            }
+        }
+
+        private double sampleVariance(double[] values) {
+            int k = values.length;
+            if (k < 2) {
+                return 0;
+            }
+            double sum = 0, sum2 = 0;
+            for (double v : values) {
+                sum += v;
+                sum2 += v * v;
+            }
+            double mean = sum / k;
+            return Math.max(0, (sum2 - k * mean * mean) / (k - 1));
+        }
+    }
+
+    /**
+     * Picks {@code k} distinct indexes from {@code [0, n)}, sorted for better locality.
+     * Uses Floyd's algorithm, which takes O(k) time regardless of {@code n}, with the
+     * open-addressing int set to track the picked indexes.
+     */
+    int[] pickIndexes(int n, int k) {
+        // Slots hold index + 1, zero marks the empty slot.
+        int[] slots = new int[Integer.highestOneBit(Math.max(1, k) * 2) * 2];
+        int mask = slots.length - 1;
+
+        int[] result = new int[k];
+        int c = 0;
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int v = insert(slots, mask, t) ? t : j;
+            if (v == j) {
+                insert(slots, mask, j);
+            }
+            result[c++] = v;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static boolean insert(int[] slots, int mask, int v) {
+        int i = (v * 0x9E3779B9) & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == v + 1) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = v + 1;
+        return true;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Order in which the walkers visit the discovered objects.
+ * All orders discover the same objects, but differ in memory access patterns.
+ */
+public enum TraversalOrder {
+
+    /**
+     * Depth-first: follow the most recently discovered object first.
+     * Keeps the smallest pending set for deep structures.
+     */
+    DEPTH_FIRST,
+
+    /**
+     * Breadth-first: follow the objects in the order they were discovered.
+     * Visits siblings together, which helps wide structures laid out by allocation order.
+     */
+    BREADTH_FIRST,
+
+    /**
+     * Breadth-first, but the pending objects are taken in batches, and every batch
+     * is sorted by address before visiting. This turns random heap accesses into
+     * mostly sequential ones.
+     */
+    ADDRESS_ORDERED,
+
+}
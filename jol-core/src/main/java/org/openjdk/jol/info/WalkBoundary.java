@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+/**
+ * Boundary for the object graph walks. Walks do not traverse the objects
+ * of boundary classes, and report the references to them as external edges
+ * instead. Roots are always traversed.
+ * <p>
+ * The boundary is decided per class, and the decision is cached per class,
+ * so that checking the boundary stays cheap.
+ *
+ * @see WalkLimits#withBoundary(WalkBoundary)
+ * @see ExternalEdges
+ */
+public abstract class WalkBoundary {
+
+    private final ClassValue<Boolean> decisions = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> klass) {
+            return stopsAt(klass);
+        }
+    };
+
+    /**
+     * Decide if the walk should stop at the instances of this class.
+     * Usually called once per class, but concurrent walks may call it again,
+     * so it must be side-effect free and deterministic.
+     *
+     * @param klass class to decide for
+     * @return true, if instances should not be traversed
+     */
+    protected abstract boolean stopsAt(Class<?> klass);
+
+    /**
+     * Answer if the walk should stop at the instances of this class.
+     *
+     * @param klass class to check
+     * @return true, if instances should not be traversed
+     */
+    public final boolean isBoundary(Class<?> klass) {
+        return decisions.get(klass);
+    }
+
+    /**
+     * Combine this boundary with another one: the walk stops when any of them matches.
+     *
+     * @param other other boundary
+     * @return combined boundary
+     */
+    public WalkBoundary or(final WalkBoundary other) {
+        final WalkBoundary self = this;
+        return new WalkBoundary() {
+            @Override
+            protected boolean stopsAt(Class<?> klass) {
+                return self.isBoundary(klass) || other.isBoundary(klass);
+            }
+        };
+    }
+
+    /**
+     * Stop at the instances of given classes, and their subclasses.
+     *
+     * @param klasses boundary classes
+     * @return boundary
+     */
+    public static WalkBoundary classes(final Class<?>... klasses) {
+        return new WalkBoundary() {
+            @Override
+            protected boolean stopsAt(Class<?> klass) {
+                for (Class<?> k : klasses) {
+                    if (k.isAssignableFrom(klass)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Stop at enum constants.
+     *
+     * @return boundary
+     */
+    public static WalkBoundary enums() {
+        return classes(Enum.class);
+    }
+
+    /**
+     * Stop at the usual suspects that lead to the rest of the heap:
+     * classes, class loaders, threads, and enum constants.
+     *
+     * @return boundary
+     */
+    public static WalkBoundary defaults() {
+        return classes(Class.class, ClassLoader.class, Thread.class, Enum.class);
+    }
+
+}
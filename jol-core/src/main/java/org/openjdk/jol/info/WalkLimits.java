@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits for the object graph walks. The walk stops early when any
+ * of the limits is hit, and reports the result as truncated.
+ * Instances are immutable, {@code with*} methods produce new limits.
+ */
+public final class WalkLimits {
+
+    private static final WalkLimits NONE = new WalkLimits(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+
+    /**
+     * Check the deadline once in this many objects, to amortize the clock reads.
+     */
+    static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final long maxObjects;
+    private final long maxBytes;
+    private final int maxDepth;
+    private final long maxTimeNanos;
+    private final WalkBoundary boundary;
+
+    private WalkLimits(long maxObjects, long maxBytes, int maxDepth, long maxTimeNanos, WalkBoundary boundary) {
+        this.maxObjects = maxObjects;
+        this.maxBytes = maxBytes;
+        this.maxDepth = maxDepth;
+        this.maxTimeNanos = maxTimeNanos;
+        this.boundary = boundary;
+    }
+
+    /**
+     * Answer the limits that do not limit anything.
+     *
+     * @return unlimited walk limits
+     */
+    public static WalkLimits none() {
+        return NONE;
+    }
+
+    /**
+     * Limit the number of objects to discover.
+     *
+     * @param count maximum number of objects
+     * @return new limits
+     */
+    public WalkLimits withMaxObjects(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Object count should be non-negative: " + count);
+        }
+        return new WalkLimits(count, maxBytes, maxDepth, maxTimeNanos, boundary);
+    }
+
+    /**
+     * Limit the accumulated footprint of discovered objects.
+     *
+     * @param bytes maximum footprint, bytes
+     * @return new limits
+     */
+    public WalkLimits withMaxBytes(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Byte count should be non-negative: " + bytes);
+        }
+        return new WalkLimits(maxObjects, bytes, maxDepth, maxTimeNanos, boundary);
+    }
+
+    /**
+     * Limit the depth of discovered objects. Roots are at depth 0.
+     *
+     * @param depth maximum depth
+     * @return new limits
+     */
+    public WalkLimits withMaxDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth should be non-negative: " + depth);
+        }
+        return new WalkLimits(maxObjects, maxBytes, depth, maxTimeNanos, boundary);
+    }
+
+    /**
+     * Limit the wall-clock time of the walk.
+     *
+     * @param time maximum time
+     * @param unit time unit
+     * @return new limits
+     */
+    public WalkLimits withMaxTime(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Time should be non-negative: " + time);
+        }
+        return new WalkLimits(maxObjects, maxBytes, maxDepth, unit.toNanos(time), boundary);
+    }
+
+    /**
+     * Stop the walk at the boundary objects. Unlike other limits, hitting
+     * the boundary does not mark the result as truncated: the references to
+     * boundary objects are reported as external edges instead.
+     *
+     * @param boundary walk boundary
+     * @return new limits
+     */
+    public WalkLimits withBoundary(WalkBoundary boundary) {
+        return new WalkLimits(maxObjects, maxBytes, maxDepth, maxTimeNanos, boundary);
+    }
+
+    /**
+     * @return maximum number of objects
+     */
+    public long maxObjects() {
+        return maxObjects;
+    }
+
+    /**
+     * @return maximum footprint, bytes
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return maximum depth
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param unit time unit
+     * @return maximum time
+     */
+    public long maxTime(TimeUnit unit) {
+        return unit.convert(maxTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return walk boundary, or null if there is none
+     */
+    public WalkBoundary boundary() {
+        return boundary;
+    }
+
+    boolean hasBytesLimit() {
+        return maxBytes != Long.MAX_VALUE;
+    }
+
+    boolean hasDepthLimit() {
+        return maxDepth != Integer.MAX_VALUE;
+    }
+
+    boolean hasTimeLimit() {
+        return maxTimeNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Answer if another object fits the limits.
+     *
+     * @param count objects discovered so far
+     * @param size footprint discovered so far
+     * @param objSize footprint of new object
+     * @return true, if object fits
+     */
+    boolean admits(long count, long size, long objSize) {
+        return count < maxObjects && size + objSize <= maxBytes;
+    }
+
+    /**
+     * Answer if the object at given depth fits the limits.
+     *
+     * @param depth object depth
+     * @return true, if object fits
+     */
+    boolean admitsDepth(int depth) {
+        return depth <= maxDepth;
+    }
+
+    /**
+     * Answer if the object is at the walk boundary.
+     *
+     * @param o object to check
+     * @return true, if object should not be traversed
+     */
+    boolean isBoundary(Object o) {
+        return boundary != null && boundary.isBoundary(o.getClass());
+    }
+
+    /**
+     * Compute the deadline for the walk starting now.
+     *
+     * @return deadline, in {@link System#nanoTime()} terms
+     */
+    long deadline() {
+        if (!hasTimeLimit()) {
+            return Long.MAX_VALUE;
+        }
+        return System.nanoTime() + maxTimeNanos;
+    }
+
+    /**
+     * Answer if the deadline has passed.
+     *
+     * @param deadline deadline, as computed by {@link #deadline()}
+     * @return true, if deadline has passed
+     */
+    boolean expired(long deadline) {
+        return hasTimeLimit() && System.nanoTime() - deadline > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "WalkLimits{" +
+                "maxObjects=" + maxObjects +
+                ", maxBytes=" + maxBytes +
+                ", maxDepth=" + maxDepth +
+                ", maxTimeNanos=" + maxTimeNanos +
+                ", boundary=" + boundary +
+                '}';
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.info;
+
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.util.Arrays;
+
+/**
+ * Pending objects for the walkers, along with their depths,
+ * handed out in the given {@link TraversalOrder}.
+ */
+final class WorkList {
+
+    /**
+     * Maximum number of objects to sort by address at once.
+     * Index within the batch is packed into the low bits of the sort key.
+     */
+    static final int BATCH_BITS = 12;
+    static final int BATCH_SIZE = 1 << BATCH_BITS;
+
+    private final TraversalOrder order;
+    private final boolean trackDepths;
+
+    // Stack or ring buffer with pending objects
+    private Object[] objs;
+    private int[] depths;
+    private int head;
+    private int size;
+
+    // Address-ordered batch that is being handed out
+    private Object[] batch;
+    private int[] batchDepths;
+    private long[] keys;
+    private Object[] scratch;
+    private int[] scratchDepths;
+    private int batchPos;
+    private int batchLen;
+
+    private int lastDepth;
+
+    /**
+     * Work list for the walk within the given limits. Depth-limited walks go
+     * breadth-first regardless of the requested order: this way every object is
+     * first reached through its shortest path, and the depth limit does not cut off
+     * the objects that were reached through the longer path first.
+     */
+    static WorkList forLimits(TraversalOrder order, WalkLimits limits) {
+        boolean depthLimit = limits.hasDepthLimit();
+        return new WorkList(depthLimit ? TraversalOrder.BREADTH_FIRST : order, depthLimit);
+    }
+
+    WorkList(TraversalOrder order, boolean trackDepths) {
+        this.order = order;
+        this.trackDepths = trackDepths;
+        objs = new Object[16];
+        depths = trackDepths ? new int[16] : null;
+        if (order == TraversalOrder.ADDRESS_ORDERED) {
+            batch = new Object[BATCH_SIZE];
+            batchDepths = trackDepths ? new int[BATCH_SIZE] : null;
+            keys = new long[BATCH_SIZE];
+            scratch = new Object[BATCH_SIZE];
+            scratchDepths = trackDepths ? new int[BATCH_SIZE] : null;
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0 && batchPos == batchLen;
+    }
+
+    int size() {
+        return size + (batchLen - batchPos);
+    }
+
+    void push(Object o, int depth) {
+        if (size == objs.length) {
+            grow();
+        }
+        int idx = (order == TraversalOrder.DEPTH_FIRST) ? size : ((head + size) & (objs.length - 1));
+        objs[idx] = o;
+        if (trackDepths) {
+            depths[idx] = depth;
+        }
+        size++;
+    }
+
+    /**
+     * Takes the next object. Its depth is available through {@link #lastDepth()} after this call.
+     */
+    Object pop() {
+        switch (order) {
+            case DEPTH_FIRST: {
+                size--;
+                Object o = objs[size];
+                objs[size] = null;
+                if (trackDepths) {
+                    lastDepth = depths[size];
+                }
+                return o;
+            }
+            case BREADTH_FIRST:
+                return poll();
+            case ADDRESS_ORDERED: {
+                if (batchPos == batchLen) {
+                    fillBatch();
+                }
+                int idx = batchPos++;
+                Object o = batch[idx];
+                batch[idx] = null;
+                if (trackDepths) {
+                    lastDepth = batchDepths[idx];
+                }
+                return o;
+            }
+            default:
+                throw new IllegalStateException("Unknown order: " + order);
+        }
+    }
+
+    void clear() {
+        // Only touch the occupied slots; stack is the ring buffer with head at zero.
+        int mask = objs.length - 1;
+        for (int i = 0; i < size; i++) {
+            objs[(head + i) & mask] = null;
+        }
+        size = 0;
+        head = 0;
+        if (batchPos < batchLen) {
+            Arrays.fill(batch, batchPos, batchLen, null);
+        }
+        batchPos = 0;
+        batchLen = 0;
+    }
+
+    int lastDepth() {
+        return lastDepth;
+    }
+
+    private Object poll() {
+        Object o = objs[head];
+        objs[head] = null;
+        if (trackDepths) {
+            lastDepth = depths[head];
+        }
+        head = (head + 1) & (objs.length - 1);
+        size--;
+        return o;
+    }
+
+    private void fillBatch() {
+        VirtualMachine vm = VM.current();
+
+        int len = Math.min(size, BATCH_SIZE);
+        for (int i = 0; i < len; i++) {
+            scratch[i] = poll();
+            if (trackDepths) {
+                scratchDepths[i] = lastDepth;
+            }
+            // Alignment zeroes the lowest address bits, shift them out to make room for index.
+            keys[i] = ((vm.addressOf(scratch[i]) >>> 3) << BATCH_BITS) | i;
+        }
+        Arrays.sort(keys, 0, len);
+
+        int mask = BATCH_SIZE - 1;
+        for (int i = 0; i < len; i++) {
+            int src = (int) (keys[i] & mask);
+            batch[i] = scratch[src];
+            if (trackDepths) {
+                batchDepths[i] = scratchDepths[src];
+            }
+        }
+        Arrays.fill(scratch, 0, len, null);
+        batchPos = 0;
+        batchLen = len;
+    }
+
+    private void grow() {
+        int len = objs.length;
+        if (order == TraversalOrder.DEPTH_FIRST || head == 0) {
+            objs = Arrays.copyOf(objs, len * 2);
+            if (trackDepths) {
+                depths = Arrays.copyOf(depths, len * 2);
+            }
+        } else {
+            // Unwrap the ring buffer into the new array.
+            Object[] newObjs = new Object[len * 2];
+            System.arraycopy(objs, head, newObjs, 0, len - head);
+            System.arraycopy(objs, 0, newObjs, len - head, head);
+            objs = newObjs;
+            if (trackDepths) {
+                int[] newDepths = new int[len * 2];
+                System.arraycopy(depths, head, newDepths, 0, len - head);
+                System.arraycopy(depths, 0, newDepths, len - head, head);
+                depths = newDepths;
+            }
+            head = 0;
+        }
+    }
+
+}
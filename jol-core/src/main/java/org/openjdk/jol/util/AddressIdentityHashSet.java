@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.util.Arrays;
+
+/**
+ * Identity hash set that hashes objects by their current addresses, instead of
+ * identity hash codes. Unlike {@link SimpleIdentityHashSet}, it does not install
+ * identity hash codes into the object headers, and thus does not change the objects
+ * it tracks.
+ * <p>
+ * Moving GC can change the object addresses, which makes the existing entries
+ * hashed at stale positions. The set watches the GC epoch, that is, the total
+ * number of collections, and rehashes itself when it changes. Since the objects
+ * are still compared by identity, stale entries never produce false positives:
+ * at worst, the moved object is added again. Such duplicates are found and removed
+ * when the set is rehashed, and the set reports itself as inconsistent, so that
+ * users can redo the work that depended on the set answers.
+ * <p>
+ * The GC epoch is only checked periodically, and on {@link #validate()}. Collectors
+ * that move objects concurrently with the application are not covered by the epoch
+ * checks: use {@link SimpleIdentityHashSet} with them.
+ */
+public final class AddressIdentityHashSet implements IdentitySet {
+    private static final int MINIMUM_CAPACITY = 4;
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * Check the GC epoch once in this many additions, to amortize the GC bean reads.
+     */
+    private static final int EPOCH_CHECK_INTERVAL = 1024;
+
+    private final VirtualMachine vm;
+
+    private Object[] table;
+    private int size;
+    private long epoch;
+    private int untilEpochCheck;
+    private boolean consistent;
+
+    public AddressIdentityHashSet() {
+        vm = VM.current();
+        table = new Object[capacity(MINIMUM_CAPACITY)];
+        epoch = GCEpoch.current();
+        untilEpochCheck = EPOCH_CHECK_INTERVAL;
+        consistent = true;
+    }
+
+    private static int capacity(int expectedMaxSize) {
+        return (expectedMaxSize > MAXIMUM_CAPACITY / 3) ? MAXIMUM_CAPACITY :
+               (expectedMaxSize <= 2 * MINIMUM_CAPACITY / 3) ? MINIMUM_CAPACITY :
+               Integer.highestOneBit(expectedMaxSize + (expectedMaxSize << 1));
+    }
+
+    private int hash(Object x, int length) {
+        // Low address bits are zero due to alignment, mix them out.
+        long h = vm.addressOf(x) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (length - 1);
+    }
+
+    private static int nextIndex(int i, int len) {
+        return (i + 1 < len ? i + 1 : 0);
+    }
+
+    public boolean contains(Object o) {
+        final Object[] tab = table;
+        final int len = tab.length;
+        for (int i = hash(o, len); tab[i] != null; i = nextIndex(i, len)) {
+            if (tab[i] == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(Object o) {
+        if (--untilEpochCheck == 0) {
+            untilEpochCheck = EPOCH_CHECK_INTERVAL;
+            checkEpoch();
+        }
+
+        while (true) {
+            final Object[] tab = table;
+            final int len = tab.length;
+            int i = hash(o, len);
+
+            for (Object item; (item = tab[i]) != null; i = nextIndex(i, len)) {
+                if (item == o) {
+                    return false;
+                }
+            }
+
+            final int s = size + 1;
+            if (s*3 > len && resize(len)) continue;
+
+            tab[i] = o;
+            size = s;
+            return true;
+        }
+    }
+
+    public int addAll(Object[] objs, int count, int[] added) {
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            if (add(objs[k])) {
+                added[n++] = k;
+            }
+        }
+        return n;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Rehashes the set if any GC happened since the last check, and answers
+     * if the set was consistent all along.
+     *
+     * @return true, if no moved objects were added twice
+     */
+    public boolean validate() {
+        checkEpoch();
+        return consistent;
+    }
+
+    /**
+     * Removes all objects and starts over with the consistent set at the current
+     * GC epoch. Keeps the capacity.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        size = 0;
+        epoch = GCEpoch.current();
+        untilEpochCheck = EPOCH_CHECK_INTERVAL;
+        consistent = true;
+    }
+
+    private void checkEpoch() {
+        if (GCEpoch.current() != epoch) {
+            rehash(table.length);
+        }
+    }
+
+    private boolean resize(int newCapacity) {
+        int newLength = newCapacity * 2;
+
+        int oldLength = table.length;
+        if (oldLength == 2 * MAXIMUM_CAPACITY) { // can't expand any further
+            if (size == MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("Capacity exhausted.");
+            }
+            return false;
+        }
+        if (oldLength >= newLength)
+            return false;
+
+        rehash(newLength);
+        return true;
+    }
+
+    /**
+     * Rebuilds the table with current addresses. Retries if GC happens
+     * during the rebuild, since some addresses might be stale again.
+     */
+    private void rehash(int newLength) {
+        Object[] oldTable = table;
+
+        while (true) {
+            long startEpoch = GCEpoch.current();
+
+            Object[] newTable = new Object[newLength];
+            int newSize = 0;
+
+            outer:
+            for (Object o : oldTable) {
+                if (o != null) {
+                    int i = hash(o, newLength);
+                    for (Object item; (item = newTable[i]) != null; i = nextIndex(i, newLength)) {
+                        if (item == o) {
+                            // Moved object was added twice.
+                            consistent = false;
+                            continue outer;
+                        }
+                    }
+                    newTable[i] = o;
+                    newSize++;
+                }
+            }
+
+            if (GCEpoch.current() == startEpoch) {
+                table = newTable;
+                size = newSize;
+                epoch = startEpoch;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+/**
+ * Stack implementation that keeps the elements in fixed-size chunks.
+ * Unlike {@link SimpleStack}, never allocates the large contiguous array,
+ * and releases the chunks as the stack shrinks.
+ *
+ * @param <E> element type
+ */
+public class ChunkedStack<E> {
+    private static final int CHUNK_SIZE = 4096;
+
+    private static class Chunk {
+        final Object[] elements = new Object[CHUNK_SIZE];
+        final Chunk prev;
+
+        Chunk(Chunk prev) {
+            this.prev = prev;
+        }
+    }
+
+    private Chunk top;
+    private Chunk spare;
+    private int head;
+    private long size;
+
+    public ChunkedStack() {
+        top = new Chunk(null);
+        head = -1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void push(E e) {
+        head++;
+        if (head == CHUNK_SIZE) {
+            Chunk c = spare;
+            spare = null;
+            top = (c != null) ? c : new Chunk(top);
+            head = 0;
+        }
+        top.elements[head] = e;
+        size++;
+    }
+
+    public E pop() {
+        Object e = top.elements[head];
+        top.elements[head] = null;
+        head--;
+        size--;
+        if (head == -1 && top.prev != null) {
+            // Keep one chunk around to avoid thrashing at the chunk boundary.
+            spare = top;
+            top = top.prev;
+            head = CHUNK_SIZE - 1;
+        }
+        return (E) e;
+    }
+
+}
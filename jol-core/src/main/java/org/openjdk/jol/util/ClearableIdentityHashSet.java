@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+import java.util.Arrays;
+
+/**
+ * Identity hash set that can be cleared in time proportional to its size,
+ * retaining the capacity. Remembers the occupied slots to do so.
+ */
+public final class ClearableIdentityHashSet implements IdentitySet {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    private Object[] table;
+    private int[] slots;
+    private int size;
+
+    public ClearableIdentityHashSet() {
+        table = new Object[MINIMUM_CAPACITY];
+        slots = new int[maxSize(MINIMUM_CAPACITY)];
+    }
+
+    private static int maxSize(int length) {
+        // The full table stops resizing and fills up to MAXIMUM_CAPACITY - 1 entries
+        if (length == 2 * MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return length / 3 + 1;
+    }
+
+    private static int hash(Object x, int length) {
+        return System.identityHashCode(x) & (length - 1);
+    }
+
+    private static int nextIndex(int i, int len) {
+        return (i + 1 < len ? i + 1 : 0);
+    }
+
+    public boolean contains(Object o) {
+        final Object[] tab = table;
+        final int len = tab.length;
+        for (int i = hash(o, len); tab[i] != null; i = nextIndex(i, len)) {
+            if (tab[i] == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(Object o) {
+        while (true) {
+            final Object[] tab = table;
+            final int len = tab.length;
+            int i = hash(o, len);
+
+            for (Object item; (item = tab[i]) != null; i = nextIndex(i, len)) {
+                if (item == o) {
+                    return false;
+                }
+            }
+
+            final int s = size + 1;
+            if (s*3 > len && resize()) continue;
+
+            tab[i] = o;
+            slots[size] = i;
+            size = s;
+            return true;
+        }
+    }
+
+    public int addAll(Object[] objs, int count, int[] added) {
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            if (add(objs[k])) {
+                added[n++] = k;
+            }
+        }
+        return n;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Answer the current table capacity.
+     *
+     * @return number of slots in the table
+     */
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Removes all objects, touching only the occupied slots. Keeps the capacity.
+     */
+    public void clear() {
+        final Object[] tab = table;
+        final int[] ss = slots;
+        for (int k = 0; k < size; k++) {
+            tab[ss[k]] = null;
+        }
+        size = 0;
+    }
+
+    private boolean resize() {
+        Object[] oldTable = table;
+        int oldLength = oldTable.length;
+        if (oldLength == 2 * MAXIMUM_CAPACITY) { // can't expand any further
+            if (size == MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("Capacity exhausted.");
+            }
+            return false;
+        }
+
+        int newLength = oldLength * 2;
+        Object[] newTable = new Object[newLength];
+        int[] newSlots = Arrays.copyOf(slots, maxSize(newLength));
+
+        for (int k = 0; k < size; k++) {
+            Object o = oldTable[newSlots[k]];
+            int i = hash(o, newLength);
+            while (newTable[i] != null) {
+                i = nextIndex(i, newLength);
+            }
+            newTable[i] = o;
+            newSlots[k] = i;
+        }
+        table = newTable;
+        slots = newSlots;
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+/**
+ * Concurrent identity hash set implementation optimized for JOL uses.
+ * Stripes the objects over a number of {@link SimpleIdentityHashSet}-s,
+ * each guarded by its own lock.
+ */
+public final class ConcurrentIdentityHashSet implements IdentitySet {
+    private static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+    private final SimpleIdentityHashSet[] segments;
+    private final int shift;
+
+    public ConcurrentIdentityHashSet(int concurrency) {
+        int count = 2;
+        while (count < concurrency * 4 && count < MAXIMUM_SEGMENTS) {
+            count <<= 1;
+        }
+
+        segments = new SimpleIdentityHashSet[count];
+        for (int c = 0; c < count; c++) {
+            segments[c] = new SimpleIdentityHashSet();
+        }
+        shift = 32 - MathUtil.log2p(count);
+    }
+
+    private SimpleIdentityHashSet segmentFor(Object o) {
+        // Segment sets use the lower bits of identity hash code for their
+        // own indexing, select the segment with the upper bits of the mixed hash.
+        int h = System.identityHashCode(o) * 0x9E3779B9;
+        return segments[h >>> shift];
+    }
+
+    public boolean add(Object o) {
+        SimpleIdentityHashSet segment = segmentFor(o);
+        synchronized (segment) {
+            return segment.add(o);
+        }
+    }
+
+    public boolean contains(Object o) {
+        SimpleIdentityHashSet segment = segmentFor(o);
+        synchronized (segment) {
+            return segment.contains(o);
+        }
+    }
+
+    public int addAll(Object[] objs, int count, int[] added) {
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            if (add(objs[k])) {
+                added[n++] = k;
+            }
+        }
+        return n;
+    }
+}
@@ -22,29 +22,31 @@
  * or visit www.oracle.com if you need additional information or have any
  * questions.
  */
-package org.openjdk.jol.info;
+package org.openjdk.jol.util;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
 
 /**
- * Object path in object graph.
- *
- * @author Aleksey Shipilev
+ * GC epoch: the total number of collections so far. If the epoch had not
+ * changed, stop-the-world collectors had not moved any objects.
  */
-final class ArrayGraphPathRecord extends GraphPathRecord {
-    private final int idx;
+public class GCEpoch {
 
-    ArrayGraphPathRecord(GraphPathRecord parent, int idx, int depth, Object obj) {
-        super(parent, depth, obj);
-        this.idx = idx;
-    }
+    private static final List<GarbageCollectorMXBean> GC_BEANS = ManagementFactory.getGarbageCollectorMXBeans();
 
-    @Override
-    public final String path() {
-        if (parent != null) {
-            return parent.path() + "[" + idx + "]";
-        } else {
-            return "[" + idx + "]";
+    /**
+     * Answers the current GC epoch.
+     *
+     * @return GC epoch
+     */
+    public static long current() {
+        long sum = 0;
+        for (GarbageCollectorMXBean bean : GC_BEANS) {
+            sum += Math.max(0, bean.getCollectionCount());
         }
+        return sum;
     }
 
 }
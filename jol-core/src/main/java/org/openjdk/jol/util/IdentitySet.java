@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+/**
+ * Minimal identity set interface for the graph walkers.
+ */
+public interface IdentitySet {
+
+    /**
+     * Adds the object to the set.
+     *
+     * @param o object
+     * @return true, if object was not in the set before
+     */
+    boolean add(Object o);
+
+    /**
+     * Checks if the object is in the set.
+     *
+     * @param o object
+     * @return true, if object is in the set
+     */
+    boolean contains(Object o);
+
+    /**
+     * Adds the first {@code count} objects to the set, and tells which of
+     * them were not in the set before.
+     *
+     * @param objs objects to add
+     * @param count number of objects to add
+     * @param added receives the positions of newly added objects in {@code objs}
+     * @return number of newly added objects
+     */
+    int addAll(Object[] objs, int count, int[] added);
+
+}
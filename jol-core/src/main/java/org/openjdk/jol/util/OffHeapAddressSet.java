@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Set of object addresses, kept in the direct buffer outside the Java heap.
+ * Holds no references to the objects, so addresses are only meaningful until
+ * the objects move: users should watch for {@link GCEpoch} changes.
+ * <p>
+ * Zero address is reserved as the empty slot marker.
+ */
+public final class OffHeapAddressSet {
+    private static final int MINIMUM_CAPACITY = 1 << 12;
+
+    /**
+     * Direct buffers are limited to 2 GB.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 28;
+
+    private LongBuffer table;
+    private int mask;
+    private int size;
+
+    public OffHeapAddressSet() {
+        table = allocate(MINIMUM_CAPACITY);
+        mask = MINIMUM_CAPACITY - 1;
+    }
+
+    private static LongBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private static int hash(long addr, int mask) {
+        // Low address bits are zero due to alignment, mix them out.
+        long h = addr * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long addr) {
+        for (int i = hash(addr, mask); ; i = (i + 1) & mask) {
+            long v = table.get(i);
+            if (v == 0) {
+                return false;
+            }
+            if (v == addr) {
+                return true;
+            }
+        }
+    }
+
+    public boolean add(long addr) {
+        if (addr == 0) {
+            throw new IllegalArgumentException("Zero address");
+        }
+
+        int i = hash(addr, mask);
+        for (long v; (v = table.get(i)) != 0; i = (i + 1) & mask) {
+            if (v == addr) {
+                return false;
+            }
+        }
+
+        table.put(i, addr);
+        size++;
+
+        if (size * 2 > mask + 1) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Forgets all addresses, keeping the allocated buffer.
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            table.put(i, 0);
+        }
+        size = 0;
+    }
+
+    private void resize() {
+        int oldCapacity = mask + 1;
+        if (oldCapacity == MAXIMUM_CAPACITY) {
+            if (size == MAXIMUM_CAPACITY - 1) {
+                throw new IllegalStateException("Capacity exhausted.");
+            }
+            return;
+        }
+
+        int newCapacity = oldCapacity * 2;
+        int newMask = newCapacity - 1;
+        LongBuffer newTable = allocate(newCapacity);
+        for (int j = 0; j < oldCapacity; j++) {
+            long v = table.get(j);
+            if (v != 0) {
+                int i = hash(v, newMask);
+                while (newTable.get(i) != 0) {
+                    i = (i + 1) & newMask;
+                }
+                newTable.put(i, v);
+            }
+        }
+        table = newTable;
+        mask = newMask;
+    }
+}
@@ -24,10 +24,12 @@
  */
 package org.openjdk.jol.util;
 
+import java.util.Arrays;
+
 /**
  * Identity hash set implementation optimized for JOL uses. Cuts corners where it can.
  */
-public final class SimpleIdentityHashSet {
+public final class SimpleIdentityHashSet implements IdentitySet {
     private static final int MINIMUM_CAPACITY = 4;
     private static final int MAXIMUM_CAPACITY = 1 << 29;
 
@@ -52,6 +54,17 @@ public final class SimpleIdentityHashSet {
         return (i + 1 < len ? i + 1 : 0);
     }
 
+    public boolean contains(Object o) {
+        final Object[] tab = table;
+        final int len = tab.length;
+        for (int i = hash(o, len); tab[i] != null; i = nextIndex(i, len)) {
+            if (tab[i] == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean add(Object o) {
         while (true) {
             final Object[] tab = table;
@@ -73,6 +86,52 @@ public final class SimpleIdentityHashSet {
         }
     }
 
+    /**
+     * Removes all objects, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(table, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int addAll(Object[] objs, int count, int[] added) {
+        // Grow once for the whole batch, then probe without capacity checks.
+        while ((size + count)*3 > table.length) {
+            if (!resize(table.length)) {
+                int n = 0;
+                for (int k = 0; k < count; k++) {
+                    if (add(objs[k])) {
+                        added[n++] = k;
+                    }
+                }
+                return n;
+            }
+        }
+
+        final Object[] tab = table;
+        final int len = tab.length;
+        int n = 0;
+
+        next:
+        for (int k = 0; k < count; k++) {
+            Object o = objs[k];
+            int i = hash(o, len);
+            for (Object item; (item = tab[i]) != null; i = nextIndex(i, len)) {
+                if (item == o) {
+                    continue next;
+                }
+            }
+            tab[i] = o;
+            added[n++] = k;
+        }
+        size += n;
+        return n;
+    }
+
     private boolean resize(int newCapacity) {
         int newLength = newCapacity * 2;
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jol.util;
+
+import java.util.Arrays;
+
+/**
+ * Primitive int stack implementation optimized for JOL uses. Cuts corners where it can.
+ */
+public class SimpleIntStack {
+    int[] elements;
+    int head;
+
+    public SimpleIntStack() {
+        head = -1;
+        elements = new int[2];
+    }
+
+    private void resize() {
+        elements = Arrays.copyOf(elements, elements.length * 2);
+    }
+
+    public boolean isEmpty() {
+        return head == -1;
+    }
+
+    public int size() {
+        return head + 1;
+    }
+
+    public void push(int e) {
+        head++;
+        if (head == elements.length) {
+            resize();
+        }
+        elements[head] = e;
+    }
+
+    public int pop() {
+        return elements[head--];
+    }
+
+}
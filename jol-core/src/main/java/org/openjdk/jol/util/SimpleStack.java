@@ -47,6 +47,10 @@ public class SimpleStack<E> {
         return head == -1;
     }
 
+    public int size() {
+        return head + 1;
+    }
+
     public void push(E e) {
         head++;
         if (head == elements.length) {
@@ -0,0 +1,83 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+public class AddressIndexTest {
+
+    private static void check(long[] addrs) {
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < addrs.length; i++) {
+            expected.put(addrs[i], i);
+        }
+
+        AddressIndex index = AddressIndex.build(addrs, addrs.length);
+        Assert.assertEquals(expected.size(), index.size());
+        int pos = 0;
+        for (long addr : expected.keySet()) {
+            Assert.assertEquals(addr, index.address(pos));
+            Assert.assertEquals((int) expected.get(addr), index.record(pos));
+            Assert.assertEquals(pos, index.find(addr));
+            Assert.assertEquals(pos, index.ceiling(addr));
+            pos++;
+        }
+        Assert.assertEquals(-1, index.find(expected.firstKey() - 1));
+        Assert.assertEquals(0, index.ceiling(expected.firstKey() - 1));
+        Assert.assertEquals(index.size(), index.ceiling(expected.lastKey() + 1));
+    }
+
+    @Test
+    public void aligned() {
+        Random r = new Random(1);
+        long[] addrs = new long[10_000];
+        for (int i = 0; i < addrs.length; i++) {
+            addrs[i] = 0x7_0000_0000L + (r.nextInt(1 << 20) << 3);
+        }
+        check(addrs);
+    }
+
+    @Test
+    public void wideSpan() {
+        Random r = new Random(2);
+        long[] addrs = new long[10_000];
+        for (int i = 0; i < addrs.length; i++) {
+            addrs[i] = r.nextLong() & ~7L;
+        }
+        check(addrs);
+    }
+
+    @Test
+    public void unaligned() {
+        long[] addrs = { 5, 3, 7, 3, 100, 1, 5 };
+        check(addrs);
+    }
+
+    @Test
+    public void layoutPositions() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(new Object[i % 10]);
+        }
+        GraphLayout gl = GraphLayout.parseInstance(list);
+
+        SortedSet<Long> addresses = gl.addresses();
+        Assert.assertEquals(addresses.size(), gl.addressCount());
+        int pos = 0;
+        for (long addr : addresses) {
+            Assert.assertEquals(addr, gl.addressAt(pos));
+            Assert.assertEquals(pos, gl.addressPosition(addr));
+            Assert.assertEquals(gl.record(addr).path(), gl.recordAt(pos).path());
+            pos++;
+        }
+        Assert.assertEquals(gl.startAddress(), gl.addressAt(0));
+        Assert.assertEquals(gl.endAddress(), gl.addressAt(gl.addressCount() - 1));
+        Assert.assertEquals(gl.addressCount(), gl.addressPosition(gl.endAddress() + 1));
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BatchGraphStatsTest {
+
+    private static List<Object> roots(Object shared) {
+        List<Object> roots = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<Integer, Object> m = new HashMap<>();
+            for (int j = 0; j < i % 20; j++) {
+                m.put(j, (j % 4 == 0) ? shared : new Object[j]);
+            }
+            roots.add(m);
+        }
+        return roots;
+    }
+
+    @Test
+    public void independent() {
+        Object shared = new Object[100];
+        List<Object> roots = roots(shared);
+
+        BatchGraphStats stats;
+        try (BatchGraphStatsWalker walker = new BatchGraphStatsWalker(4)) {
+            stats = walker.walk(roots);
+        }
+        Assert.assertEquals(roots.size(), stats.rootCount());
+        for (int i = 0; i < roots.size(); i++) {
+            GraphStats gs = GraphStats.parseInstance(roots.get(i));
+            Assert.assertEquals(gs.totalCount(), stats.totalCounts()[i]);
+            Assert.assertEquals(gs.totalSize(), stats.totalSizes()[i]);
+            Assert.assertFalse(stats.isTruncated(i));
+        }
+    }
+
+    @Test
+    public void shared() {
+        Object shared = new Object[100];
+        List<Object> roots = roots(shared);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            BatchGraphStats stats = new BatchGraphStatsWalker(executor, 3, WalkLimits.none(), true).walk(roots);
+            GraphStats all = GraphStats.parseInstance(roots.toArray());
+            Assert.assertEquals("Shared objects are counted once",
+                    all.totalCount(), stats.totalCount());
+            Assert.assertEquals("Shared objects are counted once",
+                    all.totalSize(), stats.totalSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void reusedWalker() {
+        List<Object> roots = roots(new Object());
+        try (BatchGraphStatsWalker walker = new BatchGraphStatsWalker(2)) {
+            BatchGraphStats first = walker.walk(roots);
+            BatchGraphStats second = walker.walk(roots);
+            Assert.assertArrayEquals(first.totalSizes(), second.totalSizes());
+
+            // Walker is still usable after closing
+            walker.close();
+            BatchGraphStats third = walker.walk(roots);
+            Assert.assertArrayEquals(first.totalSizes(), third.totalSizes());
+        }
+
+        WalkLimits limits = WalkLimits.none().withMaxObjects(5);
+        BatchGraphStats limited;
+        try (BatchGraphStatsWalker walker = new BatchGraphStatsWalker(null, 2, limits, false)) {
+            limited = walker.walk(roots);
+        }
+        Assert.assertEquals(1, limited.totalCount(0));
+        Assert.assertTrue(limited.isTruncated(roots.size() - 1));
+        Assert.assertEquals(5, limited.totalCount(roots.size() - 1));
+    }
+
+    @Test
+    public void empty() {
+        BatchGraphStats stats;
+        try (BatchGraphStatsWalker walker = new BatchGraphStatsWalker(2)) {
+            stats = walker.walk(Collections.emptyList());
+        }
+        Assert.assertEquals(0, stats.rootCount());
+        Assert.assertEquals(0, stats.totalSize());
+    }
+
+}
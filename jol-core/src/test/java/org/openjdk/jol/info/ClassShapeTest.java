@@ -0,0 +1,59 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.vm.VM;
+
+public class ClassShapeTest {
+
+    static class A {
+        int x;
+    }
+
+    static class B {
+        A a = new A();
+        long y;
+    }
+
+    @Test
+    public void instanceSizes() {
+        Object[] objs = { new Object(), new A(), new B(), "Hello", Integer.valueOf(42) };
+        for (Object o : objs) {
+            Assert.assertEquals(o.getClass().getName(), VM.current().sizeOf(o), ClassShape.sizeOf(o));
+            Assert.assertEquals(o.getClass().getName(), VM.current().sizeOf(o), ClassShape.sizeOf(o));
+        }
+    }
+
+    @Test
+    public void arraySizes() {
+        for (int len : new int[] { 0, 1, 2, 3, 7, 8, 9, 100, 1001 }) {
+            Object[] arrs = {
+                    new boolean[len], new byte[len], new short[len], new char[len],
+                    new int[len], new float[len], new long[len], new double[len],
+                    new Object[len], new String[len], new int[len][]
+            };
+            for (Object a : arrs) {
+                Assert.assertEquals(a.getClass().getName() + ", length " + len,
+                        VM.current().sizeOf(a), ClassShape.sizeOf(a));
+            }
+        }
+    }
+
+    @Test
+    public void classMirrorsAreNotCached() {
+        for (Class<?> c : new Class<?>[] { Object.class, ClassShapeTest.class, VM.class, String.class }) {
+            Assert.assertEquals(c.getName(), VM.current().sizeOf(c), ClassShape.sizeOf(c));
+        }
+    }
+
+    @Test
+    public void references() {
+        Assert.assertTrue(ClassShape.of(B.class).hasReferences());
+        Assert.assertEquals(1, ClassShape.of(B.class).referenceFields().count());
+        Assert.assertFalse(ClassShape.of(A.class).hasReferences());
+        Assert.assertFalse(ClassShape.of(int[].class).hasReferences());
+        Assert.assertTrue(ClassShape.of(Object[].class).hasReferences());
+        Assert.assertNull(ClassShape.of(Object[].class).referenceFields());
+    }
+
+}
@@ -0,0 +1,171 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.vm.VM;
+
+import java.util.*;
+
+public class DominatorTreeTest {
+
+    static class Node {
+        Object[] refs;
+
+        Node(Object... refs) {
+            this.refs = refs;
+        }
+    }
+
+    static long size(Object... os) {
+        long s = 0;
+        for (Object o : os) {
+            s += VM.current().sizeOf(o);
+        }
+        return s;
+    }
+
+    @Test
+    public void chain() {
+        Node c = new Node();
+        Node b = new Node(c);
+        Node a = new Node(b);
+
+        DominatorTree dt = DominatorTree.parseInstance(a);
+
+        Assert.assertEquals(GraphStats.parseInstance(a).totalSize(), dt.totalSize());
+        Assert.assertEquals(dt.totalSize(), dt.retainedSize(a));
+        Assert.assertEquals(size(c, c.refs), dt.retainedSize(c));
+        Assert.assertSame(b.refs, dt.immediateDominator(c));
+        Assert.assertSame(b, dt.immediateDominator(b.refs));
+        Assert.assertNull(dt.immediateDominator(a));
+    }
+
+    @Test
+    public void diamond() {
+        Node z = new Node();
+        Node x = new Node(z);
+        Node y = new Node(z);
+        Node r = new Node(x, y);
+
+        DominatorTree dt = DominatorTree.parseInstance(r);
+
+        Assert.assertSame(r.refs, dt.immediateDominator(z));
+        Assert.assertEquals(size(x, x.refs), dt.retainedSize(x));
+        Assert.assertEquals(size(y, y.refs), dt.retainedSize(y));
+        Assert.assertEquals(dt.totalSize() - size(r), dt.retainedSize(r.refs));
+    }
+
+    @Test
+    public void sharedBetweenRoots() {
+        Node shared = new Node();
+        Node a = new Node(shared);
+        Node b = new Node(shared);
+
+        DominatorTree dt = DominatorTree.parseInstance(a, b);
+
+        Assert.assertNull(dt.immediateDominator(shared));
+        Assert.assertEquals(size(a, a.refs), dt.retainedSize(a));
+        Assert.assertEquals(size(a, a.refs, b, b.refs, shared, shared.refs), dt.totalSize());
+    }
+
+    @Test
+    public void cycle() {
+        Node a = new Node(new Object[1]);
+        Node b = new Node(a);
+        a.refs[0] = b;
+
+        DominatorTree dt = DominatorTree.parseInstance(a);
+        Assert.assertEquals(size(b, b.refs), dt.retainedSize(b));
+        Assert.assertEquals(dt.totalSize(), dt.retainedSize(a));
+    }
+
+    @Test
+    public void longList() {
+        LinkedList<Integer> list = new LinkedList<>();
+        for (int i = 0; i < 100_000; i++) {
+            list.add(i);
+        }
+
+        DominatorTree dt = DominatorTree.parseInstance(list);
+        Assert.assertEquals(GraphLayout.parseInstance(list).totalSize(), dt.totalSize());
+        Assert.assertEquals(dt.totalSize(), dt.retainedSize(list));
+        Assert.assertEquals(Collections.singletonList((Object) list), dt.topDominators(1));
+    }
+
+    @Test
+    public void randomGraphs() {
+        Random r = new Random(42);
+        for (int t = 0; t < 20; t++) {
+            int n = 50 + r.nextInt(100);
+            Node[] nodes = new Node[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = new Node(new Object[r.nextInt(4)]);
+            }
+            for (Node node : nodes) {
+                for (int j = 0; j < node.refs.length; j++) {
+                    node.refs[j] = nodes[r.nextInt(n)];
+                }
+            }
+
+            DominatorTree dt = DominatorTree.parseInstance(nodes[0], nodes[1]);
+            Set<Object> all = reachable(null, nodes[0], nodes[1]);
+            long total = 0;
+            for (Object o : all) {
+                total += size(o);
+            }
+            Assert.assertEquals(total, dt.totalSize());
+
+            for (Object o : all) {
+                Set<Object> rest = reachable(o, nodes[0], nodes[1]);
+                long restSize = 0;
+                for (Object x : rest) {
+                    restSize += size(x);
+                }
+                Assert.assertEquals(total - restSize, dt.retainedSize(o));
+            }
+        }
+    }
+
+    /**
+     * Brute-force reachability, pretending the excluded object is not there.
+     */
+    private static Set<Object> reachable(Object excluded, Object... roots) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        Deque<Object> q = new ArrayDeque<>();
+        for (Object root : roots) {
+            if (root != excluded && visited.add(root)) {
+                q.add(root);
+            }
+        }
+        while (!q.isEmpty()) {
+            Object o = q.poll();
+            Object[] refs = (o instanceof Node) ? new Object[] { ((Node) o).refs } : (Object[]) o;
+            for (Object e : refs) {
+                if (e != null && e != excluded && visited.add(e)) {
+                    q.add(e);
+                }
+            }
+        }
+        return visited;
+    }
+
+    @Test
+    public void classRetainedSizes() {
+        Node c = new Node();
+        Node b = new Node(c);
+        Node a = new Node(b);
+
+        DominatorTree dt = DominatorTree.parseInstance(a);
+
+        // Only the topmost Node counts, the ones it dominates are included in it
+        Assert.assertEquals(dt.totalSize(), dt.getClassRetainedSizes().count(Node.class));
+        Assert.assertEquals(size(a.refs, b, b.refs, c, c.refs), dt.getClassRetainedSizes().count(Object[].class));
+        Assert.assertTrue(dt.toPrintable(5).contains("(total)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownObject() {
+        DominatorTree.parseInstance(new Node()).retainedSize(new Object());
+    }
+
+}
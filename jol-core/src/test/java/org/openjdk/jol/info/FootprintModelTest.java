@@ -0,0 +1,112 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.datamodel.Model32;
+import org.openjdk.jol.datamodel.Model64;
+import org.openjdk.jol.datamodel.ModelVM;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FootprintModelTest {
+
+    static final int[] SIZES = { 0, 1, 10, 11, 12, 13, 16, 17, 100, 1000, 5000 };
+
+    private static int jdkVersion() {
+        String v = System.getProperty("java.specification.version");
+        if (v.startsWith("1.")) {
+            v = v.substring(2);
+        }
+        return Integer.parseInt(v);
+    }
+
+    private static String value(int i) {
+        // Distinct 20-char Latin-1 strings
+        String s = "value-" + (1_000_000_000 + i);
+        return s + "0000000000".substring(s.length() - 10);
+    }
+
+    private static long measured(Object o) {
+        return GraphLayout.parseInstance(o).totalSize();
+    }
+
+    private static void fill(Map<Long, String> map, int size) {
+        for (int i = 0; i < size; i++) {
+            map.put(1000L + i, value(i));
+        }
+    }
+
+    @Test
+    public void collections() {
+        FootprintModel m = new FootprintModel(new ModelVM(), jdkVersion());
+        long key = m.instanceSize(Long.class);
+        long val = m.stringSize(20);
+        Assert.assertEquals(measured(value(0)), val);
+
+        for (int size : SIZES) {
+            ArrayList<Object> list = new ArrayList<>();
+            ArrayDeque<Object> deque = new ArrayDeque<>();
+            for (int i = 0; i < size; i++) {
+                list.add(value(i));
+                deque.add(value(i));
+            }
+            Assert.assertEquals("ArrayList of " + size, measured(list), m.arrayList(size, val));
+            Assert.assertEquals("ArrayDeque of " + size, measured(deque), m.arrayDeque(size, val));
+
+            Map<Long, String> hm = new HashMap<>();
+            fill(hm, size);
+            Assert.assertEquals("HashMap of " + size, measured(hm), m.hashMap(size, key, val));
+
+            Map<Long, String> lhm = new LinkedHashMap<>();
+            fill(lhm, size);
+            Assert.assertEquals("LinkedHashMap of " + size, measured(lhm), m.linkedHashMap(size, key, val));
+
+            Map<Long, String> chm = new ConcurrentHashMap<>();
+            fill(chm, size);
+            Assert.assertEquals("ConcurrentHashMap of " + size, measured(chm), m.concurrentHashMap(size, key, val));
+
+            Map<Long, String> tm = new TreeMap<>();
+            fill(tm, size);
+            Assert.assertEquals("TreeMap of " + size, measured(tm), m.treeMap(size, key, val));
+        }
+    }
+
+    @Test
+    public void capacities() {
+        Assert.assertEquals(0, FootprintModel.arrayListCapacity(0));
+        Assert.assertEquals(10, FootprintModel.arrayListCapacity(10));
+        Assert.assertEquals(15, FootprintModel.arrayListCapacity(11));
+        Assert.assertEquals(0, FootprintModel.hashMapCapacity(0));
+        Assert.assertEquals(16, FootprintModel.hashMapCapacity(12));
+        Assert.assertEquals(32, FootprintModel.hashMapCapacity(13));
+        Assert.assertEquals(8388608, FootprintModel.hashMapCapacity(5_000_000));
+        Assert.assertEquals(16, FootprintModel.concurrentHashMapCapacity(11));
+        Assert.assertEquals(32, FootprintModel.concurrentHashMapCapacity(12));
+        Assert.assertEquals(16, FootprintModel.arrayDequeCapacity(15, 8));
+        Assert.assertEquals(32, FootprintModel.arrayDequeCapacity(16, 8));
+        Assert.assertEquals(17, FootprintModel.arrayDequeCapacity(16, 11));
+        Assert.assertEquals(36, FootprintModel.arrayDequeCapacity(17, 11));
+    }
+
+    @Test
+    public void otherModels() {
+        FootprintModel m32 = new FootprintModel(new Model32(), 8);
+        FootprintModel m64 = new FootprintModel(new Model64(), 8);
+
+        // Every reference and header is larger in 64-bit model
+        Assert.assertTrue(m64.hashMap(1000, 0, 0) > m32.hashMap(1000, 0, 0));
+        Assert.assertEquals(80, m32.arraySize(Object.class, 16));
+        Assert.assertEquals(152, m64.arraySize(Object.class, 16));
+        Assert.assertEquals(m32.arraySize(char.class, 10), m32.stringSize(10) - m32.instanceSize(String.class));
+
+        long big = m64.hashMap(5_000_000, m64.instanceSize(Long.class), m64.stringSize(20));
+        Assert.assertTrue(big > 5_000_000L * (32 + 24 + 40 + 56));
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class FootprintWeigherTest {
+
+    enum E { ONE, TWO }
+
+    static class Entry {
+        final String name;
+        final E kind;
+        final long[] data;
+
+        Entry(String name, E kind, long[] data) {
+            this.name = name;
+            this.kind = kind;
+            this.data = data;
+        }
+    }
+
+    private static List<Object> shapes() {
+        List<Object> shapes = new ArrayList<>();
+        shapes.add("Hello, World");
+        shapes.add(42);
+        shapes.add(42L);
+        shapes.add(new int[100]);
+        shapes.add(new byte[0]);
+        shapes.add(new BigDecimal("3.14159265358979323846264338327950288"));
+        shapes.add(new Entry("entry", E.TWO, new long[10]));
+        shapes.add(Arrays.asList("a", "b", "c", "a"));
+        shapes.add(TimeUnit.SECONDS);
+
+        for (int size : new int[] { 0, 5, 20, 1000 }) {
+            List<Object> list = new ArrayList<>();
+            Map<Object, Object> map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                list.add("Value" + i);
+                map.put(i, new Entry("e" + i, E.ONE, null));
+            }
+            shapes.add(list);
+            shapes.add(map);
+        }
+
+        Object[] big = new Object[1000];
+        big[999] = "tail";
+        shapes.add(big);
+        return shapes;
+    }
+
+    @Test
+    public void sameAsWalk() {
+        FootprintWeigher weigher = new FootprintWeigher();
+        WalkLimits limits = WalkLimits.none().withMaxObjects(100_000).withBoundary(WalkBoundary.defaults());
+
+        for (Object shape : shapes()) {
+            long expected = new GraphStatsWalker(limits).walk(shape).totalSize();
+            Assert.assertEquals("Weight for " + shape.getClass(), expected, weigher.weigh(shape));
+        }
+    }
+
+    @Test
+    public void entries() {
+        FootprintWeigher weigher = new FootprintWeigher(WalkLimits.none());
+        String shared = "shared";
+        List<Object> value = new ArrayList<>();
+        value.add(shared);
+
+        Assert.assertEquals(0, weigher.weigh(null, null));
+        Assert.assertEquals(weigher.weigh(value), weigher.weigh(null, value));
+        Assert.assertEquals(weigher.weigh(shared), weigher.weigh(shared, shared));
+        Assert.assertEquals("Shared objects are counted once",
+                GraphStats.parseInstance(shared, value).totalSize(), weigher.weigh(shared, value));
+        Assert.assertEquals(weigher.weigh(shared, value), weigher.weighInt(shared, value));
+
+        Map<Integer, Object> large = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            large.put(i, shared);
+        }
+        Assert.assertEquals("Shared objects are counted once on the fallback path",
+                GraphStats.parseInstance(large, shared).totalSize(), weigher.weigh(shared, large));
+    }
+
+    @Test
+    public void limits() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add("Value" + i);
+        }
+
+        WalkLimits objects = WalkLimits.none().withMaxObjects(3);
+        Assert.assertEquals(new GraphStatsWalker(objects).walk(list).totalSize(),
+                new FootprintWeigher(objects).weigh(list));
+
+        WalkLimits bytes = WalkLimits.none().withMaxBytes(100);
+        Assert.assertEquals(new GraphStatsWalker(bytes).walk(list).totalSize(),
+                new FootprintWeigher(bytes).weigh(list));
+
+        WalkLimits depth = WalkLimits.none().withMaxDepth(1);
+        Assert.assertEquals(new GraphStatsWalker(depth).walk(list).totalSize(),
+                new FootprintWeigher(depth).weigh(list));
+    }
+
+}
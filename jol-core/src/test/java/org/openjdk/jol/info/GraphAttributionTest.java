@@ -0,0 +1,94 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphAttributionTest {
+
+    static class Tenant {
+        final Map<String, Object> cache = new HashMap<>();
+        final Object lookup;
+
+        Tenant(Object lookup) {
+            this.lookup = lookup;
+        }
+    }
+
+    @Test
+    public void disjoint() {
+        Tenant a = new Tenant(new Object());
+        Tenant b = new Tenant(new Object());
+
+        GraphAttribution ga = GraphAttribution.parseInstance(a, b);
+
+        Assert.assertEquals(2, ga.rootCount());
+        Assert.assertEquals(0, ga.sharedSize());
+        Assert.assertEquals(GraphStats.parseInstance(a).totalSize(), ga.exclusiveSize(0));
+        Assert.assertEquals(GraphStats.parseInstance(b).totalSize(), ga.exclusiveSize(1));
+        Assert.assertEquals(GraphStats.parseInstance(a, b).totalSize(), ga.totalSize());
+    }
+
+    @Test
+    public void shared() {
+        Object[] lookup = new Object[] { "a", "b", "c" };
+        Tenant a = new Tenant(lookup);
+        Tenant b = new Tenant(lookup);
+        Tenant c = new Tenant(new Object());
+        a.cache.put("x", new Object());
+
+        GraphAttribution ga = GraphAttribution.parseInstance(a, b, c);
+
+        long lookupSize = GraphStats.parseInstance((Object) lookup).totalSize();
+        Assert.assertEquals(lookupSize, ga.sharedSize());
+        Assert.assertEquals(lookupSize, ga.sharedSize(0));
+        Assert.assertEquals(lookupSize, ga.sharedSize(1));
+        Assert.assertEquals(0, ga.sharedSize(2));
+
+        Object[] roots = { a, b, c };
+        for (int r = 0; r < roots.length; r++) {
+            GraphStats gs = GraphStats.parseInstance(roots[r]);
+            Assert.assertEquals(gs.totalSize(), ga.totalSize(r));
+            Assert.assertEquals(gs.totalCount(), ga.totalCount(r));
+        }
+
+        Assert.assertEquals(GraphStats.parseInstance(a, b, c).totalSize(), ga.totalSize());
+        Assert.assertTrue(ga.toFootprint().contains("EXCLUSIVE"));
+    }
+
+    @Test
+    public void sameRootTwice() {
+        Tenant a = new Tenant(new Object());
+
+        GraphAttribution ga = GraphAttribution.parseInstance(a, a);
+        Assert.assertEquals(0, ga.exclusiveSize(0));
+        Assert.assertEquals(ga.totalSize(), ga.sharedSize(0));
+        Assert.assertEquals(ga.totalSize(), ga.sharedSize(1));
+    }
+
+    @Test
+    public void manyRoots() {
+        Object shared = new Object[] { new Object() };
+        List<Object> roots = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Object[] root = new Object[] { shared, new Object(), (i % 10 == 9) ? roots.get(0) : null };
+            roots.add(root);
+        }
+        Object[] rs = roots.toArray();
+
+        GraphAttribution ga = GraphAttribution.parseInstance(rs);
+
+        Assert.assertEquals(150, ga.rootCount());
+        for (int r = 0; r < rs.length; r++) {
+            GraphStats gs = GraphStats.parseInstance(rs[r]);
+            Assert.assertEquals("Root " + r, gs.totalSize(), ga.totalSize(r));
+            Assert.assertEquals("Root " + r, gs.totalCount(), ga.totalCount(r));
+        }
+        Assert.assertEquals(GraphStats.parseInstance(rs).totalSize(), ga.totalSize());
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphLayoutPathsTest {
+
+    static class A {
+        B b = new B();
+    }
+
+    static class B {
+        Object[] arr = new Object[] { null, new C() };
+    }
+
+    static class C {
+
+    }
+
+    private static Map<Class<?>, String> paths(GraphLayout gl) {
+        Map<Class<?>, String> paths = new HashMap<>();
+        for (long addr : gl.addresses()) {
+            GraphPathRecord r = gl.record(addr);
+            paths.put(r.klass(), r.path());
+        }
+        return paths;
+    }
+
+    @Test
+    public void singleRoot() {
+        Map<Class<?>, String> paths = paths(GraphLayout.parseInstance(new A()));
+        Assert.assertEquals("", paths.get(A.class));
+        Assert.assertEquals(".b", paths.get(B.class));
+        Assert.assertEquals(".b.arr", paths.get(Object[].class));
+        Assert.assertEquals(".b.arr[1]", paths.get(C.class));
+    }
+
+    @Test
+    public void multipleRoots() {
+        A a = new A();
+        Map<Class<?>, String> paths = paths(GraphLayout.parseInstance(new Object(), a));
+        Assert.assertEquals("<r2>", paths.get(A.class));
+        Assert.assertEquals("<r2>.b.arr[1]", paths.get(C.class));
+    }
+
+    @Test
+    public void arrayRoot() {
+        Object[] arr = new Object[] { new A() };
+        Map<Class<?>, String> paths = paths(GraphLayout.parseInstance((Object) arr));
+        Assert.assertEquals("[0]", paths.get(A.class));
+        Assert.assertEquals("[0].b.arr[1]", paths.get(C.class));
+    }
+
+    @Test
+    public void copiedPaths() {
+        A a = new A();
+        GraphLayout ga = GraphLayout.parseInstance(a);
+        GraphLayout gb = GraphLayout.parseInstance(a.b);
+
+        Map<Class<?>, String> diff = paths(ga.subtract(gb));
+        Assert.assertEquals(1, diff.size());
+        Assert.assertEquals("", diff.get(A.class));
+
+        Map<Class<?>, String> sum = paths(gb.add(ga));
+        Assert.assertEquals("", sum.get(A.class));
+        Assert.assertEquals(".arr[1]", sum.get(C.class));
+    }
+
+    @Test
+    public void visitors() {
+        final List<String> paths = new ArrayList<>();
+        new GraphWalker(new GraphVisitor() {
+            @Override
+            public void visit(GraphPathRecord gpr) {
+                paths.add(gpr.path());
+            }
+        }).walk(new A());
+
+        Assert.assertTrue(paths.contains(".b"));
+        Assert.assertTrue(paths.contains(".b.arr[1]"));
+        Assert.assertFalse("Roots are not visited", paths.contains(""));
+    }
+
+    @Test
+    public void batchVisitors() {
+        C shared = new C();
+        Object[] arr = new Object[5000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = (i % 7 == 0) ? null : (i % 5 == 0) ? shared : new A();
+        }
+
+        final List<String> plain = new ArrayList<>();
+        final List<String> batched = new ArrayList<>();
+        final int[] batches = new int[1];
+        new GraphWalker(new GraphVisitor() {
+            @Override
+            public void visit(GraphPathRecord gpr) {
+                plain.add(gpr.path());
+            }
+        }, new GraphBatchVisitor() {
+            @Override
+            public void visit(GraphPathRecord gpr) {
+                batched.add(gpr.path());
+            }
+
+            @Override
+            public void visitBatch(GraphPathBatch batch) {
+                batches[0]++;
+                for (int i = 0; i < batch.count(); i++) {
+                    batched.add(batch.path(i));
+                }
+            }
+        }).walk((Object) arr);
+
+        Assert.assertEquals(plain, batched);
+        Assert.assertTrue("Large array elements come in batches", batches[0] > 0);
+        Assert.assertTrue(plain.contains("[1]"));
+        Assert.assertTrue(plain.contains("[5]"));
+        Assert.assertFalse("Shared element is visited once", plain.contains("[10]"));
+        Assert.assertFalse(plain.contains("[7]"));
+        Assert.assertTrue(plain.contains("[4999].b.arr[1]"));
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphLayoutPrintTest {
+
+    private static GraphLayout layout() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add((i % 10 == 0) ? new long[100] : new Object());
+        }
+        // Snapshot keeps addresses stable across the printouts
+        return GraphLayout.parseInstance(list).snapshot();
+    }
+
+    private static String printable(GraphLayout gl, PrintOptions options) throws IOException {
+        StringWriter sw = new StringWriter();
+        gl.toPrintable(sw, options);
+        return sw.toString();
+    }
+
+    private static String footprint(GraphLayout gl, PrintOptions options) throws IOException {
+        StringWriter sw = new StringWriter();
+        gl.toFootprint(sw, options);
+        return sw.toString();
+    }
+
+    private static int count(String s, String sub) {
+        int c = 0;
+        for (int i = s.indexOf(sub); i >= 0; i = s.indexOf(sub, i + 1)) {
+            c++;
+        }
+        return c;
+    }
+
+    @Test
+    public void sameAsString() throws IOException {
+        GraphLayout gl = layout();
+        Assert.assertEquals(gl.toPrintable(), printable(gl, PrintOptions.all()));
+        Assert.assertEquals(gl.toFootprint(), footprint(gl, PrintOptions.all()));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        gl.toPrintable(bos, PrintOptions.all());
+        Assert.assertEquals(gl.toPrintable(), new String(bos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void maxRows() throws IOException {
+        GraphLayout gl = layout();
+        String s = printable(gl, PrintOptions.all().withMaxRows(10).withGapSummary());
+        Assert.assertEquals(10, count(s, "(not retained)"));
+        Assert.assertTrue(s, s.contains("Row limit reached, " + (gl.totalCount() - 10) + " more objects"));
+
+        String f = footprint(gl, PrintOptions.all().withMaxRows(1));
+        Assert.assertTrue(f, f.contains("(" + (gl.getClasses().size() - 1) + " other classes)"));
+        Assert.assertTrue(f, f.contains("   [J"));
+        Assert.assertFalse(f, f.contains("   java.lang.Object"));
+        Assert.assertTrue(f, f.contains("(total)"));
+    }
+
+    @Test
+    public void minSize() throws IOException {
+        GraphLayout gl = layout();
+        long arraySize = gl.getClassSizes().count(long[].class) / gl.getClassCounts().count(long[].class);
+
+        String s = printable(gl, PrintOptions.all().withMinSize(arraySize));
+        Assert.assertEquals(10, count(s, "[J"));
+        Assert.assertTrue(s, s.contains("smaller objects)"));
+        Assert.assertFalse(s.contains("java.lang.Object "));
+
+        String f = footprint(gl, PrintOptions.all().withMinSize(arraySize * 10));
+        Assert.assertTrue(f, f.contains("[J"));
+        Assert.assertFalse(f, f.contains("   java.util.ArrayList"));
+    }
+
+    @Test
+    public void gapSummary() throws IOException {
+        GraphLayout gl = layout();
+        String s = printable(gl, PrintOptions.all().withGapSummary());
+        Assert.assertFalse(s.contains("(something else)"));
+        Assert.assertEquals(gl.totalCount(), count(s, "(not retained)"));
+    }
+
+    @Test(expected = IOException.class)
+    public void failingWriter() throws IOException {
+        GraphLayout gl = layout();
+        gl.toPrintable(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("Boom");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, PrintOptions.all());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeRows() {
+        PrintOptions.all().withMaxRows(-1);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphLayoutSnapshotTest {
+
+    static class A {
+
+    }
+
+    static class B {
+        A a = new A();
+    }
+
+    static class C {
+        private final A a;
+        public C(A a) { this.a = a; }
+    }
+
+    @Test
+    public void sameTotals() {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(new B());
+        }
+
+        GraphLayout gl = GraphLayout.parseInstance(list);
+        GraphLayout snap = gl.snapshot();
+
+        Assert.assertEquals(gl.totalCount(), snap.totalCount());
+        Assert.assertEquals(gl.totalSize(), snap.totalSize());
+        Assert.assertEquals(gl.getClasses(), snap.getClasses());
+        for (Class<?> k : gl.getClasses()) {
+            Assert.assertEquals(gl.getClassCounts().count(k), snap.getClassCounts().count(k));
+            Assert.assertEquals(gl.getClassSizes().count(k), snap.getClassSizes().count(k));
+        }
+        Assert.assertEquals(gl.addresses(), snap.addresses());
+        for (long addr : gl.addresses()) {
+            Assert.assertEquals(gl.record(addr).path(), snap.record(addr).path());
+        }
+    }
+
+    @Test
+    public void subtract() {
+        A a = new A();
+        C c = new C(a);
+
+        GraphLayout ga = GraphLayout.parseInstance(a).snapshot();
+        GraphLayout gc = GraphLayout.parseInstance(c).snapshot();
+
+        GraphLayout diff = gc.subtract(ga);
+        Assert.assertEquals(1, diff.totalCount());
+        Assert.assertEquals(gc.totalSize() - ga.totalSize(), diff.totalSize());
+
+        GraphLayout sum = ga.add(GraphLayout.parseInstance(new B()));
+        Assert.assertEquals(3, sum.totalCount());
+    }
+
+    @Test
+    public void printable() {
+        GraphLayout snap = GraphLayout.parseInstance(new B()).snapshot();
+        String s = snap.toPrintable();
+        Assert.assertTrue(s, s.contains(B.class.getName()));
+        Assert.assertTrue(s, s.contains(".a"));
+        Assert.assertTrue(s, s.contains("(not retained)"));
+        Assert.assertNotNull(snap.toFootprint());
+    }
+
+    @Test
+    public void doesNotRetain() {
+        B b = new B();
+        WeakReference<Object> ref = new WeakReference<Object>(b.a);
+
+        GraphLayout snap = GraphLayout.parseInstance(b).snapshot();
+        b = null;
+
+        for (int c = 0; c < 10 && ref.get() != null; c++) {
+            System.gc();
+        }
+
+        Assert.assertNull("Object is collected", ref.get());
+        Assert.assertEquals(2, snap.totalCount());
+    }
+
+}
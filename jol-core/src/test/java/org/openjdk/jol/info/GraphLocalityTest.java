@@ -0,0 +1,137 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphLocalityTest {
+
+    /**
+     * Root Object[] at 0, with the children at the given addresses, 16 bytes each.
+     */
+    private static GraphLayout synthetic(long... childAddrs) {
+        int count = childAddrs.length + 1;
+        Class<?>[] klasses = new Class<?>[count];
+        long[] addrs = new long[count];
+        long[] sizes = new long[count];
+        int[] parents = new int[count];
+        int[] depths = new int[count];
+        int[] labels = new int[count];
+
+        klasses[0] = Object[].class;
+        sizes[0] = 32;
+        parents[0] = GraphRecords.NO_PARENT;
+        labels[0] = -1;
+        for (int i = 1; i < count; i++) {
+            klasses[i] = Object.class;
+            addrs[i] = childAddrs[i - 1];
+            sizes[i] = 16;
+            parents[i] = 0;
+            depths[i] = 1;
+            labels[i] = i - 1;
+        }
+        GraphRecords records = GraphRecords.restore(klasses, null, addrs, sizes, parents, depths, labels,
+                Arrays.asList("root"));
+        return GraphLayout.restore("synthetic", records, false, 1, true);
+    }
+
+    @Test
+    public void crossings() {
+        // 16: same line as parent; 64: next line; 4096: next page; 8192+64: far page
+        GraphLocality gl = GraphLocality.of(synthetic(16, 64, 4096, 8256));
+        Assert.assertEquals(4, gl.edgeCount());
+        Assert.assertEquals(4, gl.forwardEdgeCount());
+        Assert.assertEquals(3, gl.lineCrossingCount());
+        Assert.assertEquals(2, gl.pageCrossingCount());
+        Assert.assertEquals(0.75, gl.lineCrossingShare(), 0.0001);
+        Assert.assertEquals(0.5, gl.pageCrossingShare(), 0.0001);
+        Assert.assertEquals(3, gl.linesLoaded());
+        Assert.assertEquals(4, gl.getClassEdges().count(Object.class));
+        Assert.assertEquals(3, gl.getClassLineCrossings().count(Object.class));
+        Assert.assertEquals(2, gl.getClassPageCrossings().count(Object.class));
+        Assert.assertEquals(3, gl.getClassLinesLoaded().count(Object.class));
+    }
+
+    @Test
+    public void largerLines() {
+        GraphLocality gl = GraphLocality.of(synthetic(16, 64, 4096, 8256), 128, 8192);
+        Assert.assertEquals(2, gl.lineCrossingCount());
+        Assert.assertEquals(1, gl.pageCrossingCount());
+    }
+
+    @Test
+    public void spanningChild() {
+        // Child at 56 spans two lines, the first is shared with the parent
+        GraphLocality gl = GraphLocality.of(synthetic(56));
+        Assert.assertEquals(0, gl.lineCrossingCount());
+        Assert.assertEquals(1, gl.linesLoaded());
+    }
+
+    @Test
+    public void distances() {
+        GraphLocality gl = GraphLocality.of(synthetic(32, 1, 1024));
+        Assert.assertEquals(1, gl.distanceCount(1));
+        Assert.assertEquals(1, gl.distanceCount(6));
+        Assert.assertEquals(1, gl.distanceCount(11));
+        long sum = 0;
+        for (int b = 0; b < GraphLocality.DISTANCE_BUCKETS; b++) {
+            sum += gl.distanceCount(b);
+        }
+        Assert.assertEquals(gl.edgeCount(), sum);
+    }
+
+    @Test
+    public void density() {
+        // Root [0, 32), child [32, 48), child [112, 128)
+        GraphLocality gl = GraphLocality.of(synthetic(32, 112));
+        Assert.assertEquals(0, gl.startAddress());
+        Assert.assertEquals(128, gl.endAddress());
+        double[] map = gl.densityMap(4);
+        Assert.assertEquals(1.0, map[0], 0.0001);
+        Assert.assertEquals(0.5, map[1], 0.0001);
+        Assert.assertEquals(0.0, map[2], 0.0001);
+        Assert.assertEquals(0.5, map[3], 0.0001);
+    }
+
+    @Test
+    public void live() {
+        Map<String, Object> map = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add("value" + i);
+        }
+        map.put("list", list);
+        GraphLayout layout = GraphLayout.parseInstance(map).snapshot();
+        GraphLocality gl = GraphLocality.of(layout);
+
+        Assert.assertEquals(layout.totalCount() - 1, gl.edgeCount());
+        Assert.assertTrue(gl.pageCrossingCount() <= gl.edgeCount());
+        Assert.assertTrue(gl.lineCrossingCount() <= gl.edgeCount());
+        for (double d : gl.densityMap(16)) {
+            Assert.assertTrue(d >= 0 && d <= 1);
+        }
+        String s = gl.toPrintable();
+        Assert.assertTrue(s, s.contains("java.lang.String"));
+        Assert.assertTrue(s, s.contains("(total)"));
+    }
+
+    @Test
+    public void empty() {
+        GraphLocality gl = GraphLocality.of(new GraphLayout());
+        Assert.assertEquals(0, gl.edgeCount());
+        Assert.assertEquals(0, gl.lineCrossingShare(), 0);
+        Assert.assertEquals(0, gl.densityMap(4)[0], 0);
+        gl.toPrintable();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notPowerOfTwo() {
+        GraphLocality.of(new GraphLayout(), 48, 4096);
+    }
+
+}
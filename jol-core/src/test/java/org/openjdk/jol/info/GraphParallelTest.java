@@ -0,0 +1,105 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class GraphParallelTest {
+
+    static class Node {
+        Node left;
+        Node right;
+        Object payload;
+    }
+
+    private static Node tree(int depth, Random r) {
+        Node n = new Node();
+        if (depth > 0) {
+            n.left = tree(depth - 1, r);
+            n.right = tree(depth - 1, r);
+        }
+        n.payload = (r.nextBoolean()) ? new byte[r.nextInt(100)] : Integer.valueOf(r.nextInt());
+        return n;
+    }
+
+    private static List<Object> shapes() {
+        List<Object> shapes = new ArrayList<>();
+
+        shapes.add(new Object());
+
+        LinkedList<Integer> list = new LinkedList<>();
+        for (int i = 0; i < 10000; i++) {
+            list.add(i);
+        }
+        shapes.add(list);
+
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, "Value" + i);
+        }
+        shapes.add(map);
+
+        Object[] arr = new Object[10000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = (i % 3 == 0) ? arr : new Object[] { i, "Value" + i };
+        }
+        shapes.add(arr);
+
+        shapes.add(tree(12, new Random(1)));
+
+        return shapes;
+    }
+
+    @Test
+    public void statsAgree() {
+        for (Object s : shapes()) {
+            GraphStats seq = GraphStats.parseInstance(s);
+            for (int p : new int[] {1, 2, 4, 8}) {
+                GraphStats par = GraphStats.parseInstanceParallel(p, s);
+                Assert.assertEquals("Counts agree for " + s.getClass() + " with " + p + " threads",
+                        seq.totalCount(), par.totalCount());
+                Assert.assertEquals("Sizes agree for " + s.getClass() + " with " + p + " threads",
+                        seq.totalSize(), par.totalSize());
+            }
+        }
+    }
+
+    @Test
+    public void layoutsAgree() {
+        for (Object s : shapes()) {
+            GraphLayout seq = GraphLayout.parseInstance(s);
+            for (int p : new int[] {1, 2, 4, 8}) {
+                GraphLayout par = GraphLayout.parseInstanceParallel(p, s);
+                Assert.assertEquals("Counts agree for " + s.getClass() + " with " + p + " threads",
+                        seq.totalCount(), par.totalCount());
+                Assert.assertEquals("Sizes agree for " + s.getClass() + " with " + p + " threads",
+                        seq.totalSize(), par.totalSize());
+                Assert.assertEquals("Class counts agree for " + s.getClass() + " with " + p + " threads",
+                        seq.getClasses(), par.getClasses());
+            }
+        }
+    }
+
+    @Test
+    public void statsAgreeWithLayouts() {
+        for (Object s : shapes()) {
+            GraphStats stats = GraphStats.parseInstance(s);
+            GraphLayout layout = GraphLayout.parseInstance(s);
+            Assert.assertEquals("Counts agree for " + s.getClass(),
+                    layout.totalCount(), stats.totalCount());
+            Assert.assertEquals("Sizes agree for " + s.getClass(),
+                    layout.totalSize(), stats.totalSize());
+        }
+    }
+
+    @Test
+    public void multipleRoots() {
+        Node n = tree(8, new Random(2));
+        GraphStats seq = GraphStats.parseInstance(n, n.left, n.right.right, new Object());
+        GraphStats par = GraphStats.parseInstanceParallel(4, n, n.left, n.right.right, new Object());
+        Assert.assertEquals(seq.totalCount(), par.totalCount());
+        Assert.assertEquals(seq.totalSize(), par.totalSize());
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.datamodel.Model64;
+import org.openjdk.jol.datamodel.Model64_COOPS_CCPS;
+import org.openjdk.jol.datamodel.Model64_COOPS_COH;
+import org.openjdk.jol.datamodel.ModelVM;
+import org.openjdk.jol.layouters.HotSpotLayouter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphReprojectionTest {
+
+    private static int jdkVersion() {
+        String v = System.getProperty("java.specification.version");
+        if (v.startsWith("1.")) {
+            v = v.substring(2);
+        }
+        return Integer.parseInt(v);
+    }
+
+    private static Object graph() {
+        Map<String, Object> map = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add("value" + i);
+            list.add(new long[i % 7]);
+            list.add(new byte[i % 13]);
+        }
+        map.put("list", list);
+        map.put("array", new Object[] { new Object(), 42L });
+        return map;
+    }
+
+    @Test
+    public void currentModel() {
+        GraphLayout layout = GraphLayout.parseInstance(graph());
+        GraphReprojection rp = GraphReprojection.of(layout, new FootprintModel(new ModelVM(), jdkVersion()));
+        Assert.assertEquals(layout.totalCount(), rp.totalCount());
+        Assert.assertEquals(layout.totalSize(), rp.totalSize());
+        Assert.assertEquals(layout.totalSize(), rp.totalSize(0));
+        for (Class<?> k : layout.getClasses()) {
+            Assert.assertEquals(k.getName(), layout.getClassSizes().count(k), rp.getClassSizes(0).count(k));
+        }
+    }
+
+    @Test
+    public void snapshot() {
+        GraphLayout layout = GraphLayout.parseInstance(graph()).snapshot();
+        GraphReprojection rp = GraphReprojection.of(layout, new FootprintModel(new ModelVM(), jdkVersion()));
+        Assert.assertEquals(layout.totalSize(), rp.totalSize(0));
+    }
+
+    static class Fat {
+        long a, b, c, d;
+        Object e;
+    }
+
+    @Test
+    public void unresolvedClasses() throws IOException {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(new Fat());
+        }
+        GraphLayout layout = GraphLayout.parseInstance(list).snapshot();
+
+        // Bootstrap loader does not see the test classes
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GraphSnapshot.write(layout, bos, false);
+        GraphLayout read = GraphSnapshot.read(new ByteArrayInputStream(bos.toByteArray()), null);
+
+        GraphReprojection rp = GraphReprojection.of(read,
+                new FootprintModel(new Model64(), jdkVersion()),
+                new FootprintModel(new Model64_COOPS_COH(), 24));
+        Class<?> k = GraphSnapshot.Unresolved.class;
+        Assert.assertEquals(10, read.getClassCounts().count(k));
+        for (int m = 0; m < rp.modelCount(); m++) {
+            Assert.assertEquals(read.getClassSizes().count(k), rp.getClassSizes(m).count(k));
+        }
+    }
+
+    @Test
+    public void streaming() {
+        Object root = graph();
+        GraphReprojection rp = new GraphReprojection(
+                new FootprintModel(new ModelVM(), jdkVersion()),
+                new FootprintModel(new Model64(), 15));
+        GraphStats stats = new GraphStreamWalker(rp).walk(root);
+        GraphReprojection expected = GraphReprojection.of(GraphLayout.parseInstance(root),
+                new FootprintModel(new ModelVM(), jdkVersion()),
+                new FootprintModel(new Model64(), 15));
+        Assert.assertEquals(stats.totalCount(), rp.totalCount());
+        Assert.assertEquals(stats.totalSize(), rp.totalSize(0));
+        Assert.assertEquals(expected.totalSize(1), rp.totalSize(1));
+    }
+
+    @Test
+    public void models() {
+        GraphReprojection rp = new GraphReprojection(
+                new FootprintModel(new Model64(), 15),
+                new FootprintModel(new Model64_COOPS_CCPS(), 15),
+                new FootprintModel(new Model64_COOPS_CCPS(16), 15),
+                new FootprintModel(new Model64_COOPS_COH(), 24));
+        rp.add(GraphLayout.parseInstance(graph()));
+        Assert.assertEquals(4, rp.modelCount());
+        Assert.assertTrue(rp.totalSize(0) > rp.totalSize(1));
+        Assert.assertTrue(rp.totalSize(2) > rp.totalSize(1));
+        Assert.assertTrue(rp.totalSize(3) < rp.totalSize(1));
+        Assert.assertTrue(rp.toPrintable().contains("compact object headers"));
+    }
+
+    @Test
+    public void exactSizes() {
+        GraphReprojection rp = new GraphReprojection(
+                new FootprintModel(new Model64(), 15),
+                new FootprintModel(new Model64_COOPS_CCPS(), 15),
+                new FootprintModel(new Model64_COOPS_COH(), 24));
+        rp.add(GraphLayout.parseInstance(new Object()));
+        Assert.assertEquals(16, rp.totalSize(0));
+        Assert.assertEquals(16, rp.totalSize(1));
+        Assert.assertEquals(8, rp.totalSize(2));
+
+        rp = new GraphReprojection(
+                new FootprintModel(new Model64(), 15),
+                new FootprintModel(new Model64_COOPS_CCPS(), 15),
+                new FootprintModel(new Model64_COOPS_COH(), 24));
+        rp.add(GraphLayout.parseInstance((Object) new int[1]));
+        Assert.assertEquals(24, rp.totalSize(0));
+        Assert.assertEquals(24, rp.totalSize(1));
+        Assert.assertEquals(16, rp.totalSize(2));
+    }
+
+    @Test
+    public void compactHeaderLayout() {
+        ClassLayout cl = ClassLayout.parseClass(Object.class, new HotSpotLayouter(new Model64_COOPS_COH(), 24));
+        Assert.assertEquals(8, cl.instanceSize());
+        Assert.assertFalse(cl.toPrintable().contains("(object header: class)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noModels() {
+        new GraphReprojection();
+    }
+
+}
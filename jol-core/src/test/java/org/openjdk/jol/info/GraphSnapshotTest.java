@@ -0,0 +1,229 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphSnapshotTest {
+
+    static class Node {
+        Node next;
+        Object payload;
+    }
+
+    private static GraphLayout layout() {
+        Map<String, Object> map = new HashMap<>();
+        Node head = null;
+        for (int i = 0; i < 100; i++) {
+            Node n = new Node();
+            n.next = head;
+            n.payload = (i % 10 == 0) ? new long[i] : "value" + i;
+            head = n;
+        }
+        List<Object> list = new ArrayList<>();
+        list.add(new Object[] { head, new int[3] });
+        map.put("nodes", head);
+        map.put("list", list);
+        // Snapshot keeps addresses stable across the comparisons
+        return GraphLayout.parseInstance(map).snapshot();
+    }
+
+    private static GraphLayout roundTrip(GraphLayout gl, boolean compress, ClassLoader loader) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GraphSnapshot.write(gl, bos, compress);
+        return GraphSnapshot.read(new ByteArrayInputStream(bos.toByteArray()), loader);
+    }
+
+    private static void assertSame(GraphLayout expected, GraphLayout actual) {
+        Assert.assertEquals(expected.totalCount(), actual.totalCount());
+        Assert.assertEquals(expected.totalSize(), actual.totalSize());
+        Assert.assertEquals(expected.startAddress(), actual.startAddress());
+        Assert.assertEquals(expected.endAddress(), actual.endAddress());
+        Assert.assertEquals(expected.addressCount(), actual.addressCount());
+        for (int p = 0; p < expected.addressCount(); p++) {
+            long addr = expected.addressAt(p);
+            Assert.assertEquals(addr, actual.addressAt(p));
+            Assert.assertEquals(expected.record(addr).path(), actual.record(addr).path());
+            Assert.assertEquals(expected.record(addr).className(), actual.record(addr).className());
+            Assert.assertEquals(expected.record(addr).size(), actual.record(addr).size());
+        }
+    }
+
+    private static void assertSameHistogram(GraphLayout expected, GraphLayout actual) {
+        Assert.assertEquals(expected.getClasses(), actual.getClasses());
+        for (Class<?> k : expected.getClasses()) {
+            Assert.assertEquals(expected.getClassCounts().count(k), actual.getClassCounts().count(k));
+            Assert.assertEquals(expected.getClassSizes().count(k), actual.getClassSizes().count(k));
+        }
+    }
+
+    @Test
+    public void streams() throws IOException {
+        GraphLayout gl = layout();
+        ClassLoader cl = GraphSnapshotTest.class.getClassLoader();
+        for (boolean compress : new boolean[] { false, true }) {
+            GraphLayout read = roundTrip(gl, compress, cl);
+            assertSame(gl, read);
+            assertSameHistogram(gl, read);
+            Assert.assertEquals(gl.toPrintable(), read.toPrintable());
+            Assert.assertEquals(gl.toFootprint(), read.toFootprint());
+        }
+    }
+
+    @Test
+    public void files() throws IOException {
+        GraphLayout gl = layout();
+        for (boolean compress : new boolean[] { false, true }) {
+            File f = File.createTempFile("jol", ".snapshot");
+            try {
+                GraphSnapshot.write(gl, f.getAbsolutePath(), compress);
+                GraphLayout read = GraphSnapshot.read(f.getAbsolutePath());
+                assertSame(gl, read);
+                Assert.assertEquals(gl.toPrintable(), read.toPrintable());
+            } finally {
+                f.delete();
+            }
+        }
+    }
+
+    @Test
+    public void compressedIsSmaller() throws IOException {
+        GraphLayout gl = layout();
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GraphSnapshot.write(gl, plain, false);
+        GraphSnapshot.write(gl, compressed, true);
+        Assert.assertTrue(compressed.size() < plain.size());
+    }
+
+    @Test
+    public void live() throws IOException {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(new Object());
+        }
+        GraphLayout gl = GraphLayout.parseInstance(list);
+        GraphLayout read = roundTrip(gl, false, GraphSnapshotTest.class.getClassLoader());
+        Assert.assertEquals(gl.totalCount(), read.totalCount());
+        Assert.assertEquals(gl.totalSize(), read.totalSize());
+        assertSameHistogram(gl, read);
+    }
+
+    @Test
+    public void combined() throws IOException {
+        GraphLayout a = layout();
+        GraphLayout b = GraphLayout.parseInstance(new Object()).snapshot();
+        GraphLayout sum = a.add(b);
+        GraphLayout read = roundTrip(sum, true, GraphSnapshotTest.class.getClassLoader());
+        assertSame(sum, read);
+        Assert.assertEquals(a.totalCount(), read.subtract(b).totalCount());
+    }
+
+    @Test
+    public void unresolvedClasses() throws IOException {
+        GraphLayout gl = layout();
+        // Bootstrap loader does not see the test classes
+        GraphLayout read = roundTrip(gl, false, null);
+        assertSame(gl, read);
+
+        long nodes = gl.getClassCounts().count(Node.class);
+        Assert.assertEquals(nodes, countNamed(read, Node.class.getName()));
+        Assert.assertEquals(nodes, read.getClassCounts().count(GraphSnapshot.Unresolved.class));
+        Assert.assertTrue(read.toPrintable().contains(Node.class.getName()));
+    }
+
+    @Test
+    public void lambdas() throws Exception {
+        Object lambda;
+        try {
+            lambda = Class.forName("java.util.function.Function").getMethod("identity").invoke(null);
+        } catch (ClassNotFoundException e) {
+            // No lambdas in this JDK
+            return;
+        }
+        String name = lambda.getClass().getName();
+        GraphLayout gl = GraphLayout.parseInstance(lambda, new Node()).snapshot();
+
+        for (boolean compress : new boolean[] { false, true }) {
+            // Hidden classes cannot be resolved by name
+            GraphLayout read = roundTrip(gl, compress, GraphSnapshotTest.class.getClassLoader());
+            assertSame(gl, read);
+            Assert.assertEquals(1, countNamed(read, name));
+            Assert.assertEquals(1, read.getClassCounts().count(GraphSnapshot.Unresolved.class));
+
+            // Recorded names survive writing the layout again
+            GraphLayout again = roundTrip(read, compress, GraphSnapshotTest.class.getClassLoader());
+            Assert.assertEquals(1, countNamed(again, name));
+        }
+    }
+
+    private static long countNamed(GraphLayout gl, String name) {
+        long n = 0;
+        for (int p = 0; p < gl.addressCount(); p++) {
+            if (gl.record(gl.addressAt(p)).className().equals(name)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void empty() throws IOException {
+        GraphLayout gl = new GraphLayout();
+        GraphLayout read = roundTrip(gl, true, null);
+        Assert.assertEquals(0, read.totalCount());
+        Assert.assertEquals(0, read.totalSize());
+    }
+
+    @Test(expected = IOException.class)
+    public void notSnapshot() throws IOException {
+        GraphSnapshot.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 }), null);
+    }
+
+    @Test
+    public void hugeCount() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GraphLayout gl = new GraphLayout();
+        GraphSnapshot.write(gl, bos, false);
+        byte[] bytes = bos.toByteArray();
+
+        // Record count follows the header, the description, and three ints
+        int off = 12 + 4 + gl.description().getBytes(StandardCharsets.UTF_8).length + 3 * 4;
+        bytes[off] = 0x7F;
+        bytes[off + 1] = (byte) 0xFF;
+        bytes[off + 2] = (byte) 0xFF;
+        bytes[off + 3] = (byte) 0xFF;
+
+        File f = File.createTempFile("jol", ".snapshot");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(f)) {
+                fos.write(bytes);
+            }
+            GraphSnapshot.read(f.getAbsolutePath(), null);
+            Assert.fail("Should have failed");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncated() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GraphSnapshot.write(layout(), bos, false);
+        byte[] bytes = bos.toByteArray();
+        GraphSnapshot.read(new ByteArrayInputStream(bytes, 0, bytes.length / 2), null);
+    }
+
+}
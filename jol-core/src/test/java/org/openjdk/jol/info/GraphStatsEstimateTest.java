@@ -0,0 +1,174 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class GraphStatsEstimateTest {
+
+    @Test
+    public void exactWithoutLargeArrays() {
+        Object[] arr = new Object[100];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = new Object[] { new Object() };
+        }
+
+        GraphStats exact = GraphStats.parseInstance((Object) arr);
+        GraphStatsEstimate est = GraphStatsEstimate.parseInstance((Object) arr);
+
+        Assert.assertTrue(est.isExact());
+        Assert.assertEquals(exact.totalCount(), est.totalCount());
+        Assert.assertEquals(exact.totalSize(), est.totalSize());
+        Assert.assertEquals(0, est.totalSizeError(), 0);
+    }
+
+    @Test
+    public void homogeneousArray() {
+        Object[] arr = new Object[100_000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = new Object[] { new Object(), (i % 2 == 0) ? new Object[3] : null };
+        }
+
+        GraphStats exact = GraphStats.parseInstance((Object) arr);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(1000, 500, new Random(42)).walk((Object) arr);
+
+        Assert.assertFalse(est.isExact());
+        Assert.assertEquals(1, est.sampledArrays());
+        assertClose(exact.totalCount(), est.totalCount(), 0.05);
+        assertClose(exact.totalSize(), est.totalSize(), 0.05);
+        Assert.assertTrue(est.totalSizeError() > 0);
+    }
+
+    @Test
+    public void hashMap() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i, String.valueOf(i));
+        }
+
+        GraphStats exact = GraphStats.parseInstance(map);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(1000, 1000, new Random(42)).walk(map);
+
+        assertClose(exact.totalCount(), est.totalCount(), 0.02);
+        assertClose(exact.totalSize(), est.totalSize(), 0.02);
+    }
+
+    @Test
+    public void linkedHashMap() {
+        // Entries are linked to each other, beyond the table
+        Map<Integer, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            map.put(i, String.valueOf(i));
+        }
+
+        GraphStats exact = GraphStats.parseInstance(map);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(1000, 1000, new Random(42)).walk(map);
+
+        assertClose(exact.totalCount(), est.totalCount(), 0.02);
+        assertClose(exact.totalSize(), est.totalSize(), 0.02);
+        Assert.assertTrue(est.totalSizeError() < exact.totalSize() * 0.02);
+    }
+
+    static class Owner {
+        final Object[] items;
+        final long[] payload = new long[1000];
+
+        Owner(int size) {
+            items = new Object[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = new Item(this);
+            }
+        }
+    }
+
+    static class Item {
+        final Owner owner;
+        final Object own = new Object();
+
+        Item(Owner owner) {
+            this.owner = owner;
+        }
+    }
+
+    @Test
+    public void backReferences() {
+        // Every element references its owner, and the owner has the rest of the graph
+        Owner owner = new Owner(100_000);
+        List<Object> root = new ArrayList<>();
+        root.add(owner);
+        root.add(new long[10_000]);
+
+        GraphStats exact = GraphStats.parseInstance(root);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(1000, 500, new Random(42)).walk(root);
+
+        assertClose(exact.totalCount(), est.totalCount(), 0.02);
+        assertClose(exact.totalSize(), est.totalSize(), 0.02);
+    }
+
+    static class Linked {
+        Linked next;
+    }
+
+    @Test
+    public void linkedElementValues() {
+        // Elements own the values, but values are chained to each other
+        Object[] arr = new Object[100_000];
+        Linked prev = null;
+        for (int i = 0; i < arr.length; i++) {
+            Linked l = new Linked();
+            if (prev != null) {
+                prev.next = l;
+            }
+            prev = l;
+            arr[i] = new Object[] { l };
+        }
+
+        GraphStats exact = GraphStats.parseInstance((Object) arr);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(1000, 1000, new Random(42)).walk((Object) arr);
+
+        // Not exact, but bounded
+        assertClose(exact.totalCount(), est.totalCount(), 0.25);
+        assertClose(exact.totalSize(), est.totalSize(), 0.25);
+    }
+
+    @Test
+    public void fullSample() {
+        Object[] arr = new Object[1000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = new Object();
+        }
+
+        GraphStats exact = GraphStats.parseInstance((Object) arr);
+        GraphStatsEstimate est = new SamplingGraphStatsWalker(100, 100, new Random(42)).walk((Object) arr);
+
+        // Every element is the same, so the sample should be exact, with no variance
+        Assert.assertEquals(exact.totalCount(), est.totalCount());
+        Assert.assertEquals(exact.totalSize(), est.totalSize());
+        Assert.assertEquals(0, est.totalSizeError(), 1e-6);
+    }
+
+    @Test
+    public void distinctIndexes() {
+        SamplingGraphStatsWalker w = new SamplingGraphStatsWalker(10, 10, new Random(42));
+        int[] idx = w.pickIndexes(20, 10);
+        Assert.assertEquals(10, idx.length);
+        for (int i = 1; i < idx.length; i++) {
+            Assert.assertTrue(idx[i - 1] < idx[i]);
+        }
+        Assert.assertTrue(idx[0] >= 0);
+        Assert.assertTrue(idx[idx.length - 1] < 20);
+    }
+
+    private static void assertClose(long expected, long actual, double tolerance) {
+        double diff = Math.abs(expected - actual);
+        Assert.assertTrue("Expected " + expected + " +-" + (tolerance * 100) + "%, but got " + actual,
+                diff <= expected * tolerance);
+    }
+
+}
@@ -2,6 +2,10 @@ package org.openjdk.jol.info;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.openjdk.jol.util.AddressIdentityHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class GraphStatsTest {
 
@@ -85,4 +89,168 @@ public class GraphStatsTest {
         }
     }
 
+    @Test
+    public void addressVisitedSet() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+        Object[] arr = { d, d, new B(), new B() };
+
+        GraphStats addr = new GraphStatsWalker(WalkLimits.none(), true).walk(arr, d);
+        GraphStats ident = new GraphStatsWalker(WalkLimits.none(), false).walk(arr, d);
+
+        Assert.assertEquals("Address-keyed set gives the same counts",
+                ident.totalCount(), addr.totalCount());
+        Assert.assertEquals("Address-keyed set gives the same sizes",
+                ident.totalSize(), addr.totalSize());
+    }
+
+    @Test
+    public void addressVisitedSetRestart() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+
+        // Moved objects added again leave the set inconsistent, and the walk restarts
+        AddressIdentityHashSet visited = new AddressIdentityHashSet();
+        Object[] junk = new Object[10000];
+        for (int i = 0; i < junk.length; i++) {
+            junk[i] = new Object();
+            visited.add(junk[i]);
+        }
+        System.gc();
+        for (Object o : junk) {
+            visited.add(o);
+        }
+
+        GraphStatsWalker walker = new GraphStatsWalker(WalkLimits.none(), true);
+        GraphStats addr = walker.walk(visited, walker.newWorkList(), d);
+        GraphStats ident = new GraphStatsWalker(WalkLimits.none(), false).walk(d);
+
+        Assert.assertEquals(ident.totalCount(), addr.totalCount());
+        Assert.assertEquals(ident.totalSize(), addr.totalSize());
+        Assert.assertTrue("Supplied set is kept", visited.contains(d));
+    }
+
+    @Test
+    public void offHeapWalker() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+        Object[] arr = { d, d, new B(), new B() };
+
+        GraphStats offHeap = new OffHeapGraphStatsWalker().walk(arr, d);
+        GraphStats onHeap = new GraphStatsWalker().walk(arr, d);
+
+        Assert.assertEquals("Off-heap walker gives the same counts",
+                onHeap.totalCount(), offHeap.totalCount());
+        Assert.assertEquals("Off-heap walker gives the same sizes",
+                onHeap.totalSize(), offHeap.totalSize());
+    }
+
+    @Test
+    public void offHeapWalkerGC() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+        GraphStats onHeap = new GraphStatsWalker().walk(d);
+
+        // GC in the first attempt, the second one is exact
+        OffHeapGraphStatsWalker walker = new OffHeapGraphStatsWalker(WalkLimits.none().withBoundary(gcOnce()), 2);
+        GraphStats offHeap = walker.walk(d);
+        Assert.assertEquals(2, walker.lastTries());
+        Assert.assertFalse(offHeap.isTruncated());
+        Assert.assertEquals(onHeap.totalCount(), offHeap.totalCount());
+        Assert.assertEquals(onHeap.totalSize(), offHeap.totalSize());
+
+        // GC in the only attempt, it completes, but is marked
+        walker = new OffHeapGraphStatsWalker(WalkLimits.none().withBoundary(gcOnce()), 1);
+        offHeap = walker.walk(d);
+        Assert.assertEquals(1, walker.lastTries());
+        Assert.assertTrue(offHeap.isTruncated());
+    }
+
+    private static WalkBoundary gcOnce() {
+        // Boundary decisions are cached, so this runs once per class
+        return new WalkBoundary() {
+            @Override
+            protected boolean stopsAt(Class<?> klass) {
+                System.gc();
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void traversalOrders() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+        Map<Integer, Object> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, (i % 3 == 0) ? new B() : new C(new A()));
+        }
+        Object[] arr = { d, map, new B(), map };
+
+        GraphStats expected = new GraphStatsWalker().walk(arr, d);
+        for (TraversalOrder order : TraversalOrder.values()) {
+            GraphStats actual = new GraphStatsWalker(WalkLimits.none(), order).walk(arr, d);
+            Assert.assertEquals("Same counts for " + order,
+                    expected.totalCount(), actual.totalCount());
+            Assert.assertEquals("Same sizes for " + order,
+                    expected.totalSize(), actual.totalSize());
+        }
+    }
+
+    @Test
+    public void traversalOrdersWithDepth() {
+        D d = new D(null);
+        for (int i = 0; i < 10000; i++) {
+            d = new D(d);
+        }
+        Object[] arr = new Object[8000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = new B();
+        }
+
+        // Tree-shaped graph: every object is reachable at a single depth only
+        WalkLimits limits = WalkLimits.none().withMaxDepth(100);
+        for (TraversalOrder order : TraversalOrder.values()) {
+            GraphStats actual = new GraphStatsWalker(limits, order).walk(arr, d);
+            Assert.assertEquals("Depth-limited counts for " + order,
+                    1 + arr.length * 2 + 101, actual.totalCount());
+        }
+    }
+
+    @Test
+    public void largeArrays() {
+        B b = new B();
+        Object[] arr = new Object[10000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = (i % 3 == 0) ? null : (i % 2 == 0) ? b : new B();
+        }
+
+        GraphStats stats = GraphStats.parseInstance((Object) arr);
+        GraphLayout layout = GraphLayout.parseInstance((Object) arr);
+        Assert.assertEquals(layout.totalCount(), stats.totalCount());
+        Assert.assertEquals(layout.totalSize(), stats.totalSize());
+
+        int unique = 0;
+        for (int i = 0; i < arr.length; i++) {
+            if (i % 3 != 0 && i % 2 != 0) unique++;
+        }
+        Assert.assertEquals("Array, shared B and unique Bs, each with its A",
+                1 + 2 * (unique + 1), stats.totalCount());
+
+        WalkLimits limits = WalkLimits.none().withMaxObjects(1000);
+        GraphStats truncated = new GraphStatsWalker(limits).walk((Object) arr);
+        Assert.assertTrue(truncated.isTruncated());
+        Assert.assertEquals(1000, truncated.totalCount());
+    }
+
 }
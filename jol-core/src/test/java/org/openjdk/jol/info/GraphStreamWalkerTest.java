@@ -0,0 +1,109 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.util.Multiset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GraphStreamWalkerTest {
+
+    static class A {
+        Object f = new Object();
+        Object[] arr = { null, new Object() };
+    }
+
+    @Test
+    public void matchesLayout() {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "Value" + i);
+        }
+
+        final Multiset<Class<?>> counts = new Multiset<>();
+        final Multiset<Class<?>> sizes = new Multiset<>();
+        GraphStats gs = new GraphStreamWalker(new GraphStreamVisitor() {
+            @Override
+            public void visit(Object obj, Class<?> klass, long size, int depth, Object parent, String field, int index) {
+                counts.add(klass);
+                sizes.add(klass, size);
+            }
+        }).walk(map);
+
+        GraphLayout gl = GraphLayout.parseInstance(map);
+        Assert.assertEquals(gl.totalCount(), gs.totalCount());
+        Assert.assertEquals(gl.totalSize(), gs.totalSize());
+        for (Class<?> k : gl.getClasses()) {
+            Assert.assertEquals(gl.getClassCounts().count(k), counts.count(k));
+            Assert.assertEquals(gl.getClassSizes().count(k), sizes.count(k));
+        }
+    }
+
+    @Test
+    public void edges() {
+        final A a = new A();
+        final List<String> seen = new ArrayList<>();
+
+        new GraphStreamWalker(new GraphStreamVisitor() {
+            @Override
+            public void visit(Object obj, Class<?> klass, long size, int depth, Object parent, String field, int index) {
+                if (obj == a) {
+                    Assert.assertNull(parent);
+                    seen.add("root:" + depth);
+                } else if (obj == a.f) {
+                    Assert.assertSame(a, parent);
+                    seen.add(field + ":" + index + ":" + depth);
+                } else if (obj == a.arr) {
+                    Assert.assertSame(a, parent);
+                    seen.add(field + ":" + index + ":" + depth);
+                } else if (obj == a.arr[1]) {
+                    Assert.assertSame(a.arr, parent);
+                    seen.add(field + ":" + index + ":" + depth);
+                }
+            }
+        }).walk(a);
+
+        Assert.assertTrue(seen.contains("root:0"));
+        Assert.assertTrue(seen.contains("f:-1:1"));
+        Assert.assertTrue(seen.contains("arr:-1:1"));
+        Assert.assertTrue(seen.contains("null:1:2"));
+        Assert.assertEquals(4, seen.size());
+    }
+
+    @Test
+    public void largeArrayEdges() {
+        final Object[] arr = new Object[2000];
+        for (int i = 0; i < arr.length; i += 3) {
+            arr[i] = new Object();
+        }
+
+        final int[] seen = new int[1];
+        GraphStats gs = new GraphStreamWalker(new GraphStreamVisitor() {
+            @Override
+            public void visit(Object obj, Class<?> klass, long size, int depth, Object parent, String field, int index) {
+                if (obj != arr) {
+                    Assert.assertSame(arr, parent);
+                    Assert.assertSame(obj, arr[index]);
+                    Assert.assertNull(field);
+                    Assert.assertEquals(1, depth);
+                    seen[0]++;
+                }
+            }
+        }).walk((Object) arr);
+
+        Assert.assertEquals(667, seen[0]);
+        Assert.assertEquals(668, gs.totalCount());
+    }
+
+    @Test
+    public void limits() {
+        A a = new A();
+        GraphStats gs = new GraphStreamWalker(WalkLimits.none().withMaxDepth(1)).walk(a);
+        Assert.assertTrue(gs.isTruncated());
+        Assert.assertEquals(3, gs.totalCount());
+    }
+
+}
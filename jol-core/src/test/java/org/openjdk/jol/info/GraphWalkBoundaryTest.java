@@ -0,0 +1,100 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.util.concurrent.TimeUnit;
+
+public class GraphWalkBoundaryTest {
+
+    static class Service {
+        final Object[] state = new Object[100];
+    }
+
+    static class Holder {
+        final Object payload = new Object();
+        final Service service1;
+        final Service service2;
+        final TimeUnit unit = TimeUnit.SECONDS;
+        final Class<?> klass = Holder.class;
+
+        Holder(Service service) {
+            this.service1 = service;
+            this.service2 = service;
+        }
+    }
+
+    @Test
+    public void stopsAtBoundaryClasses() {
+        Holder h = new Holder(new Service());
+        WalkLimits limits = WalkLimits.none().withBoundary(WalkBoundary.classes(Service.class));
+
+        GraphLayout gl = new GraphWalker(limits).walk(h);
+        GraphStats gs = new GraphStatsWalker(limits).walk(h);
+
+        Assert.assertFalse(gl.isTruncated());
+        Assert.assertFalse(gl.getClasses().contains(Service.class));
+        Assert.assertFalse(gl.getClasses().contains(Object[].class));
+        Assert.assertEquals(gl.totalSize(), gs.totalSize());
+        Assert.assertEquals(gl.totalCount(), gs.totalCount());
+
+        for (ExternalEdges ee : new ExternalEdges[] { gl.getExternalEdges(), gs.getExternalEdges() }) {
+            Assert.assertEquals(2, ee.getEdgeCounts().count(Service.class));
+            Assert.assertEquals(1, ee.getObjectCounts().count(Service.class));
+            Assert.assertEquals(GraphStats.parseInstance(h.service1).totalSize() -
+                                GraphStats.parseInstance((Object) h.service1.state).totalSize(),
+                                ee.getObjectSizes().count(Service.class));
+        }
+
+        Assert.assertTrue(gl.toFootprint().contains("External edges"));
+    }
+
+    @Test
+    public void defaults() {
+        Holder h = new Holder(new Service());
+        WalkLimits limits = WalkLimits.none().withBoundary(WalkBoundary.defaults());
+
+        GraphLayout gl = new GraphWalker(limits).walk(h);
+
+        ExternalEdges ee = gl.getExternalEdges();
+        Assert.assertEquals(1, ee.getEdgeCounts().count(Class.class));
+        Assert.assertEquals(1, ee.getEdgeCounts().count(TimeUnit.SECONDS.getClass()));
+        Assert.assertTrue(gl.getClasses().contains(Service.class));
+        VirtualMachine vm = VM.current();
+        Assert.assertEquals(vm.sizeOf(h) + vm.sizeOf(h.payload) + vm.sizeOf(h.service1) + vm.sizeOf(h.service1.state),
+                gl.totalSize());
+        Assert.assertEquals(2, ee.totalCount());
+    }
+
+    @Test
+    public void rootsAreTraversed() {
+        Service s = new Service();
+        WalkLimits limits = WalkLimits.none().withBoundary(WalkBoundary.classes(Service.class));
+
+        GraphStats gs = new GraphStatsWalker(limits).walk(s);
+        Assert.assertEquals(GraphStats.parseInstance(s).totalSize(), gs.totalSize());
+        Assert.assertTrue(gs.getExternalEdges().isEmpty());
+    }
+
+    @Test
+    public void combined() {
+        final int[] calls = new int[1];
+        WalkBoundary counting = new WalkBoundary() {
+            @Override
+            protected boolean stopsAt(Class<?> klass) {
+                calls[0]++;
+                return klass == Service.class;
+            }
+        };
+        WalkBoundary b = WalkBoundary.enums().or(counting);
+
+        Assert.assertTrue(b.isBoundary(Service.class));
+        Assert.assertTrue(b.isBoundary(TimeUnit.class));
+        Assert.assertFalse(b.isBoundary(Object.class));
+        Assert.assertFalse(b.isBoundary(Object.class));
+        Assert.assertEquals(2, calls[0]);
+    }
+
+}
@@ -0,0 +1,158 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class GraphWalkLimitsTest {
+
+    static class D {
+        private final D d;
+        public D(D d) { this.d = d; }
+    }
+
+    private static D chain(int length) {
+        D d = new D(null);
+        for (int i = 1; i < length; i++) {
+            d = new D(d);
+        }
+        return d;
+    }
+
+    @Test
+    public void unlimited() {
+        D d = chain(100);
+
+        GraphStats stats = new GraphStatsWalker(WalkLimits.none()).walk(d);
+        Assert.assertEquals(100, stats.totalCount());
+        Assert.assertFalse(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(WalkLimits.none()).walk(d);
+        Assert.assertEquals(100, layout.totalCount());
+        Assert.assertFalse(layout.isTruncated());
+    }
+
+    @Test
+    public void maxObjects() {
+        D d = chain(100);
+        WalkLimits limits = WalkLimits.none().withMaxObjects(10);
+
+        GraphStats stats = new GraphStatsWalker(limits).walk(d);
+        Assert.assertEquals(10, stats.totalCount());
+        Assert.assertTrue(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(limits).walk(d);
+        Assert.assertEquals(10, layout.totalCount());
+        Assert.assertTrue(layout.isTruncated());
+    }
+
+    @Test
+    public void maxObjectsExact() {
+        D d = chain(10);
+        WalkLimits limits = WalkLimits.none().withMaxObjects(10);
+
+        GraphStats stats = new GraphStatsWalker(limits).walk(d);
+        Assert.assertEquals(10, stats.totalCount());
+        Assert.assertFalse(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(limits).walk(d);
+        Assert.assertEquals(10, layout.totalCount());
+        Assert.assertFalse(layout.isTruncated());
+    }
+
+    @Test
+    public void maxBytes() {
+        D d = chain(100);
+        long size = ClassLayout.parseInstance(d).instanceSize();
+        WalkLimits limits = WalkLimits.none().withMaxBytes(size * 10 + size / 2);
+
+        GraphStats stats = new GraphStatsWalker(limits).walk(d);
+        Assert.assertEquals(10, stats.totalCount());
+        Assert.assertEquals(size * 10, stats.totalSize());
+        Assert.assertTrue(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(limits).walk(d);
+        Assert.assertEquals(10, layout.totalCount());
+        Assert.assertEquals(size * 10, layout.totalSize());
+        Assert.assertTrue(layout.isTruncated());
+    }
+
+    @Test
+    public void maxBytesArrays() {
+        Object[] arr = new Object[] { new byte[100], new byte[100], new byte[100] };
+        long size = GraphStats.parseInstance((Object) arr).totalSize();
+        WalkLimits limits = WalkLimits.none().withMaxBytes(size - 1);
+
+        Assert.assertTrue(new GraphStatsWalker(limits).walk((Object) arr).totalSize() < size);
+        Assert.assertTrue(new GraphWalker(limits).walk((Object) arr).totalSize() < size);
+    }
+
+    @Test
+    public void maxDepth() {
+        D d = chain(100);
+        WalkLimits limits = WalkLimits.none().withMaxDepth(4);
+
+        GraphStats stats = new GraphStatsWalker(limits).walk(d);
+        Assert.assertEquals(5, stats.totalCount());
+        Assert.assertTrue(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(limits).walk(d);
+        Assert.assertEquals(5, layout.totalCount());
+        Assert.assertTrue(layout.isTruncated());
+
+        D shallow = chain(5);
+        Assert.assertFalse(new GraphStatsWalker(limits).walk(shallow).isTruncated());
+        Assert.assertFalse(new GraphWalker(limits).walk(shallow).isTruncated());
+    }
+
+    @Test
+    public void maxDepthDiamond() {
+        // Target is reachable from the root directly, and through the long chain.
+        // The walk should expand it at depth 1 whichever branch it walks first.
+        D leaf = new D(null);
+        D target = new D(leaf);
+        D chain = new D(new D(new D(target)));
+        WalkLimits limits = WalkLimits.none().withMaxDepth(2);
+
+        for (Object root : new Object[] { new Object[] { chain, target }, new Object[] { target, chain } }) {
+            for (TraversalOrder order : TraversalOrder.values()) {
+                GraphStats stats = new GraphStatsWalker(limits, order).walk(root);
+                Assert.assertEquals(order.toString(), 5, stats.totalCount());
+                Assert.assertTrue(stats.isTruncated());
+            }
+
+            GraphLayout layout = new GraphWalker(limits).walk(root);
+            Assert.assertEquals(5, layout.totalCount());
+            Assert.assertTrue(layout.isTruncated());
+            GraphRecords records = layout.records();
+            for (int i = 0; i < records.size(); i++) {
+                if (records.obj(i) == target) {
+                    Assert.assertEquals(1, records.depth(i));
+                }
+                if (records.obj(i) == leaf) {
+                    Assert.assertEquals(2, records.depth(i));
+                }
+            }
+
+            Assert.assertEquals(5, new GraphStreamWalker(limits).walk(root).totalCount());
+            Assert.assertEquals(5, new OffHeapGraphStatsWalker(limits).walk(root).totalCount());
+            Assert.assertEquals(5, new ReusableGraphStatsWalker(limits).walk(root).totalCount());
+        }
+    }
+
+    @Test
+    public void maxTime() {
+        D d = chain(100000);
+        WalkLimits limits = WalkLimits.none().withMaxTime(0, TimeUnit.NANOSECONDS);
+
+        GraphStats stats = new GraphStatsWalker(limits).walk(d);
+        Assert.assertTrue(stats.totalCount() < 100000);
+        Assert.assertTrue(stats.isTruncated());
+
+        GraphLayout layout = new GraphWalker(limits).walk(d);
+        Assert.assertTrue(layout.totalCount() < 100000);
+        Assert.assertTrue(layout.isTruncated());
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class ResumableWalkTest {
+
+    static Map<Integer, String> map(int size) {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, "Value" + i);
+        }
+        return map;
+    }
+
+    @Test
+    public void statsInSteps() {
+        Map<Integer, String> map = map(10_000);
+
+        ResumableWalk<GraphStats> w = new GraphStatsWalker().start(map);
+        Assert.assertFalse(w.isDone());
+        Assert.assertEquals(1, w.discovered());
+        Assert.assertEquals(1, w.pending());
+
+        int steps = 0;
+        while (w.step(100)) {
+            steps++;
+            Assert.assertEquals(steps * 100L, w.processed());
+            Assert.assertTrue(w.pending() > 0);
+        }
+
+        GraphStats exact = GraphStats.parseInstance(map);
+        Assert.assertTrue(steps > 10);
+        Assert.assertTrue(w.isDone());
+        Assert.assertEquals(0, w.pending());
+        Assert.assertEquals(exact.totalCount(), w.discovered());
+        Assert.assertEquals(exact.totalCount(), w.processed());
+        Assert.assertEquals(exact.totalSize(), w.result().totalSize());
+        Assert.assertFalse(w.result().isTruncated());
+    }
+
+    @Test
+    public void layoutInSteps() {
+        Map<Integer, String> map = map(10_000);
+
+        ResumableWalk<GraphLayout> w = new GraphWalker().start(map);
+        while (w.step(1, TimeUnit.MILLISECONDS)) {
+            // keep stepping
+        }
+
+        GraphLayout exact = GraphLayout.parseInstance(map);
+        Assert.assertEquals(exact.totalCount(), w.result().totalCount());
+        Assert.assertEquals(exact.totalSize(), w.result().totalSize());
+        Assert.assertFalse(w.step(100));
+    }
+
+    @Test
+    public void limitsStopTheWalk() {
+        Map<Integer, String> map = map(1000);
+
+        ResumableWalk<GraphLayout> w = new GraphWalker(WalkLimits.none().withMaxObjects(100)).start(map);
+        while (w.step(10)) {
+            Assert.assertTrue(w.discovered() <= 100);
+        }
+        Assert.assertTrue(w.result().isTruncated());
+        Assert.assertEquals(100, w.result().totalCount());
+    }
+
+    @Test
+    public void timeLimitInSmallSteps() throws InterruptedException {
+        Map<Integer, String> map = map(10_000);
+
+        ResumableWalk<GraphStats> ws = new GraphStatsWalker(WalkLimits.none().withMaxTime(1, TimeUnit.NANOSECONDS)).start(map);
+        ResumableWalk<GraphLayout> wl = new GraphWalker(WalkLimits.none().withMaxTime(1, TimeUnit.NANOSECONDS)).start(map);
+        Thread.sleep(1);
+
+        // Steps are shorter than the time check interval
+        Assert.assertFalse(ws.step(100));
+        Assert.assertTrue(ws.result().isTruncated());
+        Assert.assertFalse(wl.step(100));
+        Assert.assertTrue(wl.result().isTruncated());
+    }
+
+    @Test
+    public void finish() {
+        Map<Integer, String> map = map(100);
+        ResumableWalk<GraphStats> w = new GraphStatsWalker().start(map);
+        w.step(10);
+        Assert.assertEquals(GraphStats.parseInstance(map).totalSize(), w.finish().totalSize());
+    }
+
+}
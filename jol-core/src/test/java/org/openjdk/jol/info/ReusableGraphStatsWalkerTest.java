@@ -0,0 +1,70 @@
+package org.openjdk.jol.info;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReusableGraphStatsWalkerTest {
+
+    private static Object graph(int size) {
+        Map<Integer, Object> m = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            m.put(i, (i % 2 == 0) ? new Object() : new Object[i % 300]);
+        }
+        return m;
+    }
+
+    @Test
+    public void sameAsFresh() {
+        ReusableGraphStatsWalker walker = new ReusableGraphStatsWalker();
+        for (int size : new int[] { 1000, 10, 0, 5000, 3 }) {
+            Object root = graph(size);
+            GraphStats expected = GraphStats.parseInstance(root);
+
+            Assert.assertEquals(expected.totalSize(), walker.measure(root));
+            Assert.assertEquals(expected.totalCount(), walker.lastCount());
+            Assert.assertFalse(walker.lastTruncated());
+
+            GraphStats actual = walker.walk(root, root);
+            Assert.assertEquals(expected.totalCount(), actual.totalCount());
+            Assert.assertEquals(expected.totalSize(), actual.totalSize());
+        }
+    }
+
+    @Test
+    public void keepsCapacity() {
+        ReusableGraphStatsWalker walker = new ReusableGraphStatsWalker();
+        Object big = graph(5000);
+        walker.measure(big);
+        int capacity = walker.visitedCapacity();
+
+        List<Object> small = new ArrayList<>();
+        small.add(new Object());
+        Assert.assertEquals(GraphStats.parseInstance(small).totalSize(), walker.measure(small));
+        Assert.assertEquals(capacity, walker.visitedCapacity());
+    }
+
+    @Test
+    public void limits() {
+        WalkLimits limits = WalkLimits.none().withMaxObjects(10);
+        ReusableGraphStatsWalker walker = new ReusableGraphStatsWalker(limits);
+        Object root = graph(100);
+
+        walker.measure(root);
+        Assert.assertTrue(walker.lastTruncated());
+        Assert.assertEquals(10, walker.lastCount());
+
+        walker.measure(new Object());
+        Assert.assertFalse("Truncation does not leak into the next walk", walker.lastTruncated());
+        Assert.assertEquals(1, walker.lastCount());
+
+        GraphStats gs = walker.walk(root);
+        Assert.assertTrue(gs.isTruncated());
+        Assert.assertEquals(10, gs.totalCount());
+    }
+
+}
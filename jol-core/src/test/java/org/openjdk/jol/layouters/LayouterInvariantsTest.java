@@ -19,6 +19,8 @@ public class LayouterInvariantsTest {
             new Model64(),
             new Model64_CCPS(),
             new Model64_COOPS_CCPS(),
+            new Model64_COH(),
+            new Model64_COOPS_COH(),
     };
 
     private static final int ITERATIONS = 10000;
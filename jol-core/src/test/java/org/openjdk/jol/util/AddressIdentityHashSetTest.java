@@ -0,0 +1,104 @@
+package org.openjdk.jol.util;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jol.vm.VM;
+
+public class AddressIdentityHashSetTest {
+
+    @Test
+    public void addContains() {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            Assert.assertTrue(set.add(objs[i]));
+        }
+        for (Object o : objs) {
+            Assert.assertTrue(set.contains(o));
+            Assert.assertFalse(set.add(o));
+        }
+        Assert.assertFalse(set.contains(new Object()));
+        Assert.assertEquals(objs.length, set.size());
+        Assert.assertTrue(set.validate());
+    }
+
+    @Test
+    public void survivesGC() {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            set.add(objs[i]);
+        }
+
+        System.gc();
+
+        // Objects might have moved, rehash to catch up
+        set.validate();
+        for (Object o : objs) {
+            Assert.assertTrue(set.contains(o));
+        }
+        Assert.assertEquals(objs.length, set.size());
+    }
+
+    @Test
+    public void detectsDuplicates() {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            set.add(objs[i]);
+        }
+
+        System.gc();
+
+        // Adding without the epoch check may add moved objects again,
+        // but the set should be able to detect that on validation.
+        for (Object o : objs) {
+            set.add(o);
+        }
+        set.validate();
+        Assert.assertEquals(objs.length, set.size());
+    }
+
+    @Test
+    public void clear() {
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            set.add(objs[i]);
+        }
+        set.clear();
+        Assert.assertEquals(0, set.size());
+        Assert.assertTrue(set.validate());
+        for (Object o : objs) {
+            Assert.assertFalse(set.contains(o));
+            Assert.assertTrue(set.add(o));
+        }
+        Assert.assertEquals(objs.length, set.size());
+    }
+
+    @Test
+    public void noIdentityHashCodes() {
+        Assume.assumeTrue(VM.current().addressSize() == 8);
+
+        Object control = new Object();
+        System.identityHashCode(control);
+        Assume.assumeTrue("Hash code bits are where we expect", hashBits(control) != 0);
+
+        Object o = new Object();
+        AddressIdentityHashSet set = new AddressIdentityHashSet();
+        set.add(o);
+        Assert.assertTrue(set.contains(o));
+        Assert.assertEquals(0, hashBits(o));
+    }
+
+    private static long hashBits(Object o) {
+        long mark = VM.current().getLong(o, 0);
+        return (mark >>> 8) & 0x7FFFFFFFL;
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.openjdk.jol.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChunkedStackTest {
+
+    @Test
+    public void pushPop() {
+        ChunkedStack<Integer> s = new ChunkedStack<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                s.push(i);
+            }
+            Assert.assertEquals(10_000, s.size());
+            for (int i = 9_999; i >= 0; i--) {
+                Assert.assertEquals(Integer.valueOf(i), s.pop());
+            }
+            Assert.assertTrue(s.isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.openjdk.jol.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClearableIdentityHashSetTest {
+
+    @Test
+    public void addContains() {
+        ClearableIdentityHashSet set = new ClearableIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            Assert.assertTrue(set.add(objs[i]));
+        }
+        for (Object o : objs) {
+            Assert.assertTrue(set.contains(o));
+            Assert.assertFalse(set.add(o));
+        }
+        Assert.assertFalse(set.contains(new Object()));
+        Assert.assertEquals(objs.length, set.size());
+    }
+
+    @Test
+    public void clearKeepsCapacity() {
+        ClearableIdentityHashSet set = new ClearableIdentityHashSet();
+        Object[] objs = new Object[10_000];
+        for (int i = 0; i < objs.length; i++) {
+            objs[i] = new Object();
+            set.add(objs[i]);
+        }
+        int capacity = set.capacity();
+
+        set.clear();
+        Assert.assertEquals(0, set.size());
+        Assert.assertEquals(capacity, set.capacity());
+        for (Object o : objs) {
+            Assert.assertFalse(set.contains(o));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < objs.length; i += 1 + round) {
+                Assert.assertTrue(set.add(objs[i]));
+            }
+            for (int i = 0; i < objs.length; i++) {
+                Assert.assertEquals(i % (1 + round) == 0, set.contains(objs[i]));
+            }
+            set.clear();
+        }
+        Assert.assertEquals(capacity, set.capacity());
+    }
+
+    @Test
+    public void addAll() {
+        ClearableIdentityHashSet set = new ClearableIdentityHashSet();
+        Object a = new Object();
+        Object b = new Object();
+        set.add(a);
+
+        int[] added = new int[4];
+        int n = set.addAll(new Object[] { a, b, b, new Object() }, 4, added);
+        Assert.assertEquals(2, n);
+        Assert.assertEquals(1, added[0]);
+        Assert.assertEquals(3, added[1]);
+    }
+
+}
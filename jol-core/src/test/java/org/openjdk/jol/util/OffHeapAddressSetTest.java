@@ -0,0 +1,42 @@
+package org.openjdk.jol.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class OffHeapAddressSetTest {
+
+    @Test
+    public void addContains() {
+        OffHeapAddressSet set = new OffHeapAddressSet();
+        for (long a = 8; a <= 100_000 * 8; a += 8) {
+            Assert.assertTrue(set.add(a));
+        }
+        for (long a = 8; a <= 100_000 * 8; a += 8) {
+            Assert.assertTrue(set.contains(a));
+            Assert.assertFalse(set.add(a));
+        }
+        Assert.assertFalse(set.contains(100_001 * 8));
+        Assert.assertEquals(100_000, set.size());
+
+        set.clear();
+        Assert.assertEquals(0, set.size());
+        Assert.assertFalse(set.contains(8));
+    }
+
+    @Test
+    public void randomAddresses() {
+        OffHeapAddressSet set = new OffHeapAddressSet();
+        Random r = new Random(42);
+        long[] addrs = new long[50_000];
+        for (int i = 0; i < addrs.length; i++) {
+            addrs[i] = (r.nextLong() | 1);
+            set.add(addrs[i]);
+        }
+        for (long a : addrs) {
+            Assert.assertTrue(set.contains(a));
+        }
+    }
+
+}